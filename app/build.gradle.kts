@@ -4,6 +4,9 @@ plugins {
     id("com.google.gms.google-services")      // Google Services plugin (for Firebase)
 }
 
+// WebRTC SDK 버전 (의존성 + 코덱 캐시 무효화 키에 함께 사용)
+val webrtcVersion = "125.6422.07"
+
 android {
     namespace    = "com.silmedy.videocall"     // 앱의 패키지 네임스페이스
     compileSdk   = 35                         // 컴파일 대상 SDK 버전
@@ -16,10 +19,12 @@ android {
         versionName   = "1.0"                 // 사용자에게 보이는 버전명
         testInstrumentationRunner =          // 계측 테스트 실행기 지정
             "androidx.test.runner.AndroidJUnitRunner"
+        buildConfigField("String", "WEBRTC_VERSION", "\"$webrtcVersion\"")
     }
 
     buildFeatures {
         viewBinding = true                    // ViewBinding 사용 설정
+        buildConfig = true                    // BuildConfig 생성 (WEBRTC_VERSION)
     }
 
     buildTypes {
@@ -32,6 +37,18 @@ android {
         }
     }
 
+    testOptions {
+        unitTests {
+            isReturnDefaultValues = true      // 단위 테스트에서 android.util.Log 등 기본값 반환
+        }
+    }
+
+    sourceSets {
+        getByName("androidTest") {
+            resources.srcDir("src/test/resources") // SDP 캡처 샘플을 벤치마크와 공유
+        }
+    }
+
     compileOptions {
         sourceCompatibility =                // 자바 소스 호환성
             JavaVersion.VERSION_11
@@ -58,7 +75,7 @@ dependencies {
     implementation("com.google.firebase:firebase-messaging")
 
     // WebRTC Android SDK (컴파일 SDK 35 필요)
-    implementation("io.github.webrtc-sdk:android:125.6422.07")
+    implementation("io.github.webrtc-sdk:android:$webrtcVersion")
     // AndroidX Activity (최신 Activity API)
     implementation("androidx.activity:activity:1.10.1")
 
@@ -69,6 +86,10 @@ dependencies {
 
     // JUnit 4 — 단위 테스트
     testImplementation("junit:junit:4.13.2")
+    // MockWebServer — 업로더 단위 테스트용 로컬 HTTP 서버
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.10.0")
+    // org.json 실제 구현 — android.jar 스텁 대신 단위 테스트에서 JSON 파싱
+    testImplementation("org.json:json:20231013")
     // AndroidX Test Ext — Android용 JUnit 확장
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     // Espresso — UI 테스트 프레임워크
@@ -0,0 +1,95 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.DefaultVideoDecoderFactory;
+import org.webrtc.DefaultVideoEncoderFactory;
+import org.webrtc.EglBase;
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.VideoCodecInfo;
+import org.webrtc.VideoDecoderFactory;
+import org.webrtc.VideoEncoderFactory;
+
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * PeerConnectionFactory 생성 비용 비교 (기기에서 실행)
+ * 생성 + 영상 송수신 capability 조회까지 측정 (지원 코덱 조회가 여기서 일어남)
+ * cold: DefaultVideo*Factory 가 매번 MediaCodecList probe
+ * cached: CodecCapabilityCache 래퍼가 저장된 목록 반환
+ */
+@RunWith(AndroidJUnit4.class)
+public class CodecCapabilityCacheBenchmark {
+    private static final String TAG = "CodecCacheBenchmark";
+    private static final int ITERATIONS = 20;
+
+    @Test
+    public void compareColdAndCachedFactoryCreation() throws Exception {
+        Context ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        PeerConnectionFactory.initialize(
+                PeerConnectionFactory.InitializationOptions.builder(ctx)
+                        .createInitializationOptions());
+        EglContextManager.Handle egl = EglContextManager.get().acquire(TAG);
+        try {
+            EglBase.Context eglContext = egl.getContext();
+            CodecCapabilityCache cache = CodecCapabilityCache.get(ctx);
+            cache.invalidate();
+
+            long coldNs = timeFactoryCreation(
+                    () -> new DefaultVideoEncoderFactory(eglContext, true, true),
+                    () -> new DefaultVideoDecoderFactory(eglContext));
+            VideoCodecInfo[] coldCodecs =
+                    new DefaultVideoEncoderFactory(eglContext, true, true).getSupportedCodecs();
+
+            // 첫 호출로 캐시 채움
+            new CodecCapabilityCache.EncoderFactory(cache, eglContext).getSupportedCodecs();
+            new CodecCapabilityCache.DecoderFactory(cache, eglContext).getSupportedCodecs();
+
+            long cachedNs = timeFactoryCreation(
+                    () -> new CodecCapabilityCache.EncoderFactory(cache, eglContext),
+                    () -> new CodecCapabilityCache.DecoderFactory(cache, eglContext));
+            // 디스크에서 다시 읽은 목록 (프로세스 재시작 후와 같은 경로)
+            VideoCodecInfo[] cachedCodecs = CodecCapabilityCache.fromJson(
+                    CodecCapabilityCache.toJson(
+                            new CodecCapabilityCache.EncoderFactory(cache, eglContext).getSupportedCodecs()));
+
+            Log.i(TAG, "factory create cold avg=" + (coldNs / ITERATIONS / 1000) + "us, cached avg="
+                    + (cachedNs / ITERATIONS / 1000) + "us");
+            assertEquals(coldCodecs.length, cachedCodecs.length);
+            for (int i = 0; i < coldCodecs.length; i++) {
+                assertEquals(coldCodecs[i].name, cachedCodecs[i].name);
+                assertEquals(coldCodecs[i].scalabilityModes, cachedCodecs[i].scalabilityModes);
+            }
+        } finally {
+            egl.release();
+        }
+    }
+
+    /** 팩토리 생성 + capability 조회 ITERATIONS 회 합계 (dispose 는 제외) */
+    private static long timeFactoryCreation(Supplier<VideoEncoderFactory> encoders,
+                                            Supplier<VideoDecoderFactory> decoders) {
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            PeerConnectionFactory factory = PeerConnectionFactory.builder()
+                    .setVideoEncoderFactory(encoders.get())
+                    .setVideoDecoderFactory(decoders.get())
+                    .createPeerConnectionFactory();
+            factory.getRtpSenderCapabilities(MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO);
+            factory.getRtpReceiverCapabilities(MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO);
+            total += SystemClock.elapsedRealtimeNanos() - start;
+            factory.dispose();
+        }
+        return total;
+    }
+}
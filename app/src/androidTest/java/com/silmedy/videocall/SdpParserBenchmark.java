@@ -0,0 +1,69 @@
+package com.silmedy.videocall;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sdp 해석 + 직렬화 비용 측정 (기기에서 실행)
+ * 협상 한 번마다 offer/answer 를 해석하므로 1ms 미만이어야 함
+ */
+@RunWith(AndroidJUnit4.class)
+public class SdpParserBenchmark {
+    private static final String TAG = "SdpParserBenchmark";
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+
+    @Test
+    public void parseAndSerializeCapturedSdp() throws IOException {
+        for (String name : new String[]{"chrome_offer.sdp", "android_answer.sdp"}) {
+            String raw = load(name);
+
+            for (int i = 0; i < WARMUP; i++) Sdp.parse(raw).serialize();
+
+            long parseNs = 0;
+            long serializeNs = 0;
+            long codecsNs = 0;
+            String out = null;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = SystemClock.elapsedRealtimeNanos();
+                Sdp sdp = Sdp.parse(raw);
+                long parsed = SystemClock.elapsedRealtimeNanos();
+                for (Sdp.Media m : sdp.media()) m.codecs();
+                long codecs = SystemClock.elapsedRealtimeNanos();
+                out = sdp.serialize();
+                long end = SystemClock.elapsedRealtimeNanos();
+                parseNs += parsed - start;
+                codecsNs += codecs - parsed;
+                serializeNs += end - codecs;
+            }
+
+            Log.i(TAG, name + " (" + raw.length() + "B) parse avg=" + (parseNs / ITERATIONS / 1000)
+                    + "us, codecs avg=" + (codecsNs / ITERATIONS / 1000)
+                    + "us, serialize avg=" + (serializeNs / ITERATIONS / 1000) + "us");
+            assertEquals(raw, out);
+        }
+    }
+
+    private static String load(String name) throws IOException {
+        try (InputStream in = SdpParserBenchmark.class.getResourceAsStream("/sdp/" + name)) {
+            assertNotNull(in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
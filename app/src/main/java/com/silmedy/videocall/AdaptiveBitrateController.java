@@ -0,0 +1,262 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import org.webrtc.RtpParameters;
+import org.webrtc.RtpSender;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * getStats 기반 영상 송신 적응 제어
+ * - StatsSampler 샘플을 받아 EVAL_INTERVAL_MS 마다 가용 송신 대역폭 / 패킷 손실 / RTT 평가
+ * - LADDER 단계에 맞춰 RtpParameters.Encoding 의 maxBitrateBps,
+ *   scaleResolutionDownBy, maxFramerate 조정
+ * - 하향은 빠르게(DOWN_SAMPLES), 상향은 천천히 한 단계씩(UP_SAMPLES) → 히스테리시스
+ * - 해상도 축소 비율은 REFERENCE_HEIGHT 캡처 기준 → 캡처가 이미 줄었으면 그만큼 덜 줄임
+ * - 매 평가 결과를 Listener 로 전달 (테스트/로그/다른 컨트롤러 연동용)
+ */
+public class AdaptiveBitrateController implements StatsSampler.Listener {
+    private static final String TAG = "AdaptiveBitrate";
+
+    static final long   EVAL_INTERVAL_MS = 2_000L;
+    static final int    DOWN_SAMPLES     = 2;
+    static final int    UP_SAMPLES       = 5;
+    /** 가용 대역폭 중 영상에 쓸 비율 (오디오/헤더 여유) */
+    static final double BANDWIDTH_HEADROOM = 0.85;
+    static final double LOSS_CONGESTED     = 0.10;
+    static final double RTT_CONGESTED_MS   = 500;
+
+    /** LADDER scaleDownBy 의 기준 캡처 높이 (WebRTCManager 기본 캡처 640x480) */
+    static final int REFERENCE_HEIGHT = 480;
+
+    /** 품질 단계: 0 이 최고 품질 */
+    static final Level[] LADDER = {
+            new Level(1_500_000, 1.0, 30),
+            new Level(  800_000, 1.0, 30),
+            new Level(  500_000, 1.5, 24),
+            new Level(  250_000, 2.0, 15),
+            new Level(  120_000, 4.0, 10),
+    };
+
+    static final class Level {
+        final int maxBitrateBps;
+        final double scaleDownBy;
+        final int maxFramerate;
+
+        Level(int maxBitrateBps, double scaleDownBy, int maxFramerate) {
+            this.maxBitrateBps = maxBitrateBps;
+            this.scaleDownBy = scaleDownBy;
+            this.maxFramerate = maxFramerate;
+        }
+    }
+
+    /** 한 번의 평가 결과 */
+    public static final class Decision {
+        public final int level;
+        public final boolean changed;
+        public final long availableBitrateBps;
+        public final double lossFraction;
+        public final double rttMs;
+        public final int maxBitrateBps;
+        public final double scaleDownBy;
+        public final int maxFramerate;
+        public final String reason;
+
+        Decision(int level, boolean changed, long availableBitrateBps,
+                 double lossFraction, double rttMs, String reason) {
+            Level l = LADDER[level];
+            this.level = level;
+            this.changed = changed;
+            this.availableBitrateBps = availableBitrateBps;
+            this.lossFraction = lossFraction;
+            this.rttMs = rttMs;
+            this.maxBitrateBps = l.maxBitrateBps;
+            this.scaleDownBy = l.scaleDownBy;
+            this.maxFramerate = l.maxFramerate;
+            this.reason = reason;
+        }
+
+        @Override public String toString() {
+            return "Decision{level=" + level + ", changed=" + changed
+                    + ", avail=" + availableBitrateBps + ", loss=" + lossFraction
+                    + ", rtt=" + rttMs + ", reason=" + reason + "}";
+        }
+    }
+
+    /** 발열 상한으로 내린 결정의 reason (측정 샘플이 아님, 대역폭 값은 직전 측정값) */
+    public static final String REASON_THERMAL = "thermal";
+
+    public interface Listener {
+        void onDecision(Decision decision);
+
+        /**
+         * 품질 상한 변경 (ThermalGovernor, 0 = 제한 없음)
+         * 송신기 없이 결정만 받는 쪽(SimulcastController)이 직접 상한을 적용할 때 사용
+         */
+        default void onLevelFloor(int floor) {}
+    }
+
+    private final RtpSender sender;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean running;
+    private long lastEvalMs;
+
+    private int level = 1;
+    /** 이보다 좋은 단계로 올라가지 않음 (ThermalGovernor 가 설정) */
+    private volatile int levelFloor;
+    private int downCount;
+    private int upCount;
+    /** 직전 측정값 (발열 결정에 그대로 실음) */
+    private long lastAvailableBps;
+    private double lastLossFraction;
+    private double lastRttMs = -1;
+    private int captureHeight = REFERENCE_HEIGHT;
+
+    /**
+     * @param sender 조정 대상 영상 RtpSender (null 이면 결정만 내보냄)
+     */
+    public AdaptiveBitrateController(RtpSender sender) {
+        this.sender = sender;
+    }
+
+    public void addListener(Listener l)    { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    public synchronized int getLevel() { return level; }
+
+    /**
+     * 품질 상한 설정: floor 보다 좋은 단계 금지 (발열/CPU 부하 시)
+     * - 모든 Listener 에 onLevelFloor 통지 (송신기 없는 다중 레이어 모드는 Listener 가 직접 적용)
+     * - 현재 단계가 더 좋으면 즉시 내리고 REASON_THERMAL 결정으로 통지 (대역폭 값은 직전 측정값)
+     */
+    public void setLevelFloor(int floor) {
+        int clamped = Math.max(0, Math.min(floor, LADDER.length - 1));
+        Decision d = null;
+        synchronized (this) {
+            if (levelFloor == clamped) return;
+            levelFloor = clamped;
+            if (level < clamped) {
+                Log.d(TAG, "🎚 level " + level + " → " + clamped + " (thermal)");
+                level = clamped;
+                downCount = 0;
+                upCount = 0;
+                if (running) applyLevel(level);
+                d = new Decision(level, true, lastAvailableBps, lastLossFraction, lastRttMs, REASON_THERMAL);
+            }
+        }
+        for (Listener l : listeners) l.onLevelFloor(clamped);
+        if (d != null) for (Listener l : listeners) l.onDecision(d);
+    }
+
+    /**
+     * 현재 캡처 높이 (ThermalGovernor 가 캡처 해상도를 낮출 때)
+     * 320x240 캡처에 단계 3(2.0 배 축소)을 그대로 적용하면 160x120 이 되므로 기준 대비로 환산
+     */
+    public synchronized void setCaptureHeight(int height) {
+        if (height <= 0 || height == captureHeight) return;
+        Log.d(TAG, "📐 capture height " + captureHeight + " → " + height);
+        captureHeight = height;
+        if (running) applyLevel(level);
+    }
+
+    public void start() {
+        synchronized (this) {
+            if (running) return;
+            running = true;
+            applyLevel(level);
+        }
+        Log.d(TAG, "▶ start level=" + getLevel());
+    }
+
+    public synchronized void stop() {
+        running = false;
+    }
+
+    @Override
+    public void onSample(StatsSampler.Sample sample) {
+        synchronized (this) {
+            if (!running || sample.timestampMs - lastEvalMs < EVAL_INTERVAL_MS) return;
+            lastEvalMs = sample.timestampMs;
+        }
+        double available = sample.get(StatsRingBuffer.AVAILABLE_OUT_BPS);
+        if (Double.isNaN(available)) return; // 아직 선택된 후보쌍 없음
+        double loss = sample.get(StatsRingBuffer.REMOTE_LOSS_FRACTION);
+        double rtt = sample.get(StatsRingBuffer.RTT_MS);
+        onSample((long) available, Double.isNaN(loss) ? 0 : loss, Double.isNaN(rtt) ? -1 : rtt);
+    }
+
+    /** 샘플 하나 평가 후 필요 시 인코딩 변경 + Listener 통지 */
+    void onSample(long availableBps, double lossFraction, double rttMs) {
+        Decision d;
+        synchronized (this) {
+            lastAvailableBps = availableBps;
+            lastLossFraction = lossFraction;
+            lastRttMs = rttMs;
+            int target = Math.max(targetLevel(availableBps), levelFloor);
+            String reason = "bandwidth";
+            if (lossFraction > LOSS_CONGESTED || rttMs > RTT_CONGESTED_MS) {
+                target = Math.max(target, Math.min(level + 1, LADDER.length - 1));
+                reason = lossFraction > LOSS_CONGESTED ? "loss" : "rtt";
+            }
+
+            int next = level;
+            if (target > level) {
+                upCount = 0;
+                if (++downCount >= DOWN_SAMPLES) {
+                    next = target;
+                    downCount = 0;
+                }
+            } else if (target < level) {
+                downCount = 0;
+                if (++upCount >= UP_SAMPLES) {
+                    next = level - 1;
+                    upCount = 0;
+                }
+            } else {
+                downCount = 0;
+                upCount = 0;
+                reason = "steady";
+            }
+
+            boolean changed = next != level;
+            if (changed) {
+                Log.d(TAG, "🎚 level " + level + " → " + next + " (" + reason
+                        + ", avail=" + availableBps + ", loss=" + lossFraction + ", rtt=" + rttMs + ")");
+                level = next;
+                applyLevel(level);
+            }
+            d = new Decision(level, changed, availableBps, lossFraction, rttMs, reason);
+        }
+        for (Listener l : listeners) l.onDecision(d);
+    }
+
+    /** 가용 대역폭 안에 들어가는 가장 높은 품질 단계 */
+    static int targetLevel(long availableBps) {
+        long budget = (long) (availableBps * BANDWIDTH_HEADROOM);
+        for (int i = 0; i < LADDER.length; i++) {
+            if (LADDER[i].maxBitrateBps <= budget) return i;
+        }
+        return LADDER.length - 1;
+    }
+
+    /** 기준 해상도 대비 축소 비율을 현재 캡처에 맞게 환산 (확대는 하지 않음) */
+    static double scaleFor(Level level, int captureHeight) {
+        return Math.max(1.0, level.scaleDownBy * captureHeight / REFERENCE_HEIGHT);
+    }
+
+    private void applyLevel(int idx) {
+        if (sender == null) return;
+        Level l = LADDER[idx];
+        RtpParameters params = sender.getParameters();
+        for (RtpParameters.Encoding e : params.encodings) {
+            e.maxBitrateBps = l.maxBitrateBps;
+            e.scaleResolutionDownBy = scaleFor(l, captureHeight);
+            e.maxFramerate = l.maxFramerate;
+        }
+        if (!sender.setParameters(params)) {
+            Log.w(TAG, "setParameters 실패 level=" + idx);
+        }
+    }
+}
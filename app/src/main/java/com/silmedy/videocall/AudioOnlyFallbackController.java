@@ -0,0 +1,105 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+/**
+ * 대역폭 붕괴 시 자동 음성 전용 전환
+ * - 가용 송신 대역폭이 FALLBACK_BPS 미만으로 FALLBACK_HOLD_MS 이상 유지되면 영상 송신 중지
+ * - 영상을 끄면 GCC 추정치가 음성 송신량 수준에 묶여 회복을 알 수 없으므로
+ *   추정치를 기다리지 않고 일정 시간 후 영상을 다시 켜서 확인 (재개 probe)
+ *   → PROBE_CONFIRM_MS 동안 붕괴가 없으면 복귀 확정, 다시 붕괴하면 음성 전용 + 간격 두 배 (최대 PROBE_MAX_MS)
+ * - 재개 시 AdaptiveBitrateController 는 낮은 추정치 때문에 최하 단계에서 시작
+ * - 실제 중지/재개는 Listener(WebRTCManager)가 처리
+ */
+public class AudioOnlyFallbackController implements StatsSampler.Listener {
+    private static final String TAG = "AudioOnlyFallback";
+
+    /** 최소 영상 단계(120kbps)도 유지하기 힘든 수준 */
+    static final long FALLBACK_BPS     = 100_000;
+    static final long FALLBACK_HOLD_MS = 5_000;
+    /** 음성 전용 전환 후 첫 재개 probe 까지 (실패할 때마다 두 배) */
+    static final long PROBE_INITIAL_MS = 15_000;
+    static final long PROBE_MAX_MS     = 120_000;
+    /** probe 후 이 시간 동안 붕괴가 없으면 영상 복귀 확정 */
+    static final long PROBE_CONFIRM_MS = 10_000;
+
+    public static final String REASON_BANDWIDTH    = "bandwidth";
+    public static final String REASON_PROBE        = "probe";
+    public static final String REASON_PROBE_FAILED = "probe_failed";
+
+    public interface Listener {
+        /** @param reason REASON_* */
+        void onAudioOnlyChanged(boolean audioOnly, String reason, long availableBps);
+    }
+
+    private final Listener listener;
+    private boolean audioOnly;
+    /** 영상을 다시 켜고 확인 중 */
+    private boolean probing;
+    /** 붕괴 조건이 처음 충족된 시각 (-1 = 미충족) */
+    private long lowSinceMs = -1;
+    private long probeAtMs;
+    private long probeStartMs;
+    private long probeBackoffMs = PROBE_INITIAL_MS;
+
+    public AudioOnlyFallbackController(Listener listener) {
+        this.listener = listener;
+    }
+
+    public synchronized boolean isAudioOnly() { return audioOnly; }
+    public synchronized boolean isProbing()   { return probing; }
+
+    @Override
+    public void onSample(StatsSampler.Sample sample) {
+        double available = sample.get(StatsRingBuffer.AVAILABLE_OUT_BPS);
+        if (Double.isNaN(available)) return;
+        onSample(sample.timestampMs, (long) available);
+    }
+
+    void onSample(long nowMs, long availableBps) {
+        String reason = null;
+        boolean nowAudioOnly;
+        long nextProbeMs;
+        synchronized (this) {
+            if (audioOnly) {
+                // 음성 전용 중 추정치는 의미 없음 → 시간만 보고 probe
+                if (nowMs >= probeAtMs) {
+                    audioOnly = false;
+                    probing = true;
+                    probeStartMs = nowMs;
+                    lowSinceMs = -1;
+                    reason = REASON_PROBE;
+                }
+            } else if (availableBps < FALLBACK_BPS) {
+                if (lowSinceMs < 0) lowSinceMs = nowMs;
+                if (nowMs - lowSinceMs >= FALLBACK_HOLD_MS) {
+                    if (probing) {
+                        probeBackoffMs = Math.min(probeBackoffMs * 2, PROBE_MAX_MS);
+                        reason = REASON_PROBE_FAILED;
+                    } else {
+                        probeBackoffMs = PROBE_INITIAL_MS;
+                        reason = REASON_BANDWIDTH;
+                    }
+                    audioOnly = true;
+                    probing = false;
+                    lowSinceMs = -1;
+                    probeAtMs = nowMs + probeBackoffMs;
+                }
+            } else {
+                lowSinceMs = -1;
+                if (probing && nowMs - probeStartMs >= PROBE_CONFIRM_MS) {
+                    probing = false;
+                    probeBackoffMs = PROBE_INITIAL_MS;
+                    Log.d(TAG, "🎥 영상 복귀 확정 avail=" + availableBps);
+                }
+            }
+            if (reason == null) return;
+            nowAudioOnly = audioOnly;
+            nextProbeMs = probeBackoffMs;
+        }
+        Log.d(TAG, (nowAudioOnly ? "🔇 음성 전용 전환" : "🎥 영상 재개 시도")
+                + " (" + reason + ") avail=" + availableBps
+                + (nowAudioOnly ? " next probe " + nextProbeMs + "ms" : ""));
+        listener.onAudioOnlyChanged(nowAudioOnly, reason, availableBps);
+    }
+}
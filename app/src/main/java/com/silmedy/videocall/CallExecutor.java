@@ -0,0 +1,148 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 통화 하나의 PeerConnection / 시그널링 상태를 전담하는 단일 스레드
+ * - Firebase 리스너(메인 스레드), WebRTC 옵저버(네이티브 스레드), UI 호출을 모두 메시지로 받아 순서대로 실행
+ *   → 메인 스레드 정지 없음, 양쪽에서 동시에 상태를 바꾸는 경쟁 없음
+ * - shutdown 이후 대기 중이던 작업은 실행하지 않고 버림 (dispose 된 PeerConnection 접근 방지)
+ * - 지연 작업(postDelayed)도 같은 스레드에서 실행 → 타이머 때문에 메인 Handler 를 쓰지 않음
+ * - 큐 깊이 / 대기 시간 / 실행 시간 집계, SLOW_TASK_MS 이상 걸린 작업은 로그
+ */
+public class CallExecutor implements Executor {
+    private static final String TAG = "CallExecutor";
+
+    static final long SLOW_TASK_MS = 50;
+
+    private final ScheduledThreadPoolExecutor thread;
+    private final AtomicInteger depth = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile Thread owner;
+
+    // 집계 (실행 스레드에서만 갱신, 조회는 synchronized)
+    private long tasks;
+    private long dropped;
+    private int maxDepth;
+    private long waitSumMs;
+    private long waitMaxMs;
+    private long runMaxMs;
+    private long slowTasks;
+
+    public CallExecutor(String name) {
+        thread = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "Call-" + name);
+            owner = t;
+            return t;
+        });
+        // shutdown 시 아직 시각이 안 된 지연 작업은 취소
+        thread.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        thread.prestartCoreThread();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        post("task", task);
+    }
+
+    /** @param name 느린 작업 로그용 이름 */
+    public void post(String name, Runnable task) {
+        if (closed) return;
+        long enqueuedAt = System.nanoTime();
+        int d = depth.incrementAndGet();
+        synchronized (this) {
+            if (d > maxDepth) maxDepth = d;
+        }
+        try {
+            thread.execute(() -> run(name, task, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            // shutdown 직후 도착한 콜백
+            depth.decrementAndGet();
+        }
+    }
+
+    /**
+     * delayMs 후 통화 스레드에서 실행
+     * @return 취소용 (shutdown 이후면 null)
+     */
+    public Future<?> postDelayed(String name, Runnable task, long delayMs) {
+        if (closed) return null;
+        try {
+            return thread.schedule(() -> {
+                depth.incrementAndGet();
+                run(name, task, System.nanoTime());
+            }, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /** 현재 스레드가 이 통화 스레드인지 */
+    public boolean isCurrentThread() {
+        return Thread.currentThread() == owner;
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /** 이후 작업은 버리고 스레드 종료 (실행 중인 작업은 끝까지, 대기 중이던 작업은 폐기로 집계) */
+    public void shutdown() {
+        closed = true;
+        thread.shutdown();
+    }
+
+    private void run(String name, Runnable task, long enqueuedAt) {
+        depth.decrementAndGet();
+        if (closed) {
+            synchronized (this) {
+                dropped++;
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // 한 작업의 실패로 통화 스레드 전체가 멈추지 않도록
+            Log.e(TAG, "작업 실패: " + name, e);
+        }
+        long end = System.nanoTime();
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(start - enqueuedAt);
+        long runMs = TimeUnit.NANOSECONDS.toMillis(end - start);
+        synchronized (this) {
+            tasks++;
+            waitSumMs += waitMs;
+            waitMaxMs = Math.max(waitMaxMs, waitMs);
+            runMaxMs = Math.max(runMaxMs, runMs);
+            if (runMs >= SLOW_TASK_MS) slowTasks++;
+        }
+        if (runMs >= SLOW_TASK_MS) Log.w(TAG, "🐢 느린 작업 " + name + " " + runMs + "ms");
+    }
+
+    public synchronized long getTasks()      { return tasks; }
+    public synchronized long getDropped()    { return dropped; }
+    public synchronized int  getMaxDepth()   { return maxDepth; }
+    public synchronized long getWaitMaxMs()  { return waitMaxMs; }
+    public synchronized long getRunMaxMs()   { return runMaxMs; }
+    public synchronized long getSlowTasks()  { return slowTasks; }
+    public synchronized long getWaitAvgMs()  { return tasks > 0 ? waitSumMs / tasks : 0; }
+
+    /** 통화 기록에 스레드 부하 집계 추가 */
+    public synchronized void report(CallTelemetry telemetry) {
+        telemetry.put("call_exec_tasks", tasks);
+        telemetry.put("call_exec_dropped", dropped);
+        telemetry.put("call_exec_max_depth", maxDepth);
+        telemetry.put("call_exec_wait_avg_ms", tasks > 0 ? waitSumMs / tasks : 0);
+        telemetry.put("call_exec_wait_max_ms", waitMaxMs);
+        telemetry.put("call_exec_run_max_ms", runMaxMs);
+        telemetry.put("call_exec_slow_tasks", slowTasks);
+    }
+}
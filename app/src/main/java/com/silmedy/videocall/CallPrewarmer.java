@@ -0,0 +1,137 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * FCM 수신 시점에 통화 세션을 미리 준비 (Pre-warm)
+ * - 백그라운드 스레드에서 PeerConnection 생성 + ICE 후보 풀 수집
+ * - FirebaseSignalingClient 로 해당 방의 offer 구독
+ * - ReceiveActivity 가 claim() 으로 가져가면 accept() 만 하면 됨
+ * - PREWARM_TTL_MS 안에 수락되지 않으면 자동 정리
+ * - 준비가 끝나기 전에 claim() 이 오면 그 준비는 취소 (결과 세션은 설치하지 않고 폐기)
+ *   → 호출자가 만든 세션과 같은 방에 세션이 둘 생기지 않음
+ */
+public final class CallPrewarmer {
+    private static final String TAG = "CallPrewarmer";
+
+    /** 수락되지 않은 Pre-warm 세션 유지 시간 */
+    static final long PREWARM_TTL_MS = 45_000L;
+
+    private static CallPrewarmer instance;
+
+    private final Context appContext;
+    private final Handler worker;
+    private final Runnable expiry = this::expire;
+
+    private String roomId;
+    private WebRTCManager session;
+    /** prewarm 요청 후 아직 설치 전인 방 (claim 으로 취소되면 null) */
+    private String pendingRoomId;
+    private long preparedAt;
+
+    private CallPrewarmer(Context ctx) {
+        this.appContext = ctx.getApplicationContext();
+        HandlerThread thread = new HandlerThread("CallPrewarm");
+        thread.start();
+        this.worker = new Handler(thread.getLooper());
+    }
+
+    public static synchronized CallPrewarmer get(Context ctx) {
+        if (instance == null) {
+            instance = new CallPrewarmer(ctx);
+        }
+        return instance;
+    }
+
+    /** 수신 push 도착 시 호출. 같은 방이 이미 준비 중이면 무시 */
+    public void prewarm(String roomId) {
+        if (roomId == null || roomId.isEmpty()) return;
+        synchronized (this) {
+            pendingRoomId = roomId;
+        }
+        worker.post(() -> prepare(roomId));
+    }
+
+    private void prepare(String newRoomId) {
+        WebRTCManager stale;
+        synchronized (this) {
+            if (!newRoomId.equals(pendingRoomId)) {
+                Log.d(TAG, "취소/대체된 Pre-warm: " + newRoomId);
+                return;
+            }
+            if (newRoomId.equals(roomId) && session != null) {
+                Log.d(TAG, "이미 준비된 방: " + newRoomId);
+                pendingRoomId = null;
+                return;
+            }
+            stale = session;
+            session = null;
+            roomId = null;
+        }
+        if (stale != null) stale.dispose();
+
+        long start = SystemClock.elapsedRealtime();
+        PeerConnectionFactoryHolder.Lease lease =
+                PeerConnectionFactoryHolder.get(appContext).acquire();
+        WebRTCManager prepared = new WebRTCManager(appContext, lease);
+        prepared.setRoomId(newRoomId);
+        Log.d(TAG, "🔥 Pre-warm 완료 roomId=" + newRoomId + " ("
+                + (SystemClock.elapsedRealtime() - start) + "ms)");
+
+        boolean install;
+        synchronized (this) {
+            // 준비하는 동안 claim(취소) 또는 다른 방 prewarm 이 왔으면 설치하지 않음
+            install = newRoomId.equals(pendingRoomId);
+            if (install) {
+                pendingRoomId = null;
+                roomId = newRoomId;
+                session = prepared;
+                preparedAt = SystemClock.elapsedRealtime();
+            }
+        }
+        if (!install) {
+            Log.d(TAG, "🗑 준비 중 취소된 Pre-warm 세션 폐기 roomId=" + newRoomId);
+            prepared.dispose();
+            return;
+        }
+        worker.removeCallbacks(expiry);
+        worker.postDelayed(expiry, PREWARM_TTL_MS);
+    }
+
+    /**
+     * 준비된 세션을 가져감. 방이 다르거나 아직 준비 중이면 null
+     * 아직 준비 중인 같은 방은 취소 → 호출자가 직접 세션을 만들고, 준비 결과는 폐기됨
+     * 가져간 세션의 수명은 호출자가 관리 (dispose)
+     */
+    public WebRTCManager claim(String roomId) {
+        WebRTCManager claimed;
+        synchronized (this) {
+            if (roomId.equals(pendingRoomId)) pendingRoomId = null;
+            if (session == null || !roomId.equals(this.roomId)) return null;
+            claimed = session;
+            Log.d(TAG, "✅ Pre-warm 세션 사용 roomId=" + roomId + ", age="
+                    + (SystemClock.elapsedRealtime() - preparedAt) + "ms");
+            session = null;
+            this.roomId = null;
+        }
+        worker.removeCallbacks(expiry);
+        return claimed;
+    }
+
+    private void expire() {
+        WebRTCManager expired;
+        synchronized (this) {
+            expired = session;
+            if (expired != null) {
+                Log.d(TAG, "⌛ 수락되지 않은 Pre-warm 세션 정리 roomId=" + roomId);
+            }
+            session = null;
+            roomId = null;
+        }
+        if (expired != null) expired.dispose();
+    }
+}
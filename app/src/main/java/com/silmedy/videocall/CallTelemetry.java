@@ -0,0 +1,126 @@
+package com.silmedy.videocall;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * 통화 1건의 품질 기록
+ * - 각 기능(적응 제어, ICE 복구 등)이 속성/이벤트를 추가
+ * - 통화 종료 시 StatsSampler 이력과 합쳐 JSON 으로 만들어 TelemetryUploader 에 전달
+ */
+public class CallTelemetry {
+    private static final String TAG = "CallTelemetry";
+
+    /** 시계열로 보낼 지표 (이름, StatsRingBuffer 인덱스) */
+    private static final String[] SERIES_NAMES = {
+            "out_bps", "in_bps", "out_video_bps", "in_video_bps", "out_fps", "in_fps",
+            "rtt_ms", "in_loss", "avail_out_bps"
+    };
+    private static final int[] SERIES_METRICS = {
+            StatsRingBuffer.OUT_BITRATE_BPS, StatsRingBuffer.IN_BITRATE_BPS,
+            StatsRingBuffer.OUT_VIDEO_BITRATE_BPS, StatsRingBuffer.IN_VIDEO_BITRATE_BPS,
+            StatsRingBuffer.OUT_FPS, StatsRingBuffer.IN_FPS, StatsRingBuffer.RTT_MS,
+            StatsRingBuffer.IN_LOSS_FRACTION, StatsRingBuffer.AVAILABLE_OUT_BPS
+    };
+
+    /** 요약 집계 대상 지표 */
+    private static final String[] SUMMARY_NAMES = {
+            "out_bps", "in_bps", "out_video_bps", "in_video_bps", "out_fps", "in_fps",
+            "jitter_ms", "in_loss", "remote_loss", "rtt_ms", "avail_out_bps"
+    };
+    private static final int[] SUMMARY_METRICS = {
+            StatsRingBuffer.OUT_BITRATE_BPS, StatsRingBuffer.IN_BITRATE_BPS,
+            StatsRingBuffer.OUT_VIDEO_BITRATE_BPS, StatsRingBuffer.IN_VIDEO_BITRATE_BPS,
+            StatsRingBuffer.OUT_FPS, StatsRingBuffer.IN_FPS, StatsRingBuffer.JITTER_MS,
+            StatsRingBuffer.IN_LOSS_FRACTION, StatsRingBuffer.REMOTE_LOSS_FRACTION,
+            StatsRingBuffer.RTT_MS, StatsRingBuffer.AVAILABLE_OUT_BPS
+    };
+
+    private final long startedAt = SystemClock.elapsedRealtime();
+    private final long startedAtWallMs = System.currentTimeMillis();
+    private final JSONObject attributes = new JSONObject();
+    private final JSONArray events = new JSONArray();
+
+    /** 통화 속성 기록 (프로필, 역할, 코덱 등) */
+    public synchronized void put(String key, Object value) {
+        try {
+            attributes.put(key, value);
+        } catch (JSONException e) {
+            Log.w(TAG, "put 실패: " + key, e);
+        }
+    }
+
+    /** 시점 이벤트 기록 (통화 시작 기준 경과 ms 포함) */
+    public synchronized void event(String type, String detail) {
+        try {
+            events.put(new JSONObject()
+                    .put("t_ms", SystemClock.elapsedRealtime() - startedAt)
+                    .put("type", type)
+                    .put("detail", detail));
+        } catch (JSONException e) {
+            Log.w(TAG, "event 실패: " + type, e);
+        }
+    }
+
+    /** 요약 + 시계열 + 이벤트를 하나의 JSON 문자열로 */
+    public synchronized String toJson(String callId, StatsSampler sampler) {
+        try {
+            JSONObject root = new JSONObject();
+            root.put("call_id", callId);
+            root.put("started_at", startedAtWallMs);
+            root.put("duration_ms", SystemClock.elapsedRealtime() - startedAt);
+            root.put("attributes", attributes);
+            root.put("events", events);
+            if (sampler != null) {
+                StatsRingBuffer h = sampler.getHistory();
+                root.put("summary", summary(h));
+                root.put("series", series(h));
+            }
+            return root.toString();
+        } catch (JSONException e) {
+            Log.e(TAG, "JSON 생성 실패", e);
+            return null;
+        }
+    }
+
+    private static JSONObject summary(StatsRingBuffer h) throws JSONException {
+        JSONObject s = new JSONObject();
+        for (int i = 0; i < SUMMARY_NAMES.length; i++) {
+            StatsRingBuffer.Aggregate a = h.aggregate(SUMMARY_METRICS[i], Long.MAX_VALUE / 2);
+            if (a.count == 0) continue;
+            s.put(SUMMARY_NAMES[i], new JSONObject()
+                    .put("p50", a.p50).put("p95", a.p95)
+                    .put("max", a.max).put("mean", a.mean));
+        }
+        s.put("candidate_type", h.latestCategory(StatsRingBuffer.CANDIDATE_TYPE));
+        s.put("encoder", h.latestCategory(StatsRingBuffer.ENCODER_IMPL));
+        s.put("decoder", h.latestCategory(StatsRingBuffer.DECODER_IMPL));
+        s.put("quality_limitation", h.latestCategory(StatsRingBuffer.QUALITY_LIMITATION));
+        return s;
+    }
+
+    private static JSONObject series(StatsRingBuffer h) throws JSONException {
+        int size = h.size();
+        long[] ts = new long[size];
+        double[] values = new double[size];
+        int n = h.copyTimestamps(ts);
+        JSONObject s = new JSONObject();
+        JSONArray t = new JSONArray();
+        for (int i = 0; i < n; i++) t.put(ts[i] - ts[0]);
+        s.put("t_ms", t);
+        for (int m = 0; m < SERIES_NAMES.length; m++) {
+            h.copy(SERIES_METRICS[m], values);
+            JSONArray arr = new JSONArray();
+            for (int i = 0; i < n; i++) {
+                // JSON 은 NaN 을 허용하지 않으므로 null 로 기록
+                arr.put(Double.isNaN(values[i]) ? JSONObject.NULL : (Object) values[i]);
+            }
+            s.put(SERIES_NAMES[m], arr);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,179 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.webrtc.Camera1Enumerator;
+import org.webrtc.Camera2Enumerator;
+import org.webrtc.CameraEnumerationAndroid.CaptureFormat;
+import org.webrtc.CameraEnumerator;
+import org.webrtc.CameraVideoCapturer;
+import org.webrtc.CapturerObserver;
+import org.webrtc.SurfaceTextureHelper;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Camera2 기반 캡처 관리
+ * - 기기가 지원하는 포맷/프레임레이트 범위 조회
+ * - 요청 해상도·fps 에 가장 가까운 네이티브 포맷 선택 (스케일링 최소화)
+ * - 통화 중 changeCaptureFormat 으로 트랙 재생성 없이 포맷 변경
+ * Camera2 미지원(LEGACY) 기기는 Camera1 으로 대체
+ */
+public class CameraCapturerController {
+    private static final String TAG = "CameraCapturer";
+    /** fps 1 부족 비용 (화면비·픽셀 차이 합보다 항상 크게: 100MP 이상) */
+    static final long FPS_SHORTFALL_WEIGHT = 100_000_000L;
+
+    private final Context context;
+    private final CameraEnumerator enumerator;
+    private String deviceName;
+    private CameraVideoCapturer capturer;
+    private CaptureFormat currentFormat;
+    private int currentFps;
+    private boolean capturing;
+    /** 마지막 start 요청값 (포맷 정보가 없는 기기에서 resume 용) */
+    private int requestedWidth, requestedHeight, requestedFps;
+
+    public CameraCapturerController(Context ctx) {
+        this.context = ctx.getApplicationContext();
+        if (Camera2Enumerator.isSupported(context)) {
+            enumerator = new Camera2Enumerator(context);
+        } else {
+            Log.w(TAG, "Camera2 미지원 → Camera1 사용");
+            enumerator = new Camera1Enumerator(false);
+        }
+    }
+
+    /** 전면 카메라 우선으로 캡처러 생성 후 초기화 */
+    public void initialize(SurfaceTextureHelper helper, CapturerObserver observer) {
+        for (String name : enumerator.getDeviceNames()) {
+            if (enumerator.isFrontFacing(name) && open(name)) break;
+        }
+        if (capturer == null) {
+            for (String name : enumerator.getDeviceNames()) {
+                if (open(name)) break;
+            }
+        }
+        if (capturer == null) {
+            throw new RuntimeException("No camera available");
+        }
+        capturer.initialize(helper, context, observer);
+        Log.d(TAG, "camera=" + deviceName + ", formats=" + getSupportedFormats().size());
+    }
+
+    private boolean open(String name) {
+        capturer = enumerator.createCapturer(name, null);
+        if (capturer != null) deviceName = name;
+        return capturer != null;
+    }
+
+    /** 현재 카메라가 지원하는 캡처 포맷 목록 */
+    public List<CaptureFormat> getSupportedFormats() {
+        if (deviceName == null) return Collections.emptyList();
+        List<CaptureFormat> formats = enumerator.getSupportedFormats(deviceName);
+        return formats != null ? formats : Collections.emptyList();
+    }
+
+    /**
+     * 요청값에 가장 가까운 네이티브 포맷 선택
+     * fps 부족분이 우선 (요청 fps 를 못 내는 포맷은 크기가 맞아도 후순위)
+     * → 그다음 화면비 차이 + 픽셀 수 차이로 비교
+     */
+    static CaptureFormat selectFormat(List<CaptureFormat> formats,
+                                      int width, int height, int fps) {
+        CaptureFormat best = null;
+        long bestScore = Long.MAX_VALUE;
+        long targetPixels = (long) width * height;
+        double targetAspect = (double) width / height;
+        for (CaptureFormat f : formats) {
+            double aspect = (double) f.width / f.height;
+            long aspectPenalty = (long) (Math.abs(aspect - targetAspect) * 1_000_000L);
+            long pixelPenalty = Math.abs((long) f.width * f.height - targetPixels);
+            int maxFps = f.framerate.max / 1000;
+            long fpsPenalty = maxFps < fps ? (fps - maxFps) * FPS_SHORTFALL_WEIGHT : 0;
+            long score = aspectPenalty + pixelPenalty + fpsPenalty;
+            if (score < bestScore) {
+                bestScore = score;
+                best = f;
+            }
+        }
+        return best;
+    }
+
+    /** 선택 포맷에서 실제로 사용할 fps (포맷 최대값으로 제한) */
+    private static int clampFps(CaptureFormat format, int fps) {
+        return Math.min(fps, Math.max(1, format.framerate.max / 1000));
+    }
+
+    public void start(int width, int height, int fps) {
+        requestedWidth = width;
+        requestedHeight = height;
+        requestedFps = fps;
+        CaptureFormat format = selectFormat(getSupportedFormats(), width, height, fps);
+        if (format == null) {
+            Log.w(TAG, "지원 포맷 정보 없음 → 요청값 그대로 사용");
+            capturer.startCapture(width, height, fps);
+            capturing = true;
+            return;
+        }
+        currentFormat = format;
+        currentFps = clampFps(format, fps);
+        Log.d(TAG, "▶ startCapture " + format + " @" + currentFps
+                + " (요청 " + width + "x" + height + "@" + fps + ")");
+        capturer.startCapture(format.width, format.height, currentFps);
+        capturing = true;
+    }
+
+    /** 통화 중 포맷 변경 (트랙/소스 유지) */
+    public void changeFormat(int width, int height, int fps) {
+        if (capturer == null) return;
+        CaptureFormat format = selectFormat(getSupportedFormats(), width, height, fps);
+        if (format == null) return;
+        int newFps = clampFps(format, fps);
+        if (format.equals(currentFormat) && newFps == currentFps) return;
+        currentFormat = format;
+        currentFps = newFps;
+        // 중지 중이면 포맷만 기억 (resume 때 적용, 카메라를 다시 켜지 않음)
+        if (!capturing) return;
+        Log.d(TAG, "🔁 changeCaptureFormat " + format.width + "x" + format.height + "@" + newFps);
+        capturer.changeCaptureFormat(format.width, format.height, newFps);
+    }
+
+    public CaptureFormat getCurrentFormat() { return currentFormat; }
+    public int getCurrentFps()             { return currentFps; }
+
+    public boolean isCapturing() { return capturing; }
+
+    /** stop 이후 마지막 포맷으로 다시 캡처 (트랙/소스 유지, 재협상 없음) */
+    public void resume() {
+        if (capturer == null || capturing || requestedFps == 0) return;
+        if (currentFormat == null) {
+            capturer.startCapture(requestedWidth, requestedHeight, requestedFps);
+        } else {
+            Log.d(TAG, "▶ resumeCapture " + currentFormat.width + "x" + currentFormat.height
+                    + "@" + currentFps);
+            capturer.startCapture(currentFormat.width, currentFormat.height, currentFps);
+        }
+        capturing = true;
+    }
+
+    public void stop() {
+        if (capturer == null || !capturing) return;
+        try {
+            capturer.stopCapture();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        capturing = false;
+    }
+
+    public void dispose() {
+        stop();
+        if (capturer != null) {
+            capturer.dispose();
+            capturer = null;
+        }
+    }
+}
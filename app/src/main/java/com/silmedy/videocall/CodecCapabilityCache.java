@@ -0,0 +1,213 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.DefaultVideoDecoderFactory;
+import org.webrtc.DefaultVideoEncoderFactory;
+import org.webrtc.EglBase;
+import org.webrtc.VideoCodecInfo;
+import org.webrtc.VideoDecoder;
+import org.webrtc.VideoDecoderFactory;
+import org.webrtc.VideoEncoder;
+import org.webrtc.VideoEncoderFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 하드웨어 코덱 지원 정보 영구 캐시
+ * - 기기 모델 + 빌드 fingerprint + WebRTC 버전을 키로 SharedPreferences 에 저장
+ * - 키가 달라지면(OS/라이브러리 업데이트) 자동으로 다시 probe
+ * - EncoderFactory / DecoderFactory 래퍼가 getSupportedCodecs 를 캐시에서 응답
+ *   → 통화마다 MediaCodecList 전체를 조회하지 않음
+ */
+public final class CodecCapabilityCache {
+    private static final String TAG = "CodecCapabilityCache";
+
+    private static final String PREFS            = "codec_capability_cache";
+    private static final String KEY_CACHE_KEY    = "cache_key";
+    private static final String KEY_ENCODERS     = "encoders";
+    private static final String KEY_DECODERS     = "decoders";
+    private static final String KEY_HW_ENCODERS  = "hw_encoders";
+    /** 저장 형식 버전 (항목이 바뀌면 올려서 기존 캐시 무효화) — 2: scalabilityModes 추가 */
+    static final int FORMAT_VERSION = 2;
+
+    private static CodecCapabilityCache instance;
+
+    private final SharedPreferences prefs;
+    private VideoCodecInfo[] encoders;
+    private VideoCodecInfo[] decoders;
+    private Set<String> hwEncoders;
+
+    private CodecCapabilityCache(Context ctx) {
+        prefs = ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String stored = prefs.getString(KEY_CACHE_KEY, null);
+        if (!currentKey().equals(stored)) {
+            Log.d(TAG, "캐시 키 변경 → 무효화 (" + stored + ")");
+            prefs.edit().clear().putString(KEY_CACHE_KEY, currentKey()).apply();
+            return;
+        }
+        encoders = readCodecs(KEY_ENCODERS);
+        decoders = readCodecs(KEY_DECODERS);
+        Set<String> hw = prefs.getStringSet(KEY_HW_ENCODERS, null);
+        hwEncoders = hw != null ? new HashSet<>(hw) : null;
+    }
+
+    public static synchronized CodecCapabilityCache get(Context ctx) {
+        if (instance == null) {
+            instance = new CodecCapabilityCache(ctx);
+        }
+        return instance;
+    }
+
+    /** 기기 + OS 빌드 + WebRTC 버전 + 저장 형식 */
+    static String currentKey() {
+        return Build.MODEL + "|" + Build.FINGERPRINT + "|" + BuildConfig.WEBRTC_VERSION
+                + "|v" + FORMAT_VERSION;
+    }
+
+    public synchronized void invalidate() {
+        encoders = null;
+        decoders = null;
+        hwEncoders = null;
+        prefs.edit().clear().putString(KEY_CACHE_KEY, currentKey()).apply();
+    }
+
+    synchronized VideoCodecInfo[] encoderCodecs(VideoEncoderFactory probe) {
+        if (encoders == null) {
+            long start = SystemClock.elapsedRealtime();
+            encoders = probe.getSupportedCodecs();
+            writeCodecs(KEY_ENCODERS, encoders);
+            Log.d(TAG, "encoder probe " + (SystemClock.elapsedRealtime() - start) + "ms");
+        }
+        return encoders;
+    }
+
+    synchronized VideoCodecInfo[] decoderCodecs(VideoDecoderFactory probe) {
+        if (decoders == null) {
+            long start = SystemClock.elapsedRealtime();
+            decoders = probe.getSupportedCodecs();
+            writeCodecs(KEY_DECODERS, decoders);
+            Log.d(TAG, "decoder probe " + (SystemClock.elapsedRealtime() - start) + "ms");
+        }
+        return decoders;
+    }
+
+    /** 하드웨어 인코더가 있는 코덱 이름 (CodecPreferencePolicy 용) */
+    public synchronized Set<String> hardwareEncoders() {
+        if (hwEncoders == null) {
+            hwEncoders = CodecPreferencePolicy.probeHardwareEncoders();
+            prefs.edit().putStringSet(KEY_HW_ENCODERS, new HashSet<>(hwEncoders)).apply();
+        }
+        return hwEncoders;
+    }
+
+    private VideoCodecInfo[] readCodecs(String key) {
+        String json = prefs.getString(key, null);
+        if (json == null) return null;
+        try {
+            return fromJson(json);
+        } catch (JSONException e) {
+            Log.w(TAG, "캐시 파싱 실패 → 재probe", e);
+            return null;
+        }
+    }
+
+    private void writeCodecs(String key, VideoCodecInfo[] codecs) {
+        try {
+            prefs.edit().putString(key, toJson(codecs)).apply();
+        } catch (JSONException e) {
+            Log.w(TAG, "캐시 저장 실패", e);
+        }
+    }
+
+    /** name + params + scalabilityModes (SVC 지원 여부가 빠지면 L3T3_KEY 경로가 꺼짐) */
+    static String toJson(VideoCodecInfo[] codecs) throws JSONException {
+        JSONArray arr = new JSONArray();
+        for (VideoCodecInfo c : codecs) {
+            JSONObject o = new JSONObject();
+            o.put("name", c.name);
+            o.put("params", new JSONObject(c.params));
+            if (c.scalabilityModes != null) {
+                o.put("scalabilityModes", new JSONArray(c.scalabilityModes));
+            }
+            arr.put(o);
+        }
+        return arr.toString();
+    }
+
+    static VideoCodecInfo[] fromJson(String json) throws JSONException {
+        JSONArray arr = new JSONArray(json);
+        VideoCodecInfo[] result = new VideoCodecInfo[arr.length()];
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject o = arr.getJSONObject(i);
+            JSONObject p = o.getJSONObject("params");
+            Map<String, String> params = new HashMap<>();
+            for (Iterator<String> it = p.keys(); it.hasNext(); ) {
+                String k = it.next();
+                params.put(k, p.getString(k));
+            }
+            List<String> modes = new ArrayList<>();
+            JSONArray m = o.optJSONArray("scalabilityModes");
+            if (m != null) {
+                for (int j = 0; j < m.length(); j++) modes.add(m.getString(j));
+            }
+            result[i] = new VideoCodecInfo(o.getString("name"), params, modes);
+        }
+        return result;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 캐시를 사용하는 코덱 팩토리 래퍼
+    // ────────────────────────────────────────────────────────────────────────────
+
+    /** 지원 코덱 목록은 캐시에서, 실제 인코더 생성은 DefaultVideoEncoderFactory 에 위임 */
+    public static final class EncoderFactory implements VideoEncoderFactory {
+        private final CodecCapabilityCache cache;
+        private final DefaultVideoEncoderFactory delegate;
+
+        public EncoderFactory(CodecCapabilityCache cache, EglBase.Context eglContext) {
+            this.cache = cache;
+            this.delegate = new DefaultVideoEncoderFactory(eglContext, true, true);
+        }
+
+        @Override public VideoEncoder createEncoder(VideoCodecInfo info) {
+            return delegate.createEncoder(info);
+        }
+
+        @Override public VideoCodecInfo[] getSupportedCodecs() {
+            return cache.encoderCodecs(delegate);
+        }
+    }
+
+    /** 지원 코덱 목록은 캐시에서, 실제 디코더 생성은 DefaultVideoDecoderFactory 에 위임 */
+    public static final class DecoderFactory implements VideoDecoderFactory {
+        private final CodecCapabilityCache cache;
+        private final DefaultVideoDecoderFactory delegate;
+
+        public DecoderFactory(CodecCapabilityCache cache, EglBase.Context eglContext) {
+            this.cache = cache;
+            this.delegate = new DefaultVideoDecoderFactory(eglContext);
+        }
+
+        @Override public VideoDecoder createDecoder(VideoCodecInfo info) {
+            return delegate.createDecoder(info);
+        }
+
+        @Override public VideoCodecInfo[] getSupportedCodecs() {
+            return cache.decoderCodecs(delegate);
+        }
+    }
+}
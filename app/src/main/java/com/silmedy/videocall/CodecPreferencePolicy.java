@@ -0,0 +1,165 @@
+package com.silmedy.videocall;
+
+import android.media.MediaCodecInfo;
+import android.media.MediaCodecList;
+import android.os.Build;
+import android.util.Log;
+
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.PeerConnection;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RtpCapabilities;
+import org.webrtc.RtpParameters;
+import org.webrtc.RtpTransceiver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 코덱 선호도 정책
+ * - factory.getRtpSenderCapabilities 로 송신 가능 코덱 조회
+ * - 하드웨어 인코더 보유 여부 → 설정된 선호 순서로 정렬
+ * - createOffer/createAnswer 직전에 transceiver.setCodecPreferences 적용
+ * - 협상된 코덱과 하드웨어 사용 여부를 통화마다 로그로 남김
+ */
+public class CodecPreferencePolicy {
+    private static final String TAG = "CodecPolicy";
+
+    public static final List<String> DEFAULT_VIDEO_PREFERENCE =
+            Arrays.asList("H264", "VP8", "VP9", "AV1");
+    public static final List<String> DEFAULT_AUDIO_PREFERENCE =
+            Arrays.asList("opus");
+
+    /** 재전송/FEC 등 미디어 코덱이 아닌 항목 (항상 뒤에 유지) */
+    private static final Set<String> AUXILIARY = new HashSet<>(
+            Arrays.asList("rtx", "red", "ulpfec", "flexfec-03"));
+
+    private final PeerConnectionFactory factory;
+    private final List<String> videoPreference;
+    private final List<String> audioPreference;
+    private final Set<String> hardwareVideoCodecs;
+
+    /**
+     * @param hardwareVideoCodecs 하드웨어 인코더가 있는 코덱 이름 (CodecCapabilityCache 제공)
+     */
+    public CodecPreferencePolicy(PeerConnectionFactory factory, List<String> videoPreference,
+                                 Set<String> hardwareVideoCodecs) {
+        this.factory = factory;
+        this.videoPreference = videoPreference != null && !videoPreference.isEmpty()
+                ? videoPreference : DEFAULT_VIDEO_PREFERENCE;
+        this.audioPreference = DEFAULT_AUDIO_PREFERENCE;
+        this.hardwareVideoCodecs = hardwareVideoCodecs;
+    }
+
+    /** "H264,VP8" 형식 설정값 파싱 (비어 있으면 기본값) */
+    public static List<String> parsePreference(String csv) {
+        List<String> list = new ArrayList<>();
+        if (csv == null) return list;
+        for (String s : csv.split(",")) {
+            String t = s.trim();
+            if (!t.isEmpty()) list.add(t);
+        }
+        return list;
+    }
+
+    public boolean isHardwareBacked(String codecName) {
+        return hardwareVideoCodecs.contains(codecName.toUpperCase(Locale.US));
+    }
+
+    /** 모든 transceiver 에 선호 코덱 순서 적용 (offer/answer 생성 전 호출) */
+    public void apply(PeerConnection pc) {
+        List<RtpCapabilities.CodecCapability> video =
+                rank(MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO, videoPreference, true);
+        List<RtpCapabilities.CodecCapability> audio =
+                rank(MediaStreamTrack.MediaType.MEDIA_TYPE_AUDIO, audioPreference, false);
+        for (RtpTransceiver t : pc.getTransceivers()) {
+            if (t.isStopped()) continue;
+            boolean isVideo = t.getMediaType() == MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO;
+            List<RtpCapabilities.CodecCapability> codecs = isVideo ? video : audio;
+            if (!codecs.isEmpty()) t.setCodecPreferences(codecs);
+        }
+        if (!video.isEmpty()) {
+            Log.d(TAG, "video 선호 코덱: " + video.get(0).name
+                    + " (hw=" + isHardwareBacked(video.get(0).name) + ")");
+        }
+    }
+
+    /**
+     * 선호 순서 정렬: 하드웨어 지원 코덱(선호 순) → 소프트웨어(선호 순)
+     * → 목록에 없는 코덱 → 보조 코덱(rtx/red/fec)
+     */
+    List<RtpCapabilities.CodecCapability> rank(MediaStreamTrack.MediaType type,
+                                               List<String> preference, boolean preferHw) {
+        RtpCapabilities caps = factory.getRtpSenderCapabilities(type);
+        List<RtpCapabilities.CodecCapability> hw = new ArrayList<>();
+        List<RtpCapabilities.CodecCapability> sw = new ArrayList<>();
+        List<RtpCapabilities.CodecCapability> other = new ArrayList<>();
+        List<RtpCapabilities.CodecCapability> aux = new ArrayList<>();
+        for (String pref : preference) {
+            for (RtpCapabilities.CodecCapability c : caps.codecs) {
+                if (!c.name.equalsIgnoreCase(pref)) continue;
+                if (preferHw && isHardwareBacked(c.name)) hw.add(c); else sw.add(c);
+            }
+        }
+        for (RtpCapabilities.CodecCapability c : caps.codecs) {
+            if (AUXILIARY.contains(c.name.toLowerCase(Locale.US))) aux.add(c);
+            else if (!hw.contains(c) && !sw.contains(c)) other.add(c);
+        }
+        List<RtpCapabilities.CodecCapability> ranked = new ArrayList<>(hw);
+        ranked.addAll(sw);
+        ranked.addAll(other);
+        ranked.addAll(aux);
+        return ranked;
+    }
+
+    /** 협상 완료 후 실제 송신 코덱 로그 */
+    public void logNegotiated(PeerConnection pc, String callId) {
+        for (RtpTransceiver t : pc.getTransceivers()) {
+            List<RtpParameters.Codec> codecs = t.getSender().getParameters().codecs;
+            if (codecs == null || codecs.isEmpty()) continue;
+            RtpParameters.Codec c = codecs.get(0);
+            boolean video = t.getMediaType() == MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO;
+            Log.i(TAG, "📊 call=" + callId + " " + (video ? "video" : "audio")
+                    + " codec=" + c.name + " pt=" + c.payloadType
+                    + (video ? " hw=" + isHardwareBacked(c.name) : ""));
+        }
+    }
+
+    /** MediaCodecList 에서 하드웨어 인코더가 있는 WebRTC 코덱 이름 수집 */
+    static Set<String> probeHardwareEncoders() {
+        Set<String> result = new HashSet<>();
+        for (MediaCodecInfo info : new MediaCodecList(MediaCodecList.REGULAR_CODECS).getCodecInfos()) {
+            if (!info.isEncoder() || !isHardware(info)) continue;
+            for (String mime : info.getSupportedTypes()) {
+                String name = webrtcName(mime);
+                if (name != null) result.add(name);
+            }
+        }
+        Log.d(TAG, "HW encoders: " + result);
+        return result;
+    }
+
+    private static boolean isHardware(MediaCodecInfo info) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return info.isHardwareAccelerated();
+        }
+        String n = info.getName().toLowerCase(Locale.US);
+        return !n.startsWith("omx.google.") && !n.startsWith("c2.android.")
+                && !n.startsWith("c2.google.");
+    }
+
+    static String webrtcName(String mime) {
+        switch (mime.toLowerCase(Locale.US)) {
+            case "video/avc":            return "H264";
+            case "video/x-vnd.on2.vp8":  return "VP8";
+            case "video/x-vnd.on2.vp9":  return "VP9";
+            case "video/av01":           return "AV1";
+            case "video/hevc":           return "H265";
+            default:                     return null;
+        }
+    }
+}
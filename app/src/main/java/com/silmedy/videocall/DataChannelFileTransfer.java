@@ -0,0 +1,677 @@
+package com.silmedy.videocall;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.DataChannel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RTCDataChannel 파일 전송 (처방전, 검사 사진 등)
+ * - 파일을 CHUNK_SIZE 단위로 FileChannel 에서 읽어 바이너리 메시지로 전송
+ *   (헤더 12B: stream(int) + offset(long), 이후 청크 데이터)
+ * - bufferedAmount 가 HIGH_WATER 이상이면 멈추고 onBufferedAmountChange 로 LOW_WATER 이하가 되면 재개
+ * - 전송 속도는 (가용 대역폭 - 미디어 송신량) 이하로 제한 → 영상/음성 대역폭 보호
+ * - 채널이 끊겨도 RESUME_WINDOW_MS 동안 보관, 새 채널이 열리면 수신 측 .part 길이부터 이어서 전송
+ * - 완료 시 수신 측이 SHA-256 을 확인해 결과 회신
+ *
+ * 제어 메시지(텍스트 JSON): offer / accept / done / verified / cancel
+ * 모든 상태 변경은 단일 io 스레드에서 처리 (DataChannel 콜백은 시그널링 스레드 → io 로 전달)
+ */
+public class DataChannelFileTransfer implements DataChannel.Observer, StatsSampler.Listener {
+    private static final String TAG = "DataChannelFileTransfer";
+
+    public static final String CHANNEL_LABEL = "files";
+
+    static final int  CHUNK_SIZE        = 16 * 1024;
+    /** 상대가 제시할 수 있는 최대 청크 (SCTP 최대 메시지 크기) */
+    static final int  MAX_CHUNK_SIZE    = 256 * 1024;
+    static final int  HEADER_BYTES      = 12;
+    static final long HIGH_WATER        = 1024 * 1024;
+    static final long LOW_WATER         = 256 * 1024;
+    /** 측정값이 없을 때의 기본 / 최소 / 최대 전송 속도 */
+    static final long DEFAULT_RATE_BPS  = 1_000_000;
+    static final long MIN_RATE_BPS      = 64_000;
+    static final long MAX_RATE_BPS      = 8_000_000;
+    /** 가용 대역폭 중 미디어 + 파일 전송이 쓸 비율 */
+    static final double HEADROOM        = 0.85;
+    static final long RESUME_WINDOW_MS  = 60_000;
+    /** 채널 재생성 대기 (Caller 만) */
+    static final long REOPEN_DELAY_MS   = 1_000;
+    private static final long PROGRESS_STEP = 256 * 1024;
+
+    /** 전송 진행/결과 알림 (io 스레드에서 호출) */
+    public interface Listener {
+        default void onProgress(String id, long bytes, long total, boolean incoming) {}
+        default void onSent(String id) {}
+        default void onReceived(String id, File file) {}
+        default void onFailed(String id, String reason) {}
+    }
+
+    /**
+     * 채널이 닫혔을 때 새 채널 요청 (Caller 측만, null 이면 상대방이 다시 열기를 기다림)
+     * io 스레드에서 호출 → 생성은 PeerConnection 을 다루는 스레드에 넘기고, 새 채널은 attach 로 전달
+     */
+    public interface Reopener {
+        void requestReopen();
+    }
+
+    /** 보내는 파일 */
+    private static final class Outgoing {
+        final String id;
+        final File file;
+        final int stream;
+        String sha256;
+        FileChannel channel;
+        long offset;
+        boolean offered;        // accept 대기 중
+        boolean sending;
+        boolean finished;       // done 전송 후 verified 대기
+        long startedAt;
+        long startOffset;
+        long lastProgress;
+        long disconnectedAt = -1;
+
+        Outgoing(String id, File file, int stream) {
+            this.id = id;
+            this.file = file;
+            this.stream = stream;
+        }
+    }
+
+    /** 받는 파일 */
+    private static final class Incoming {
+        final String id;
+        final String name;
+        final long size;
+        final String sha256;
+        final FileChannel channel;
+        long received;
+        long lastProgress;
+
+        Incoming(String id, String name, long size, String sha256, FileChannel channel, long offset) {
+            this.id = id;
+            this.name = name;
+            this.size = size;
+            this.sha256 = sha256;
+            this.channel = channel;
+            this.received = offset;
+        }
+    }
+
+    private final FileTransferStore store;
+    private final CallTelemetry telemetry;
+    private final Reopener reopener;
+    private final ScheduledThreadPoolExecutor io =
+            new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "FileTransfer"));
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(HEADER_BYTES + CHUNK_SIZE);
+
+    /** 쓰기는 io 스레드에서만 (콜백에서 bufferedAmount 조회용으로 volatile) */
+    private volatile DataChannel channel;
+    // ── io 스레드 전용 ──
+    private final Map<String, Outgoing> outgoing = new LinkedHashMap<>();
+    private final Map<Integer, Incoming> incoming = new HashMap<>();
+    private int nextStream = 1;
+    private double tokens;
+    private long lastRefillNs;
+    /** dispose 호출 즉시 표시 (io 에서 진행 중인 작업이 다음 확인 시점에 중단하도록 volatile) */
+    private volatile boolean disposed;
+
+    private volatile Listener listener;
+    /** 현재 허용 전송 속도 (통계 샘플마다 갱신) */
+    private volatile long rateBps = DEFAULT_RATE_BPS;
+    /** 측정된 실제 전달 속도 (SCTP 버퍼를 빠져나간 양 기준) */
+    private volatile long measuredBps;
+    private volatile long bytesHandedOff;
+    private long prevDelivered = -1;
+    private long prevSampleMs;
+
+    /**
+     * @param store     수신 파일 저장소
+     * @param telemetry 전송 결과 기록 (null 가능)
+     * @param reopener  채널 재생성 (Caller 측, null 가능)
+     */
+    public DataChannelFileTransfer(FileTransferStore store, CallTelemetry telemetry, Reopener reopener) {
+        this.store = store;
+        this.telemetry = telemetry;
+        this.reopener = reopener;
+        // 종료 후에는 예약된 재시도/만료 작업을 실행하지 않음
+        io.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        io.execute(() -> store.purgeStale(System.currentTimeMillis()));
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public long getRateBps()     { return rateBps; }
+    public long getMeasuredBps() { return measuredBps; }
+
+    /** 채널 연결 (Caller: createDataChannel 결과, Callee: onDataChannel) */
+    public void attach(DataChannel dc) {
+        post(() -> {
+            if (disposed) return;
+            if (channel != null && channel != dc) releaseChannel(channel);
+            channel = dc;
+            dc.registerObserver(this);
+            Log.d(TAG, "🔗 attach " + dc.label() + " state=" + dc.state());
+            if (dc.state() == DataChannel.State.OPEN) onOpen();
+        });
+    }
+
+    /**
+     * 파일 전송 요청
+     * @return 전송 ID (진행/결과 콜백에 사용)
+     */
+    public String send(File file) {
+        String id = UUID.randomUUID().toString();
+        post(() -> {
+            if (disposed) return;
+            Outgoing o = new Outgoing(id, file, nextStream++);
+            try {
+                o.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                o.sha256 = FileTransferStore.sha256(o.channel);
+            } catch (IOException e) {
+                Log.e(TAG, "파일 열기 실패: " + file, e);
+                closeQuietly(o.channel);
+                notifyFailed(id, "read_error");
+                return;
+            }
+            outgoing.put(id, o);
+            Log.d(TAG, "📤 send " + file.getName() + " (" + file.length() + "B) id=" + id);
+            if (isOpen()) offer(o);
+        });
+        return id;
+    }
+
+    public void cancel(String id) {
+        post(() -> {
+            Outgoing o = outgoing.remove(id);
+            if (o == null) return;
+            closeQuietly(o.channel);
+            if (isOpen()) sendControl(control("cancel", id));
+            notifyFailed(id, "cancelled");
+        });
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // DataChannel.Observer (시그널링 스레드 → io 스레드로 전달)
+    // ────────────────────────────────────────────────────────────────────────────
+
+    @Override
+    public void onBufferedAmountChange(long previousAmount) {
+        DataChannel dc = channel;
+        if (dc != null && dc.bufferedAmount() <= LOW_WATER) {
+            post(this::pump);
+        }
+    }
+
+    @Override
+    public void onStateChange() {
+        post(() -> {
+            DataChannel dc = channel;
+            if (dc == null || disposed) return;
+            DataChannel.State state = dc.state();
+            Log.d(TAG, "🔀 channel state=" + state);
+            if (state == DataChannel.State.OPEN) {
+                onOpen();
+            } else if (state == DataChannel.State.CLOSED) {
+                onClosed();
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(DataChannel.Buffer buffer) {
+        // 버퍼는 콜백 안에서만 유효 → 복사 후 io 스레드에서 처리
+        ByteBuffer copy = ByteBuffer.allocate(buffer.data.remaining());
+        copy.put(buffer.data);
+        copy.flip();
+        boolean binary = buffer.binary;
+        post(() -> {
+            if (disposed) return;
+            if (binary) onChunk(copy);
+            else onControl(new String(copy.array(), StandardCharsets.UTF_8));
+        });
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 대역폭 측정 (StatsSampler.Listener)
+    // ────────────────────────────────────────────────────────────────────────────
+
+    /** 가용 대역폭에서 미디어 송신량을 뺀 만큼만 파일 전송에 할당 */
+    @Override
+    public void onSample(StatsSampler.Sample sample) {
+        double available = sample.get(StatsRingBuffer.AVAILABLE_OUT_BPS);
+        double media = sample.get(StatsRingBuffer.OUT_BITRATE_BPS);
+        if (!Double.isNaN(available)) {
+            double budget = available * HEADROOM - (Double.isNaN(media) ? 0 : media);
+            rateBps = Math.max(MIN_RATE_BPS, Math.min(MAX_RATE_BPS, (long) budget));
+        }
+        DataChannel dc = channel;
+        if (dc == null) return;
+        long delivered = bytesHandedOff - dc.bufferedAmount();
+        if (prevDelivered >= 0 && sample.timestampMs > prevSampleMs) {
+            measuredBps = Math.max(0, delivered - prevDelivered) * 8_000
+                    / (sample.timestampMs - prevSampleMs);
+        }
+        prevDelivered = delivered;
+        prevSampleMs = sample.timestampMs;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 아래는 io 스레드 전용
+    // ────────────────────────────────────────────────────────────────────────────
+
+    private boolean isOpen() {
+        return channel != null && channel.state() == DataChannel.State.OPEN;
+    }
+
+    private void onOpen() {
+        for (Outgoing o : outgoing.values()) {
+            if (!o.offered && !o.sending && !o.finished) offer(o);
+        }
+    }
+
+    /** 채널 끊김: 보내던 파일은 이어보내기 대기, 받던 파일은 .part 로 남김 */
+    private void onClosed() {
+        long now = SystemClock.elapsedRealtime();
+        for (Outgoing o : outgoing.values()) {
+            o.offered = false;
+            o.sending = false;
+            o.finished = false;
+            if (o.disconnectedAt < 0) o.disconnectedAt = now;
+        }
+        for (Incoming in : incoming.values()) closeQuietly(in.channel);
+        incoming.clear();
+        if (!outgoing.isEmpty()) {
+            schedule(this::expireDisconnected, RESUME_WINDOW_MS);
+        }
+        if (reopener != null) {
+            schedule(() -> {
+                if (disposed || isOpen()) return;
+                reopener.requestReopen();
+            }, REOPEN_DELAY_MS);
+        }
+    }
+
+    /** 재연결 대기 시간이 지난 전송은 실패 처리 */
+    private void expireDisconnected() {
+        long now = SystemClock.elapsedRealtime();
+        List<Outgoing> expired = new ArrayList<>();
+        for (Outgoing o : outgoing.values()) {
+            if (o.disconnectedAt >= 0 && now - o.disconnectedAt >= RESUME_WINDOW_MS) expired.add(o);
+        }
+        for (Outgoing o : expired) finishOutgoing(o, false, "disconnected");
+    }
+
+    private void offer(Outgoing o) {
+        try {
+            JSONObject msg = control("offer", o.id)
+                    .put("stream", o.stream)
+                    .put("name", o.file.getName())
+                    .put("size", o.file.length())
+                    .put("sha256", o.sha256)
+                    .put("chunk", CHUNK_SIZE);
+            if (sendControl(msg)) o.offered = true;
+        } catch (JSONException e) {
+            Log.e(TAG, "offer 생성 실패", e);
+        }
+    }
+
+    private void onControl(String text) {
+        JSONObject msg;
+        try {
+            msg = new JSONObject(text);
+        } catch (JSONException e) {
+            Log.w(TAG, "알 수 없는 제어 메시지: " + text);
+            return;
+        }
+        String id = msg.optString("id");
+        switch (msg.optString("type")) {
+            case "offer":    onOffer(msg, id); break;
+            case "accept":   onAccept(id, msg.optLong("offset")); break;
+            case "done":     onDone(id); break;
+            case "verified": onVerified(id, msg.optBoolean("ok")); break;
+            case "cancel":   onCancel(id); break;
+            default: Log.w(TAG, "알 수 없는 type: " + text);
+        }
+    }
+
+    // ── 수신 측 ──
+
+    private void onOffer(JSONObject msg, String id) {
+        int stream = msg.optInt("stream");
+        long size = msg.optLong("size");
+        int chunk = msg.optInt("chunk", CHUNK_SIZE);
+        // 상대가 보낸 값은 검증 후 사용 (chunk 0 → 이어받기 위치 계산에서 0 나누기)
+        if (id.isEmpty() || size < 0 || chunk <= 0 || chunk > MAX_CHUNK_SIZE) {
+            Log.w(TAG, "잘못된 offer: " + msg);
+            sendControl(control("cancel", id));
+            notifyFailed(id, "invalid_offer");
+            return;
+        }
+        Incoming prev = incoming.remove(stream);
+        if (prev != null) closeQuietly(prev.channel);
+        long[] offset = new long[1];
+        try {
+            FileChannel ch = store.openPart(id, size, chunk, offset);
+            incoming.put(stream, new Incoming(id, msg.optString("name"), size,
+                    msg.optString("sha256"), ch, offset[0]));
+        } catch (IOException e) {
+            Log.e(TAG, "수신 파일 열기 실패", e);
+            sendControl(control("cancel", id));
+            notifyFailed(id, "write_error");
+            return;
+        }
+        Log.d(TAG, "📥 offer " + msg.optString("name") + " size=" + size + " resume@" + offset[0]);
+        try {
+            sendControl(control("accept", id).put("offset", offset[0]));
+        } catch (JSONException e) {
+            Log.e(TAG, "accept 생성 실패", e);
+        }
+    }
+
+    private void onChunk(ByteBuffer frame) {
+        if (frame.remaining() < HEADER_BYTES) return;
+        int stream = frame.getInt();
+        long offset = frame.getLong();
+        Incoming in = incoming.get(stream);
+        if (in == null) return; // 취소됐거나 이전 연결의 잔여 청크
+        int length = frame.remaining();
+        // 음수 위치는 FileChannel.write 가 IllegalArgumentException, 큰 위치는 sparse 쓰기로 디스크를 채움
+        if (offset < 0 || offset > in.size - length) {
+            Log.w(TAG, "잘못된 청크 위치 " + offset + "+" + length + " size=" + in.size);
+            abortIncoming(stream, in, "invalid_chunk");
+            return;
+        }
+        try {
+            FileTransferStore.writeChunk(in.channel, offset, frame);
+        } catch (IOException e) {
+            Log.e(TAG, "청크 기록 실패", e);
+            incoming.remove(stream);
+            closeQuietly(in.channel);
+            sendControl(control("cancel", in.id));
+            notifyFailed(in.id, "write_error");
+            return;
+        }
+        in.received = Math.max(in.received, offset + length);
+        if (in.received - in.lastProgress >= PROGRESS_STEP || in.received == in.size) {
+            in.lastProgress = in.received;
+            Listener l = listener;
+            if (l != null) l.onProgress(in.id, in.received, in.size, true);
+        }
+    }
+
+    /** 수신 중단: 상대에 cancel, 받은 .part 삭제 */
+    private void abortIncoming(int stream, Incoming in, String reason) {
+        incoming.remove(stream);
+        closeQuietly(in.channel);
+        if (!store.partFile(in.id).delete()) Log.w(TAG, "삭제 실패: " + in.id);
+        sendControl(control("cancel", in.id));
+        notifyFailed(in.id, reason);
+    }
+
+    private void onDone(String id) {
+        Integer stream = null;
+        for (Map.Entry<Integer, Incoming> e : incoming.entrySet()) {
+            if (e.getValue().id.equals(id)) stream = e.getKey();
+        }
+        if (stream == null) return;
+        Incoming in = incoming.remove(stream);
+        File file = null;
+        try {
+            file = store.complete(in.id, in.name, in.channel, in.sha256);
+        } catch (IOException e) {
+            Log.e(TAG, "수신 완료 처리 실패", e);
+            closeQuietly(in.channel);
+        }
+        try {
+            sendControl(control("verified", id).put("ok", file != null));
+        } catch (JSONException e) {
+            Log.e(TAG, "verified 생성 실패", e);
+        }
+        if (telemetry != null) {
+            telemetry.event("file_rx", in.size + "B ok=" + (file != null));
+        }
+        Listener l = listener;
+        if (l == null) return;
+        if (file != null) l.onReceived(id, file);
+        else l.onFailed(id, "checksum_mismatch");
+    }
+
+    private void onCancel(String id) {
+        Outgoing o = outgoing.get(id);
+        if (o != null) {
+            finishOutgoing(o, false, "rejected");
+            return;
+        }
+        Integer stream = null;
+        for (Map.Entry<Integer, Incoming> e : incoming.entrySet()) {
+            if (e.getValue().id.equals(id)) stream = e.getKey();
+        }
+        if (stream == null) return;
+        Incoming in = incoming.remove(stream);
+        closeQuietly(in.channel);
+        if (!store.partFile(id).delete()) Log.w(TAG, "삭제 실패: " + id);
+        notifyFailed(id, "cancelled");
+    }
+
+    // ── 송신 측 ──
+
+    private void onAccept(String id, long offset) {
+        Outgoing o = outgoing.get(id);
+        if (o == null || !o.offered) return;
+        o.offered = false;
+        o.sending = true;
+        o.disconnectedAt = -1;
+        o.offset = Math.max(0, Math.min(offset, o.file.length()));
+        o.startOffset = o.offset;
+        o.lastProgress = o.offset;
+        o.startedAt = SystemClock.elapsedRealtime();
+        Log.d(TAG, "▶ accept " + id + " from " + o.offset);
+        pump();
+    }
+
+    /**
+     * 보낼 수 있는 만큼 청크 전송
+     * - bufferedAmount ≥ HIGH_WATER → onBufferedAmountChange 대기
+     * - 토큰 부족 → 필요한 만큼 지연 후 재시도
+     */
+    private void pump() {
+        if (disposed || !isOpen()) return;
+        DataChannel dc = channel;
+        Outgoing o = activeOutgoing();
+        while (o != null) {
+            if (dc.bufferedAmount() >= HIGH_WATER) return;
+            refillTokens();
+            if (tokens < CHUNK_SIZE) {
+                long delayMs = (long) Math.ceil((CHUNK_SIZE - tokens) * 8_000 / rateBps);
+                schedule(this::pump, Math.max(1, delayMs));
+                return;
+            }
+            int n;
+            try {
+                n = readChunk(o);
+            } catch (IOException e) {
+                Log.e(TAG, "청크 읽기 실패", e);
+                finishOutgoing(o, false, "read_error");
+                o = activeOutgoing();
+                continue;
+            }
+            if (n > 0) {
+                if (!dc.send(new DataChannel.Buffer(sendBuffer, true))) {
+                    // 채널 버퍼 초과/닫힘: 같은 위치부터 다시 시도
+                    Log.w(TAG, "send 거부 @" + o.offset);
+                    return;
+                }
+                o.offset += n;
+                tokens -= n;
+                bytesHandedOff += n;
+                reportProgress(o);
+            }
+            if (n <= 0 || o.offset >= o.file.length()) {
+                o.sending = false;
+                o.finished = true;
+                sendControl(control("done", o.id));
+                o = activeOutgoing();
+            }
+        }
+    }
+
+    /** sendBuffer 에 헤더 + 청크를 채움, 읽은 데이터 크기 반환 */
+    private int readChunk(Outgoing o) throws IOException {
+        sendBuffer.clear();
+        sendBuffer.putInt(o.stream).putLong(o.offset);
+        int total = 0;
+        while (sendBuffer.hasRemaining()) {
+            int n = o.channel.read(sendBuffer, o.offset + total);
+            if (n < 0) break;
+            total += n;
+        }
+        sendBuffer.flip();
+        return total;
+    }
+
+    private void refillTokens() {
+        long now = System.nanoTime();
+        if (lastRefillNs == 0) lastRefillNs = now;
+        tokens += (now - lastRefillNs) / 1e9 * rateBps / 8;
+        tokens = Math.min(tokens, CHUNK_SIZE * 4);
+        lastRefillNs = now;
+    }
+
+    private Outgoing activeOutgoing() {
+        for (Outgoing o : outgoing.values()) {
+            if (o.sending) return o;
+        }
+        return null;
+    }
+
+    private void reportProgress(Outgoing o) {
+        long total = o.file.length();
+        if (o.offset - o.lastProgress < PROGRESS_STEP && o.offset < total) return;
+        o.lastProgress = o.offset;
+        Listener l = listener;
+        if (l != null) l.onProgress(o.id, o.offset, total, false);
+    }
+
+    private void onVerified(String id, boolean ok) {
+        Outgoing o = outgoing.get(id);
+        if (o != null) finishOutgoing(o, ok, ok ? null : "checksum_mismatch");
+    }
+
+    private void finishOutgoing(Outgoing o, boolean ok, String reason) {
+        outgoing.remove(o.id);
+        closeQuietly(o.channel);
+        long ms = SystemClock.elapsedRealtime() - o.startedAt;
+        long bytes = o.offset - o.startOffset;
+        long bps = ms > 0 ? bytes * 8_000 / ms : 0;
+        Log.d(TAG, (ok ? "✅ sent " : "❌ failed ") + o.id + " " + bytes + "B " + ms + "ms "
+                + bps + "bps" + (reason != null ? " (" + reason + ")" : ""));
+        if (telemetry != null) {
+            telemetry.event("file_tx", o.file.length() + "B ok=" + ok + " avg_bps=" + bps
+                    + (reason != null ? " reason=" + reason : ""));
+        }
+        Listener l = listener;
+        if (l != null) {
+            if (ok) l.onSent(o.id); else l.onFailed(o.id, reason);
+        }
+        pump();
+    }
+
+    private void notifyFailed(String id, String reason) {
+        Listener l = listener;
+        if (l != null) l.onFailed(id, reason);
+    }
+
+    private void post(Runnable task) {
+        try {
+            io.execute(task);
+        } catch (RejectedExecutionException e) {
+            // dispose 이후 도착한 콜백
+        }
+    }
+
+    private void schedule(Runnable task, long delayMs) {
+        try {
+            io.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // dispose 이후
+        }
+    }
+
+    private static JSONObject control(String type, String id) {
+        JSONObject msg = new JSONObject();
+        try {
+            msg.put("type", type).put("id", id);
+        } catch (JSONException e) {
+            Log.e(TAG, "제어 메시지 생성 실패", e);
+        }
+        return msg;
+    }
+
+    private boolean sendControl(JSONObject msg) {
+        if (!isOpen()) return false;
+        byte[] bytes = msg.toString().getBytes(StandardCharsets.UTF_8);
+        return channel.send(new DataChannel.Buffer(ByteBuffer.wrap(bytes), false));
+    }
+
+    private static void closeQuietly(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException e) {
+            Log.w(TAG, "close 실패", e);
+        }
+    }
+
+    private void releaseChannel(DataChannel dc) {
+        dc.unregisterObserver();
+        dc.close();
+        dc.dispose();
+    }
+
+    /** 테스트용: io 스레드에 이미 들어온 작업이 모두 처리될 때까지 대기 */
+    void awaitIdle() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        post(latch::countDown);
+        latch.await(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 통화 종료: 열린 파일 정리 + 채널 해제 (PeerConnection.dispose 전에 호출)
+     * 호출 스레드는 기다리지 않음: 정리는 io 스레드의 마지막 작업으로 실행
+     * (채널 네이티브 객체는 참조 카운트라 PeerConnection 해제 후 dispose 해도 안전, 팩토리는 Lease 반납 후에도 유지)
+     */
+    public void dispose() {
+        disposed = true;
+        post(() -> {
+            for (Outgoing o : outgoing.values()) closeQuietly(o.channel);
+            for (Incoming in : incoming.values()) closeQuietly(in.channel);
+            outgoing.clear();
+            incoming.clear();
+            if (channel != null) releaseChannel(channel);
+            channel = null;
+        });
+        io.shutdown();
+    }
+}
@@ -0,0 +1,109 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import org.webrtc.EglBase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 프로세스 전역 루트 EGL 컨텍스트
+ * - 캡처(SurfaceTextureHelper), 코덱 팩토리, 렌더러가 같은 컨텍스트를 공유 → 텍스처 직접 전달
+ * - 사용처는 Handle 을 받아 쓰고 release() (여러 번 호출해도 한 번만 반영)
+ * - 컨텍스트 자체는 처음 요청 시 한 번 만들고 프로세스 동안 유지 (통화마다 생성 비용 없음)
+ *   → 사용처가 직접 EglBase.release() 하지 않으므로 이중 해제 없음
+ */
+public final class EglContextManager {
+    private static final String TAG = "EglContextManager";
+
+    private static EglContextManager instance;
+
+    private final Supplier<EglBase> creator;
+    private EglBase root;
+    private final List<Handle> handles = new ArrayList<>();
+    private int created;
+
+    EglContextManager(Supplier<EglBase> creator) {
+        this.creator = creator;
+    }
+
+    public static synchronized EglContextManager get() {
+        if (instance == null) {
+            instance = new EglContextManager(EglBase::create);
+        }
+        return instance;
+    }
+
+    /**
+     * @param owner 누가 들고 있는지 (미반납 Handle 로그용)
+     */
+    public synchronized Handle acquire(String owner) {
+        if (created == 0) {
+            long start = System.nanoTime();
+            root = creator.get();
+            created++;
+            Log.d(TAG, "🧊 root EGL 생성 " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+        Handle h = new Handle(owner, root);
+        handles.add(h);
+        Log.d(TAG, "acquire " + owner + ", handles=" + handles.size());
+        return h;
+    }
+
+    public synchronized int getHandleCount() {
+        return handles.size();
+    }
+
+    /** 루트 컨텍스트 생성 횟수 (프로세스당 1 이어야 정상) */
+    public synchronized int getCreatedCount() {
+        return created;
+    }
+
+    /** 미반납 Handle 의 owner 목록 (누수 확인용) */
+    public synchronized List<String> getOwners() {
+        List<String> owners = new ArrayList<>(handles.size());
+        for (Handle h : handles) owners.add(h.owner);
+        return owners;
+    }
+
+    private synchronized void release(Handle h) {
+        handles.remove(h);
+        Log.d(TAG, "release " + h.owner + ", handles=" + handles.size());
+    }
+
+    /** 루트 EGL 컨텍스트 사용권 */
+    public final class Handle {
+        private final String owner;
+        private final EglBase.Context context;
+        private boolean released;
+
+        private Handle(String owner, EglBase root) {
+            this.owner = owner;
+            this.context = root != null ? root.getEglBaseContext() : null;
+        }
+
+        /** 렌더러 init / SurfaceTextureHelper / 코덱 팩토리용 공유 컨텍스트 */
+        public EglBase.Context getContext() {
+            synchronized (EglContextManager.this) {
+                if (released) throw new IllegalStateException("released handle: " + owner);
+            }
+            return context;
+        }
+
+        public boolean isReleased() {
+            synchronized (EglContextManager.this) {
+                return released;
+            }
+        }
+
+        public void release() {
+            synchronized (EglContextManager.this) {
+                if (released) return;
+                released = true;
+                EglContextManager.this.release(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * 파일 전송 수신 측 저장소
+ * - 수신 중인 파일은 {id}.part 로 기록 → 연결이 끊겨도 남아 있어 이어받기 가능
+ * - 이어받기 위치는 청크 경계로 내림 (마지막 청크가 일부만 기록됐을 수 있음)
+ * - 완료 시 SHA-256 확인 후 원래 이름으로 변경
+ */
+public class FileTransferStore {
+    private static final String TAG = "FileTransferStore";
+
+    static final String PART_SUFFIX = ".part";
+    /** 이 시간보다 오래된 .part 파일은 정리 (이어받을 일 없음) */
+    static final long STALE_PART_MS = 24 * 60 * 60 * 1000L;
+
+    private final File dir;
+
+    public FileTransferStore(File dir) {
+        this.dir = dir;
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "디렉터리 생성 실패: " + dir);
+        }
+    }
+
+    public File getDir() { return dir; }
+
+    File partFile(String id) {
+        return new File(dir, safeName(id) + PART_SUFFIX);
+    }
+
+    /** 이어받을 위치: 기존 .part 길이를 청크 경계로 내림 (전체 크기 초과 시 처음부터) */
+    static long resumeOffset(long partLength, long totalSize, int chunkSize) {
+        if (partLength <= 0 || partLength > totalSize) return 0;
+        return partLength - partLength % chunkSize;
+    }
+
+    /** 수신 파일 열기 + 이어받을 위치 이후 잘라냄 */
+    FileChannel openPart(String id, long totalSize, int chunkSize, long[] offsetOut) throws IOException {
+        File part = partFile(id);
+        long offset = resumeOffset(part.length(), totalSize, chunkSize);
+        FileChannel ch = FileChannel.open(part.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        ch.truncate(offset);
+        offsetOut[0] = offset;
+        return ch;
+    }
+
+    /** 청크 기록 (위치 지정 쓰기 → 순서와 무관) */
+    static void writeChunk(FileChannel ch, long offset, ByteBuffer payload) throws IOException {
+        long pos = offset;
+        while (payload.hasRemaining()) {
+            pos += ch.write(payload, pos);
+        }
+    }
+
+    /**
+     * 수신 완료 처리: 해시 확인 후 최종 파일로 이름 변경
+     * @return 최종 파일, 해시 불일치 시 null (.part 삭제)
+     */
+    File complete(String id, String name, FileChannel ch, String expectedSha256) throws IOException {
+        String actual = sha256(ch);
+        ch.close();
+        File part = partFile(id);
+        if (!actual.equalsIgnoreCase(expectedSha256)) {
+            Log.e(TAG, "❌ 해시 불일치 " + id + " expected=" + expectedSha256 + " actual=" + actual);
+            if (!part.delete()) Log.w(TAG, "삭제 실패: " + part);
+            return null;
+        }
+        File target = new File(dir, safeName(name));
+        if (target.exists()) target = new File(dir, safeName(id) + "_" + safeName(name));
+        if (!part.renameTo(target)) throw new IOException("rename 실패: " + target);
+        return target;
+    }
+
+    /** 오래된 .part 정리 */
+    void purgeStale(long nowMs) {
+        File[] parts = dir.listFiles((d, n) -> n.endsWith(PART_SUFFIX));
+        if (parts == null) return;
+        for (File f : parts) {
+            if (nowMs - f.lastModified() > STALE_PART_MS && !f.delete()) {
+                Log.w(TAG, "삭제 실패: " + f);
+            }
+        }
+    }
+
+    /** 파일 전체 SHA-256 (hex) — FileChannel 을 처음부터 끝까지 읽음 */
+    static String sha256(FileChannel ch) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+        long pos = 0;
+        int n;
+        while ((n = ch.read(buf, pos)) > 0) {
+            pos += n;
+            buf.flip();
+            md.update(buf);
+            buf.clear();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) sb.append(String.format(Locale.US, "%02x", b));
+        return sb.toString();
+    }
+
+    /** 경로 구분자 등 제거 (상대방이 보낸 이름을 그대로 쓰지 않음) */
+    static String safeName(String name) {
+        if (name == null || name.isEmpty()) return "file";
+        String s = name.replaceAll("[\\\\/:*?\"<>|\\x00-\\x1f]", "_");
+        if (s.equals(".") || s.equals("..")) return "file";
+        return s;
+    }
+}
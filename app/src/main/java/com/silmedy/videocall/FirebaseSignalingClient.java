@@ -7,6 +7,7 @@ import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import org.webrtc.IceCandidate;
@@ -15,19 +16,44 @@ import org.webrtc.IceCandidate;
  * RTDB 기반 Signaling 클라이언트
  * - offer/answer/ICE 후보의 송수신을 담당
  * - WebRTCManager 콜백에 매핑
+ * - offer/answer 압축 전송은 선택 (SdpCompression), 수신은 평문/압축 모두 처리
  */
 public class FirebaseSignalingClient {
     public interface Callback {
         void onOfferReceived(String sdp);
         void onAnswerReceived(String sdp);
         void onIceCandidateReceived(IceCandidate candidate);
+        /**
+         * 상대방 영상 송신 중지/재개 / 화면 표시 여부 알림
+         * @param hidden 상대 통화 화면이 가려짐 (영상 중지 여부·사유와 별개)
+         */
+        void onRemoteMediaState(boolean videoPaused, String reason, boolean hidden);
+        /** Callee 의 ICE restart 요청 (Caller 만 수신) */
+        void onIceRestartRequested();
     }
 
+    public static final String ROLE_CALLER = "caller";
+    public static final String ROLE_CALLEE = "callee";
+
     private static final String TAG = "FirebaseSignalingClient";
     private final DatabaseReference rootRef;
     private final Callback callback;
-    private ValueEventListener offerListener, answerListener;
+    private ValueEventListener offerListener, answerListener, iceRestartListener;
     private ChildEventListener callerCandidatesListener, calleeCandidatesListener;
+    private ChildEventListener mediaStateListener;
+    private String localRole = ROLE_CALLEE;
+    /** offer/answer 를 압축해서 전송 (상대가 압축을 읽을 수 있는 버전일 때만 켤 것) */
+    private volatile boolean compressSdp;
+
+    // SDP 전송량 / 인코딩 비용 집계 (전송: 통화 스레드, 수신: 메인 스레드 → synchronized)
+    private long sdpSent;
+    private long sdpSentRawBytes;
+    private long sdpSentWireBytes;
+    private long sdpEncodeNs;
+    private long sdpReceived;
+    private long sdpReceivedWireBytes;
+    private long sdpDecodeNs;
+    private long sdpDecodeErrors;
 
     /** 생성자: roomId 경로 구독 시작 */
     public FirebaseSignalingClient(String roomId, Callback callback) {
@@ -47,11 +73,10 @@ public class FirebaseSignalingClient {
         // ① Offer 수신
         offerListener = new ValueEventListener() {
             @Override public void onDataChange(DataSnapshot snap) {
-                if (!snap.exists()) return;
-                Object raw = snap.getValue();
-                String sdp = raw instanceof String
-                        ? (String) raw
-                        : ((java.util.Map<?,?>) raw).get("sdp").toString();
+                // 내가 보낸 offer (ICE restart 포함) 는 무시
+                if (!snap.exists() || ROLE_CALLER.equals(localRole)) return;
+                String sdp = decodeSdp("offer", snap.getValue());
+                if (sdp == null) return;
                 Log.d(TAG, "📥 Offer 수신: " + sdp);
                 callback.onOfferReceived(sdp);
             }
@@ -64,11 +89,10 @@ public class FirebaseSignalingClient {
         // ② Answer 수신
         answerListener = new ValueEventListener() {
             @Override public void onDataChange(DataSnapshot snap) {
-                if (!snap.exists()) return;
-                Object raw = snap.getValue();
-                String sdp = raw instanceof String
-                        ? (String) raw
-                        : ((java.util.Map<?,?>) raw).get("sdp").toString();
+                // 내가 보낸 answer 는 무시
+                if (!snap.exists() || ROLE_CALLEE.equals(localRole)) return;
+                String sdp = decodeSdp("answer", snap.getValue());
+                if (sdp == null) return;
                 Log.d(TAG, "📥 Answer 수신: " + sdp);
                 callback.onAnswerReceived(sdp);
             }
@@ -81,6 +105,7 @@ public class FirebaseSignalingClient {
         // ③ Caller ICE 후보 수신
         callerCandidatesListener = new ChildEventListener() {
             @Override public void onChildAdded(DataSnapshot snap, String prev) {
+                if (ROLE_CALLER.equals(localRole)) return; // 내가 보낸 후보
                 String type = snap.child("type").getValue(String.class);
                 if ("ice".equals(type)) {
                     String mid = snap.child("sdpMid").getValue(String.class);
@@ -105,6 +130,7 @@ public class FirebaseSignalingClient {
         // ④ Callee ICE 후보 수신
         calleeCandidatesListener = new ChildEventListener() {
             @Override public void onChildAdded(DataSnapshot snap, String prev) {
+                if (ROLE_CALLEE.equals(localRole)) return; // 내가 보낸 후보
                 SignalingData data = snap.getValue(SignalingData.class);
                 if (data != null && data.hasCandidate()) {
                     IceCandidate candidate = data.toIceCandidate();
@@ -120,25 +146,173 @@ public class FirebaseSignalingClient {
             }
         };
         rootRef.child("calleeCandidates").addChildEventListener(calleeCandidatesListener);
+
+        // ⑤ 상대방 미디어 상태 (영상 일시 중지 등)
+        mediaStateListener = new ChildEventListener() {
+            @Override public void onChildAdded(DataSnapshot snap, String prev) { onMediaState(snap); }
+            @Override public void onChildChanged(DataSnapshot snap, String prev) { onMediaState(snap); }
+            @Override public void onChildRemoved(DataSnapshot snap) {}
+            @Override public void onChildMoved(DataSnapshot snap, String prev) {}
+            @Override public void onCancelled(DatabaseError e) {
+                Log.e(TAG, "MediaState listener cancelled", e.toException());
+            }
+        };
+        rootRef.child("mediaState").addChildEventListener(mediaStateListener);
+
+        // ⑥ ICE restart 요청 (Callee → Caller, offer 는 Caller 만 만들 수 있음)
+        iceRestartListener = new ValueEventListener() {
+            @Override public void onDataChange(DataSnapshot snap) {
+                if (!snap.exists() || !ROLE_CALLER.equals(localRole)) return;
+                Log.d(TAG, "📥 ICE restart 요청: " + snap.getValue());
+                callback.onIceRestartRequested();
+            }
+            @Override public void onCancelled(DatabaseError e) {
+                Log.e(TAG, "IceRestart listener cancelled", e.toException());
+            }
+        };
+        rootRef.child("iceRestart").addValueEventListener(iceRestartListener);
+    }
+
+    private void onMediaState(DataSnapshot snap) {
+        if (localRole.equals(snap.getKey())) return; // 내가 쓴 상태
+        Boolean paused = snap.child("videoPaused").getValue(Boolean.class);
+        String reason = snap.child("reason").getValue(String.class);
+        Boolean hidden = snap.child("hidden").getValue(Boolean.class);
+        Log.d(TAG, "📥 MediaState " + snap.getKey() + ": paused=" + paused + ", reason=" + reason
+                + ", hidden=" + hidden);
+        boolean videoPaused = Boolean.TRUE.equals(paused);
+        // hidden 이 없는 이전 버전은 중지 사유로 추정
+        boolean remoteHidden = hidden != null
+                ? hidden
+                : videoPaused && WebRTCManager.PAUSE_BACKGROUND.equals(reason);
+        callback.onRemoteMediaState(videoPaused, reason, remoteHidden);
+    }
+
+    /** 수신 SDP 복원 + 집계 (손상/모르는 인코딩이면 null) */
+    private String decodeSdp(String kind, Object raw) {
+        long start = System.nanoTime();
+        String sdp;
+        try {
+            sdp = SdpCompression.decode(raw);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "❌ " + kind + " SDP 복원 실패", e);
+            synchronized (this) {
+                sdpDecodeErrors++;
+            }
+            return null;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sdp != null) {
+            synchronized (this) {
+                sdpReceived++;
+                sdpReceivedWireBytes += wireBytes(raw);
+                sdpDecodeNs += elapsed;
+            }
+        }
+        return sdp;
+    }
+
+    /** RTDB 에 기록되는 SDP 문자열 길이 (압축이면 base64 길이) */
+    private static int wireBytes(Object raw) {
+        if (raw instanceof java.util.Map) {
+            Object sdp = ((java.util.Map<?, ?>) raw).get(SdpCompression.FIELD_SDP);
+            return sdp != null ? sdp.toString().length() : 0;
+        }
+        return raw != null ? raw.toString().length() : 0;
+    }
+
+    /** 전송 값 생성 (압축 설정이면 {enc, sdp}) + 집계 */
+    private Object encodeSdp(String sdp) {
+        if (!compressSdp) {
+            synchronized (this) {
+                sdpSent++;
+                sdpSentRawBytes += sdp.length();
+                sdpSentWireBytes += sdp.length();
+            }
+            return sdp;
+        }
+        long start = System.nanoTime();
+        java.util.Map<String, Object> msg = SdpCompression.encode(sdp);
+        long elapsed = System.nanoTime() - start;
+        int wire = wireBytes(msg);
+        synchronized (this) {
+            sdpSent++;
+            sdpSentRawBytes += sdp.length();
+            sdpSentWireBytes += wire;
+            sdpEncodeNs += elapsed;
+        }
+        Log.d(TAG, "🗜️ SDP " + sdp.length() + "B → " + wire + "B (" + (elapsed / 1000) + "us)");
+        return msg;
+    }
+
+    public void setCompressSdp(boolean compress) {
+        this.compressSdp = compress;
+    }
+
+    /** 통화 기록에 SDP 전송량 / 인코딩 비용 추가 */
+    public synchronized void report(CallTelemetry telemetry) {
+        telemetry.put("sdp_compressed", compressSdp);
+        telemetry.put("sdp_sent", sdpSent);
+        telemetry.put("sdp_sent_raw_bytes", sdpSentRawBytes);
+        telemetry.put("sdp_sent_wire_bytes", sdpSentWireBytes);
+        telemetry.put("sdp_saved_bytes", sdpSentRawBytes - sdpSentWireBytes);
+        telemetry.put("sdp_encode_us", sdpEncodeNs / 1000);
+        telemetry.put("sdp_received", sdpReceived);
+        telemetry.put("sdp_received_wire_bytes", sdpReceivedWireBytes);
+        telemetry.put("sdp_decode_us", sdpDecodeNs / 1000);
+        telemetry.put("sdp_decode_errors", sdpDecodeErrors);
+    }
+
+    /** 이 기기의 역할 (mediaState 경로 구분용) */
+    public void setLocalRole(String role) {
+        this.localRole = role;
+    }
+
+    /**
+     * 내 영상 송신 상태 공유: calls/{roomId}/mediaState/{role}
+     * @param hidden 통화 화면이 가려짐 (영상 중지 사유와 별개로 항상 현재 값)
+     */
+    public void sendMediaState(boolean videoPaused, String reason, boolean hidden) {
+        java.util.Map<String, Object> state = new java.util.HashMap<>();
+        state.put("videoPaused", videoPaused);
+        state.put("reason", reason);
+        state.put("hidden", hidden);
+        state.put("ts", ServerValue.TIMESTAMP);
+        Log.d(TAG, "📤 sendMediaState paused=" + videoPaused + ", reason=" + reason + ", hidden=" + hidden);
+        rootRef.child("mediaState").child(localRole).setValue(state);
+    }
+
+    /** ICE restart 요청 (Callee): 매번 다른 값이 되도록 서버 시각 기록 */
+    public void requestIceRestart() {
+        Log.d(TAG, "📤 requestIceRestart");
+        rootRef.child("iceRestart").setValue(ServerValue.TIMESTAMP);
     }
 
     /** Offer 전송 (의사) */
     public void sendOffer(String sdp) {
         Log.d(TAG, "📤 sendOffer: " + sdp);
-        rootRef.child("offer").setValue(sdp);
+        rootRef.child("offer").setValue(encodeSdp(sdp));
     }
 
     /** Answer 전송 (환자) */
     public void sendAnswer(String sdp) {
         Log.d(TAG, "📤 sendAnswer: " + sdp);
-        rootRef.child("answer").setValue(sdp);
+        rootRef.child("answer").setValue(encodeSdp(sdp));
     }
 
-    /** ICE 후보 전송 */
-    public void sendIceCandidate(SignalingData data) {
-        String node = data.isOffer() ? "callerCandidates" : "calleeCandidates";
-        Log.d(TAG, "📤 sendIceCandidate to " + node + ": " + data.toString());
-        rootRef.child(node).push().setValue(data);
+    /**
+     * ICE 후보 묶음 전송: push 키를 미리 만들어 한 번의 updateChildren 으로 기록
+     * (후보마다 push().setValue() 하던 왕복을 1회로)
+     */
+    public void sendIceCandidates(java.util.List<SignalingData> batch) {
+        String node = ROLE_CALLER.equals(localRole) ? "callerCandidates" : "calleeCandidates";
+        DatabaseReference ref = rootRef.child(node);
+        java.util.Map<String, Object> updates = new java.util.HashMap<>();
+        for (SignalingData data : batch) {
+            updates.put(ref.push().getKey(), data);
+        }
+        Log.d(TAG, "📤 sendIceCandidates to " + node + ": " + batch.size() + "개");
+        ref.updateChildren(updates);
     }
 
     /** 모든 리스너 해제 */
@@ -147,6 +321,8 @@ public class FirebaseSignalingClient {
         rootRef.child("answer").removeEventListener(answerListener);
         rootRef.child("callerCandidates").removeEventListener(callerCandidatesListener);
         rootRef.child("calleeCandidates").removeEventListener(calleeCandidatesListener);
+        rootRef.child("mediaState").removeEventListener(mediaStateListener);
+        rootRef.child("iceRestart").removeEventListener(iceRestartListener);
         Log.d(TAG, "🛑 All listeners removed");
     }
 
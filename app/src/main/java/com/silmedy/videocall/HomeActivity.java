@@ -25,5 +25,8 @@ public class HomeActivity extends AppCompatActivity {
             );
             nm.createNotificationChannel(channel);
         }
+
+        // 착신 전에 TURN 자격 증명 미리 확보
+        TurnCredentialProvider.get(this).prefetch();
     }
 }
\ No newline at end of file
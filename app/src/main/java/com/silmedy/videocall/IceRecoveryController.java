@@ -0,0 +1,205 @@
+package com.silmedy.videocall;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.webrtc.PeerConnection.IceConnectionState;
+
+/**
+ * ICE 연결 복구
+ * - DISCONNECTED 는 모바일에서 흔히 일시적 → graceMs(기본 GRACE_MS) 동안 자체 회복을 기다림
+ * - 회복되지 않으면 ICE restart 요청 (Caller: IceRestart offer, Callee: Caller 에 재시작 요청)
+ * - RESTART_TIMEOUT_MS 안에 연결되지 않으면 MAX_RESTARTS 회까지 재시도 후 종료
+ * - 네트워크 전환(NetworkHandoverMonitor)은 기존 후보 쌍이 죽은 것이 확실하므로 대기 없이 즉시 restart
+ * - FAILED / CLOSED 는 즉시 종료
+ * - 끊김부터 재연결까지 걸린 시간을 onRecovered 로 보고
+ */
+public class IceRecoveryController {
+    private static final String TAG = "IceRecovery";
+
+    static final long GRACE_MS           = 3_000;
+    static final long RESTART_TIMEOUT_MS = 10_000;
+    static final int  MAX_RESTARTS       = 2;
+
+    public static final String END_FAILED  = "ice_failed";
+    public static final String END_TIMEOUT = "ice_restart_timeout";
+    public static final String END_CLOSED  = "ice_closed";
+
+    public interface Callback {
+        /** ICE restart 실행 (attempt: 1부터) */
+        void onRestartIce(int attempt);
+        /** 끊김 → 재연결 소요 시간 */
+        void onRecovered(long recoveryMs, int restarts);
+        /** 복구 불가 → 통화 종료 */
+        void onGiveUp(String reason);
+    }
+
+    private enum State { IDLE, CONNECTED, GRACE, RESTARTING, ENDED }
+
+    private final Callback callback;
+    private final long graceMs;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private State state = State.IDLE;
+    private long disconnectedAt = -1;
+    private int restarts;
+
+    private final Runnable graceExpired = this::onGraceExpired;
+    private final Runnable restartTimeout = this::onRestartTimeout;
+
+    public IceRecoveryController(Callback callback) {
+        this(callback, GRACE_MS);
+    }
+
+    /** @param graceMs DISCONNECTED 후 restart 까지 대기 (RtcConfigProfile 별 조정) */
+    public IceRecoveryController(Callback callback, long graceMs) {
+        this.callback = callback;
+        this.graceMs = graceMs;
+    }
+
+    public void onIceConnectionChange(IceConnectionState newState) {
+        onIceConnectionChange(newState, SystemClock.elapsedRealtime());
+    }
+
+    /** 상대방이 먼저 끊김을 감지해 재시작을 요청한 경우 (Caller 측) */
+    public void onRestartRequested() {
+        onRestartRequested(SystemClock.elapsedRealtime());
+    }
+
+    /** 기본 네트워크 변경 → 연결 끊김 감지를 기다리지 않고 바로 재시작 */
+    public void onNetworkChanged() {
+        onNetworkChanged(SystemClock.elapsedRealtime());
+    }
+
+    public synchronized boolean isRecovering() {
+        return state == State.GRACE || state == State.RESTARTING;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 아래는 테스트에서 시각 지정 / 타이머 만료를 직접 호출
+    // ────────────────────────────────────────────────────────────────────────────
+
+    void onIceConnectionChange(IceConnectionState newState, long nowMs) {
+        switch (newState) {
+            case CONNECTED:
+            case COMPLETED:
+                onConnected(nowMs);
+                break;
+            case DISCONNECTED:
+                onDisconnected(nowMs);
+                break;
+            case FAILED:
+                end(END_FAILED);
+                break;
+            case CLOSED:
+                end(END_CLOSED);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onConnected(long nowMs) {
+        long recoveryMs;
+        int count;
+        synchronized (this) {
+            if (state == State.ENDED) return;
+            boolean recovering = state == State.GRACE || state == State.RESTARTING;
+            state = State.CONNECTED;
+            handler.removeCallbacks(graceExpired);
+            handler.removeCallbacks(restartTimeout);
+            if (!recovering) return;
+            recoveryMs = nowMs - disconnectedAt;
+            count = restarts;
+            disconnectedAt = -1;
+            restarts = 0;
+        }
+        Log.d(TAG, "✅ 복구 " + recoveryMs + "ms (restart " + count + "회)");
+        callback.onRecovered(recoveryMs, count);
+    }
+
+    private void onDisconnected(long nowMs) {
+        synchronized (this) {
+            // 재시작 중 DISCONNECTED 는 타임아웃으로 처리
+            if (state != State.CONNECTED) return;
+            state = State.GRACE;
+            disconnectedAt = nowMs;
+            handler.postDelayed(graceExpired, graceMs);
+        }
+        Log.d(TAG, "⏳ DISCONNECTED → " + graceMs + "ms 대기");
+    }
+
+    void onRestartRequested(long nowMs) {
+        synchronized (this) {
+            if (state != State.CONNECTED && state != State.GRACE) return;
+            if (disconnectedAt < 0) disconnectedAt = nowMs;
+            handler.removeCallbacks(graceExpired);
+        }
+        Log.d(TAG, "📥 상대방 재시작 요청");
+        restart();
+    }
+
+    void onNetworkChanged(long nowMs) {
+        synchronized (this) {
+            // 재시작 중이어도 이전 네트워크 기준 후보로 진행 중이므로 다시 시작
+            if (state != State.CONNECTED && state != State.GRACE && state != State.RESTARTING) return;
+            if (disconnectedAt < 0) disconnectedAt = nowMs;
+            handler.removeCallbacks(graceExpired);
+        }
+        Log.d(TAG, "📶 네트워크 전환");
+        restart();
+    }
+
+    void onGraceExpired() {
+        synchronized (this) {
+            if (state != State.GRACE) return;
+        }
+        restart();
+    }
+
+    void onRestartTimeout() {
+        boolean retry;
+        synchronized (this) {
+            if (state != State.RESTARTING) return;
+            retry = restarts < MAX_RESTARTS;
+        }
+        if (retry) {
+            Log.w(TAG, "⌛ restart 타임아웃 → 재시도");
+            restart();
+        } else {
+            end(END_TIMEOUT);
+        }
+    }
+
+    private void restart() {
+        int attempt;
+        synchronized (this) {
+            if (state == State.ENDED) return;
+            state = State.RESTARTING;
+            attempt = ++restarts;
+            handler.removeCallbacks(restartTimeout);
+            handler.postDelayed(restartTimeout, RESTART_TIMEOUT_MS);
+        }
+        Log.d(TAG, "🔄 ICE restart #" + attempt);
+        callback.onRestartIce(attempt);
+    }
+
+    private void end(String reason) {
+        synchronized (this) {
+            if (state == State.ENDED) return;
+            state = State.ENDED;
+            handler.removeCallbacks(graceExpired);
+            handler.removeCallbacks(restartTimeout);
+        }
+        Log.w(TAG, "🛑 복구 불가: " + reason);
+        callback.onGiveUp(reason);
+    }
+
+    /** 통화 종료 시 타이머 정리 (콜백 없음) */
+    public synchronized void stop() {
+        state = State.ENDED;
+        handler.removeCallbacks(graceExpired);
+        handler.removeCallbacks(restartTimeout);
+    }
+}
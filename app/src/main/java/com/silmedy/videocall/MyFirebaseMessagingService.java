@@ -31,6 +31,10 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         Log.d(TAG, "🔥 FCM notification: " + remoteMessage.getNotification());
 
         String roomId = remoteMessage.getData().get("roomId");
+        // 사용자가 알림을 누르기 전에 통화 세션 미리 준비 (TURN 자격 증명 만료 임박 시 갱신 포함)
+        TurnCredentialProvider.get(this).prefetch();
+        CallPrewarmer.get(this).prewarm(roomId);
+
         Intent intent = new Intent("com.silmedy.videocall.ACTION_INCOMING_CALL");
         intent.setPackage(getPackageName());
         intent.putExtra("roomId", roomId);
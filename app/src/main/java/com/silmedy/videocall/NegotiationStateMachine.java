@@ -0,0 +1,352 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * offer/answer 협상 상태 머신 (통화 스레드에서만 호출)
+ * - 허용된 전이만 수행, 그 외 이벤트(늦게 도착한 SDP 콜백 등)는 무시
+ * - 이미 적용한 SDP 는 지문(정규화 후 SHA-256)으로 구분 → 같은 offer/answer 재전달은 no-op
+ * - o= 줄의 세션 버전이 이미 적용한 것보다 낮으면 순서가 뒤바뀐 SDP 로 보고 무시
+ * - 진행 중에 도착한 새 offer / 로컬 offer 요청은 보관했다가 STABLE 로 돌아오면 처리
+ *   (단, answer 대기 중 ICE restart 는 보낸 offer 를 대체 → answer 유실 시에도 재시작 가능)
+ * - glare(양쪽 offer 동시): perfect negotiation 규칙 — polite(Callee)는 rollback 후 상대 offer 적용,
+ *   impolite(Caller)는 상대 offer 무시
+ */
+public class NegotiationStateMachine {
+    private static final String TAG = "Negotiation";
+
+    public enum State {
+        STABLE,
+        /** createOffer ~ setLocalDescription(offer) */
+        CREATING_OFFER,
+        /** offer 전송 후 answer 대기 */
+        HAVE_LOCAL_OFFER,
+        /** setRemoteDescription(offer) */
+        APPLYING_REMOTE_OFFER,
+        /** createAnswer ~ setLocalDescription(answer) */
+        CREATING_ANSWER,
+        /** setRemoteDescription(answer) */
+        APPLYING_REMOTE_ANSWER,
+        CLOSED
+    }
+
+    /** 원격 SDP 처리 결정 */
+    public enum Action {
+        APPLY,
+        /** glare 에서 polite 쪽: 로컬 offer rollback 후 적용 */
+        ROLLBACK_AND_APPLY,
+        /** 진행 중인 협상이 끝난 뒤 적용 */
+        DEFER,
+        IGNORE_DUPLICATE,
+        IGNORE_STALE,
+        IGNORE_GLARE
+    }
+
+    /** pollPendingOffer 결과 */
+    public static final int PENDING_NONE    = 0;
+    public static final int PENDING_OFFER   = 1;
+    public static final int PENDING_RESTART = 2;
+
+    private static final Map<State, Set<State>> ALLOWED = new EnumMap<>(State.class);
+
+    static {
+        ALLOWED.put(State.STABLE, EnumSet.of(State.CREATING_OFFER, State.APPLYING_REMOTE_OFFER));
+        ALLOWED.put(State.CREATING_OFFER, EnumSet.of(State.HAVE_LOCAL_OFFER, State.APPLYING_REMOTE_OFFER, State.STABLE));
+        ALLOWED.put(State.HAVE_LOCAL_OFFER, EnumSet.of(State.APPLYING_REMOTE_ANSWER, State.APPLYING_REMOTE_OFFER,
+                State.CREATING_OFFER, State.STABLE));
+        ALLOWED.put(State.APPLYING_REMOTE_OFFER, EnumSet.of(State.CREATING_ANSWER, State.STABLE));
+        ALLOWED.put(State.CREATING_ANSWER, EnumSet.of(State.STABLE));
+        ALLOWED.put(State.APPLYING_REMOTE_ANSWER, EnumSet.of(State.STABLE));
+        ALLOWED.put(State.CLOSED, EnumSet.noneOf(State.class));
+    }
+
+    private volatile boolean polite;
+    private State state = State.STABLE;
+    /** 진행 중인 로컬 offer 가 ICE restart 인지 (glare 로 버려지면 다시 요청) */
+    private boolean localOfferRestart;
+
+    // 적용했거나 적용 중인 원격 SDP
+    private String remoteOfferPrint;
+    private String remoteAnswerPrint;
+    private String remoteSessionId;
+    private long remoteSessionVersion = -1;
+
+    // STABLE 로 돌아왔을 때 처리할 작업
+    private String deferredOffer;
+    private int pendingOffer = PENDING_NONE;
+
+    private int applied;
+    private int duplicates;
+    private int stale;
+    private int glare;
+    private int deferred;
+    private int replaced;
+    private int failures;
+
+    /** @param polite glare 시 양보하는 쪽 (Callee) */
+    public NegotiationStateMachine(boolean polite) {
+        this.polite = polite;
+    }
+
+    /** 역할 확정 시 (Caller 는 impolite) */
+    public void setPolite(boolean polite) {
+        this.polite = polite;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 로컬 offer
+    // ────────────────────────────────────────────────────────────────────────────
+
+    /**
+     * offer 생성 요청 (최초 offer / ICE restart)
+     * - answer 대기 중 ICE restart 는 보낸 offer 를 대체 (have-local-offer 에서 createOffer 가능)
+     *   → answer 가 유실돼도 재시작이 막히지 않음, 대체된 offer 의 answer 는 CREATING_OFFER 동안 무시
+     * @return 지금 만들면 true, 협상 중이면 보관 후 false
+     */
+    public synchronized boolean requestOffer(boolean iceRestart) {
+        if (state == State.STABLE) {
+            localOfferRestart = iceRestart;
+            return transition(State.CREATING_OFFER);
+        }
+        if (iceRestart && state == State.HAVE_LOCAL_OFFER) {
+            replaced++;
+            Log.d(TAG, "🔁 answer 대기 중 ICE restart → 로컬 offer 대체");
+            localOfferRestart = true;
+            // 새 offer 가 현재 상태를 모두 담으므로 보관된 요청은 불필요
+            pendingOffer = PENDING_NONE;
+            return transition(State.CREATING_OFFER);
+        }
+        if (state != State.CLOSED) {
+            pendingOffer = Math.max(pendingOffer, iceRestart ? PENDING_RESTART : PENDING_OFFER);
+            deferred++;
+            Log.d(TAG, "⏸ offer 요청 보관 (state=" + state + ")");
+        }
+        return false;
+    }
+
+    /** createOffer 결과를 써도 되는지 (glare 로 rollback 됐으면 버림) */
+    public synchronized boolean isCreatingOffer() {
+        return state == State.CREATING_OFFER;
+    }
+
+    public synchronized void onLocalOfferSet() {
+        if (state == State.CREATING_OFFER) transition(State.HAVE_LOCAL_OFFER);
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 원격 offer → 로컬 answer
+    // ────────────────────────────────────────────────────────────────────────────
+
+    public synchronized Action onRemoteOffer(String sdp) {
+        String print = fingerprint(sdp);
+        if (print.equals(remoteOfferPrint) || print.equals(fingerprintOrNull(deferredOffer))) {
+            duplicates++;
+            Log.d(TAG, "↩️ 같은 offer 재전달 → 무시");
+            return Action.IGNORE_DUPLICATE;
+        }
+        if (isStale(sdp)) {
+            stale++;
+            Log.d(TAG, "⌛ 이전 버전 offer → 무시");
+            return Action.IGNORE_STALE;
+        }
+        switch (state) {
+            case STABLE:
+                acceptRemoteOffer(sdp, print);
+                return Action.APPLY;
+            case CREATING_OFFER:
+            case HAVE_LOCAL_OFFER:
+                glare++;
+                if (!polite) {
+                    Log.d(TAG, "⚔️ glare → impolite, 상대 offer 무시");
+                    return Action.IGNORE_GLARE;
+                }
+                Log.d(TAG, "⚔️ glare → polite, rollback 후 상대 offer 적용");
+                // 로컬 offer 는 버려지므로 끝난 뒤 다시 협상
+                pendingOffer = Math.max(pendingOffer, localOfferRestart ? PENDING_RESTART : PENDING_OFFER);
+                acceptRemoteOffer(sdp, print);
+                return Action.ROLLBACK_AND_APPLY;
+            case CLOSED:
+                return Action.IGNORE_STALE;
+            default:
+                // 다른 협상 진행 중: 가장 최근 offer 만 보관
+                deferredOffer = sdp;
+                deferred++;
+                Log.d(TAG, "⏸ offer 보관 (state=" + state + ")");
+                return Action.DEFER;
+        }
+    }
+
+    public synchronized boolean onRemoteOfferSet() {
+        return state == State.APPLYING_REMOTE_OFFER && transition(State.CREATING_ANSWER);
+    }
+
+    /** answer 를 만들 차례인지 (원격 offer 없이 createAnswer 호출 방지) */
+    public synchronized boolean canCreateAnswer() {
+        return state == State.CREATING_ANSWER;
+    }
+
+    public synchronized void onLocalAnswerSet() {
+        if (state == State.CREATING_ANSWER && transition(State.STABLE)) applied++;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 원격 answer
+    // ────────────────────────────────────────────────────────────────────────────
+
+    public synchronized Action onRemoteAnswer(String sdp) {
+        String print = fingerprint(sdp);
+        if (print.equals(remoteAnswerPrint)) {
+            duplicates++;
+            Log.d(TAG, "↩️ 같은 answer 재전달 → 무시");
+            return Action.IGNORE_DUPLICATE;
+        }
+        if (state != State.HAVE_LOCAL_OFFER || isStale(sdp)) {
+            // 보낸 offer 가 없거나 이전 협상의 answer
+            stale++;
+            Log.d(TAG, "⌛ 기대하지 않은 answer → 무시 (state=" + state + ")");
+            return Action.IGNORE_STALE;
+        }
+        remoteAnswerPrint = print;
+        rememberVersion(sdp);
+        transition(State.APPLYING_REMOTE_ANSWER);
+        return Action.APPLY;
+    }
+
+    public synchronized void onRemoteAnswerSet() {
+        if (state == State.APPLYING_REMOTE_ANSWER && transition(State.STABLE)) applied++;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 실패 / 보관 작업 / 종료
+    // ────────────────────────────────────────────────────────────────────────────
+
+    /** SDP 생성/적용 실패 → STABLE 로 복귀 (다음 요청부터 다시 협상) */
+    public synchronized void onFailure(String step) {
+        if (state == State.CLOSED || state == State.STABLE) return;
+        failures++;
+        Log.w(TAG, "❌ 협상 실패: " + step + " (state=" + state + ")");
+        // 적용하지 못한 원격 SDP 는 같은 내용이 다시 와도 시도할 수 있게 잊음
+        if (state == State.APPLYING_REMOTE_OFFER) remoteOfferPrint = null;
+        if (state == State.APPLYING_REMOTE_ANSWER) remoteAnswerPrint = null;
+        state = State.STABLE;
+    }
+
+    /** STABLE 에서 보관된 원격 offer (없으면 null) */
+    public synchronized String pollDeferredOffer() {
+        if (state != State.STABLE) return null;
+        String sdp = deferredOffer;
+        deferredOffer = null;
+        return sdp;
+    }
+
+    /** STABLE 에서 보관된 로컬 offer 요청 (PENDING_*) */
+    public synchronized int pollPendingOffer() {
+        if (state != State.STABLE) return PENDING_NONE;
+        int p = pendingOffer;
+        pendingOffer = PENDING_NONE;
+        return p;
+    }
+
+    public synchronized void close() {
+        state = State.CLOSED;
+        deferredOffer = null;
+        pendingOffer = PENDING_NONE;
+    }
+
+    public synchronized void report(CallTelemetry telemetry) {
+        telemetry.put("negotiations", applied);
+        telemetry.put("negotiation_duplicates", duplicates);
+        telemetry.put("negotiation_stale", stale);
+        telemetry.put("negotiation_glare", glare);
+        telemetry.put("negotiation_deferred", deferred);
+        telemetry.put("negotiation_replaced", replaced);
+        telemetry.put("negotiation_failures", failures);
+    }
+
+    synchronized int getApplied()    { return applied; }
+    synchronized int getDuplicates() { return duplicates; }
+    synchronized int getStale()      { return stale; }
+
+    // ────────────────────────────────────────────────────────────────────────────
+
+    private void acceptRemoteOffer(String sdp, String print) {
+        remoteOfferPrint = print;
+        rememberVersion(sdp);
+        state = State.APPLYING_REMOTE_OFFER;
+    }
+
+    private boolean transition(State to) {
+        if (!ALLOWED.get(state).contains(to)) {
+            Log.w(TAG, "허용되지 않은 전이 " + state + " → " + to);
+            return false;
+        }
+        Log.d(TAG, state + " → " + to);
+        state = to;
+        return true;
+    }
+
+    /** 같은 세션에서 이미 적용한 것보다 낮은 버전 */
+    private boolean isStale(String sdp) {
+        String[] origin = origin(sdp);
+        if (origin == null || remoteSessionId == null || !remoteSessionId.equals(origin[0])) return false;
+        try {
+            return Long.parseLong(origin[1]) < remoteSessionVersion;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void rememberVersion(String sdp) {
+        String[] origin = origin(sdp);
+        if (origin == null) return;
+        try {
+            long version = Long.parseLong(origin[1]);
+            if (!origin[0].equals(remoteSessionId) || version > remoteSessionVersion) {
+                remoteSessionId = origin[0];
+                remoteSessionVersion = version;
+            }
+        } catch (NumberFormatException e) {
+            // 버전 비교 없이 지문만 사용
+        }
+    }
+
+    /** o=<user> <sess-id> <sess-version> ... → {sess-id, sess-version} */
+    static String[] origin(String sdp) {
+        int start = sdp.startsWith("o=") ? 0 : sdp.indexOf("\no=");
+        if (start < 0) return null;
+        if (start > 0) start++;
+        int end = sdp.indexOf('\n', start);
+        String[] parts = (end < 0 ? sdp.substring(start) : sdp.substring(start, end)).trim().split(" ");
+        return parts.length >= 3 ? new String[] { parts[1], parts[2] } : null;
+    }
+
+    /** 줄바꿈 차이를 무시한 SDP 지문 */
+    static String fingerprint(String sdp) {
+        String normalized = sdp.replace("\r\n", "\n").trim();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalized.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 8; i++) sb.append(String.format("%02x", digest[i]));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(normalized.hashCode());
+        }
+    }
+
+    private static String fingerprintOrNull(String sdp) {
+        return sdp != null ? fingerprint(sdp) : null;
+    }
+}
@@ -0,0 +1,214 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 통화 중 네트워크 전환 감지 (Wi-Fi ↔ LTE 등)
+ * - 기본 네트워크 / 인터페이스가 바뀌거나 기준 주소가 사라지면 기존 후보 쌍은 죽은 것
+ *   → ICE consent 타임아웃을 기다리지 않고 바로 restart
+ * - 같은 네트워크에 주소가 추가되는 것(IPv6 임시 주소 교체 등)은 기존 경로가 살아 있으므로 무시
+ * - 짧은 흔들림은 DEBOUNCE_MS 동안 모아 마지막 상태만 판단, 원래 네트워크로 돌아오면 무시
+ * - 기본 네트워크가 없는 동안은 재시작하지 않고 새 네트워크를 기다림
+ * - 전환 시작(첫 변경) → ICE 재연결 후 수신 미디어 재개까지 시간을 측정
+ */
+public class NetworkHandoverMonitor implements StatsSampler.Listener {
+    private static final String TAG = "NetworkHandover";
+
+    static final long   DEBOUNCE_MS       = 1_000;
+    /** 이 이상 수신되면 미디어 재개로 간주 (음성만 있어도 넘는 값) */
+    static final double MEDIA_RESUMED_BPS = 8_000;
+
+    public interface Callback {
+        /** 디바운스 후 확정된 전환 → ICE restart */
+        void onHandover(String from, String to);
+        /** 전환 시작부터 수신 미디어 재개까지 */
+        void onMediaResumed(long handoverMs);
+    }
+
+    private final ConnectivityManager connectivity;
+    private final Callback callback;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable debounceExpired = this::onDebounceExpired;
+    private ConnectivityManager.NetworkCallback networkCallback;
+
+    // 현재 ICE 세션이 쓰는 네트워크 (key: Network + 인터페이스, label: 인터페이스 이름, addrs: 그때의 주소)
+    private String baselineKey;
+    private String baselineLabel;
+    private Set<String> baselineAddrs = Collections.emptySet();
+    // 디바운스 중 마지막으로 본 네트워크 (null: 기본 네트워크 없음)
+    private String pendingKey;
+    private String pendingLabel;
+    private Set<String> pendingAddrs = Collections.emptySet();
+    private long changedAt = -1;
+
+    // 재개 측정
+    private long handoverAt = -1;
+    private boolean iceReconnected;
+
+    private int handovers;
+    private int flapsIgnored;
+    private int resumed;
+    private long resumeSumMs;
+    private long resumeMaxMs;
+
+    public NetworkHandoverMonitor(Context ctx, Callback callback) {
+        this(ctx.getSystemService(ConnectivityManager.class), callback);
+    }
+
+    NetworkHandoverMonitor(ConnectivityManager connectivity, Callback callback) {
+        this.connectivity = connectivity;
+        this.callback = callback;
+    }
+
+    /** 기본 네트워크 감시 시작 (등록 직후 현재 네트워크가 한 번 전달되어 기준이 됨) */
+    public void start() {
+        if (connectivity == null || networkCallback != null) return;
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override public void onLinkPropertiesChanged(Network network, LinkProperties lp) {
+                onNetworkChanged(network + "/" + lp.getInterfaceName(), lp.getInterfaceName(),
+                        addresses(lp), SystemClock.elapsedRealtime());
+            }
+            @Override public void onLost(Network network) {
+                onNetworkChanged(null, null, SystemClock.elapsedRealtime());
+            }
+        };
+        try {
+            connectivity.registerDefaultNetworkCallback(networkCallback);
+        } catch (RuntimeException e) {
+            // 앱 전체 콜백 수 제한 초과 등 → 감지 없이 기존 복구 경로만 사용
+            Log.w(TAG, "네트워크 콜백 등록 실패", e);
+            networkCallback = null;
+        }
+    }
+
+    /** ICE 재연결 (CONNECTED / COMPLETED) */
+    public void onIceConnected() {
+        synchronized (this) {
+            if (handoverAt >= 0) iceReconnected = true;
+        }
+    }
+
+    @Override
+    public void onSample(StatsSampler.Sample sample) {
+        onSample(sample.get(StatsRingBuffer.IN_BITRATE_BPS), SystemClock.elapsedRealtime());
+    }
+
+    /** 통화 종료 시 감시 해제 + 집계 기록 */
+    public void stop(CallTelemetry telemetry) {
+        if (networkCallback != null) {
+            try {
+                connectivity.unregisterNetworkCallback(networkCallback);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "네트워크 콜백 해제 실패", e);
+            }
+            networkCallback = null;
+        }
+        synchronized (this) {
+            handler.removeCallbacks(debounceExpired);
+            telemetry.put("handovers", handovers);
+            telemetry.put("handover_flaps_ignored", flapsIgnored);
+            if (resumed > 0) {
+                telemetry.put("handover_resume_avg_ms", resumeSumMs / resumed);
+                telemetry.put("handover_resume_max_ms", resumeMaxMs);
+            }
+        }
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 아래는 테스트에서 시각 지정 / 타이머 만료를 직접 호출
+    // ────────────────────────────────────────────────────────────────────────────
+
+    /** 주소 정보 없이 네트워크만 바뀜 */
+    void onNetworkChanged(String key, String label, long nowMs) {
+        onNetworkChanged(key, label, Collections.emptySet(), nowMs);
+    }
+
+    /**
+     * @param key   네트워크 식별 (null: 기본 네트워크 없음)
+     * @param addrs 인터페이스 주소
+     */
+    void onNetworkChanged(String key, String label, Set<String> addrs, long nowMs) {
+        synchronized (this) {
+            if (baselineKey == null && changedAt < 0) {
+                // 첫 전달 = 통화 시작 시점 네트워크
+                baselineKey = key;
+                baselineLabel = label;
+                baselineAddrs = addrs;
+                return;
+            }
+            if (changedAt < 0 && key != null && !movedFromBaseline(key, addrs)) return;
+            pendingKey = key;
+            pendingLabel = label;
+            pendingAddrs = addrs;
+            if (changedAt < 0) changedAt = nowMs;
+            handler.removeCallbacks(debounceExpired);
+            handler.postDelayed(debounceExpired, DEBOUNCE_MS);
+        }
+        Log.d(TAG, "📶 네트워크 변경 " + (label != null ? label : "없음") + " (디바운스)");
+    }
+
+    void onDebounceExpired() {
+        String from, to;
+        synchronized (this) {
+            if (changedAt < 0) return;
+            // 네트워크가 없으면 재시작해도 후보가 없으므로 새 기본 네트워크까지 대기
+            if (pendingKey == null) return;
+            if (!movedFromBaseline(pendingKey, pendingAddrs)) {
+                flapsIgnored++;
+                changedAt = -1;
+                Log.d(TAG, "↩️ 원래 네트워크로 복귀 → 무시");
+                return;
+            }
+            from = baselineLabel;
+            to = pendingLabel;
+            baselineKey = pendingKey;
+            baselineLabel = pendingLabel;
+            baselineAddrs = pendingAddrs;
+            handoverAt = changedAt;
+            iceReconnected = false;
+            changedAt = -1;
+            handovers++;
+        }
+        Log.d(TAG, "🔀 전환 " + from + " → " + to + " → ICE restart");
+        callback.onHandover(from, to);
+    }
+
+    void onSample(double inBitrateBps, long nowMs) {
+        long ms;
+        synchronized (this) {
+            // ICE 재연결 전 샘플은 이전 경로의 잔여 수신일 수 있음
+            if (handoverAt < 0 || !iceReconnected || !(inBitrateBps >= MEDIA_RESUMED_BPS)) return;
+            ms = nowMs - handoverAt;
+            handoverAt = -1;
+            resumed++;
+            resumeSumMs += ms;
+            resumeMaxMs = Math.max(resumeMaxMs, ms);
+        }
+        Log.d(TAG, "✅ 전환 후 미디어 재개 " + ms + "ms");
+        callback.onMediaResumed(ms);
+    }
+
+    /** 다른 네트워크/인터페이스이거나, 기준 주소 중 하나라도 사라짐 (주소 추가만은 전환 아님) */
+    private boolean movedFromBaseline(String key, Set<String> addrs) {
+        return !key.equals(baselineKey) || !addrs.containsAll(baselineAddrs);
+    }
+
+    /** IP 주소만 (플래그/수명 변경은 무시, DNS 등 다른 속성도 무시) */
+    private static Set<String> addresses(LinkProperties lp) {
+        Set<String> addrs = new HashSet<>();
+        for (LinkAddress a : lp.getLinkAddresses()) addrs.add(a.getAddress().getHostAddress());
+        return addrs;
+    }
+}
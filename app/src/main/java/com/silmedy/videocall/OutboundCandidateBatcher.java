@@ -0,0 +1,148 @@
+package com.silmedy.videocall;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * 로컬 ICE 후보 묶음 전송
+ * - 첫 후보 도착 후 windowMs 동안 모인 후보를 한 번의 RTDB 쓰기(updateChildren)로 전송
+ * - 수집 완료(IceGatheringState.COMPLETE) 시 즉시 전송
+ * - windowMs = 0 이면 후보마다 바로 전송 (기존 동작)
+ * - 절약한 쓰기 횟수, 묶음 대기로 늘어난 지연을 집계
+ * - 묶음 대기 타이머는 Scheduler(통화 스레드)로 예약 → 전송도 시그널링 상태를 가진 통화 스레드에서만
+ * - stop 이후에는 예약된 타이머가 돌아도 전송하지 않음
+ */
+public class OutboundCandidateBatcher {
+    private static final String TAG = "CandidateBatcher";
+
+    public static final long DEFAULT_WINDOW_MS = 50;
+
+    /** 묶음 전송 (FirebaseSignalingClient::sendIceCandidates) */
+    public interface Sink {
+        void write(List<SignalingData> batch);
+    }
+
+    /** 묶음 대기 타이머 예약 (CallExecutor::postDelayed) */
+    public interface Scheduler {
+        /** @return 취소용 (예약 실패면 null) */
+        Future<?> schedule(Runnable task, long delayMs);
+    }
+
+    private final Sink sink;
+    private final long windowMs;
+    private final Scheduler scheduler;
+    private final List<SignalingData> batch = new ArrayList<>();
+    private Future<?> pendingFlush;
+    private boolean stopped;
+    /** 현재 묶음의 첫 후보 도착 시각 */
+    private long batchStartedAt = -1;
+    /** 현재 묶음 후보들의 도착 시각 합 (flush 시 대기 시간 합 계산용) */
+    private long pendingArrivalSumMs;
+    private long latencySumMs;
+
+    private int candidates;
+    private int writes;
+    private long maxAddedLatencyMs;
+
+    public OutboundCandidateBatcher(Sink sink, long windowMs, Scheduler scheduler) {
+        this.sink = sink;
+        this.windowMs = Math.max(0, windowMs);
+        this.scheduler = scheduler;
+    }
+
+    public void add(IceCandidate candidate) {
+        add(candidate, SystemClock.elapsedRealtime());
+    }
+
+    /** 수집 완료: 남은 후보 즉시 전송 */
+    public void onGatheringComplete() {
+        cancelPendingFlush();
+        flush(SystemClock.elapsedRealtime());
+    }
+
+    private void flush() {
+        flush(SystemClock.elapsedRealtime());
+    }
+
+    private void cancelPendingFlush() {
+        Future<?> f;
+        synchronized (this) {
+            f = pendingFlush;
+            pendingFlush = null;
+        }
+        if (f != null) f.cancel(false);
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 아래는 테스트에서 시각을 지정해 직접 호출
+    // ────────────────────────────────────────────────────────────────────────────
+
+    void add(IceCandidate candidate, long nowMs) {
+        boolean first;
+        synchronized (this) {
+            if (stopped) return;
+            first = batch.isEmpty();
+            if (first) batchStartedAt = nowMs;
+            batch.add(new SignalingData(candidate));
+            pendingArrivalSumMs += nowMs;
+        }
+        if (windowMs == 0) {
+            flush(nowMs);
+        } else if (first) {
+            Future<?> f = scheduler.schedule(this::flush, windowMs);
+            synchronized (this) {
+                pendingFlush = f;
+            }
+        }
+    }
+
+    void flush(long nowMs) {
+        List<SignalingData> out;
+        synchronized (this) {
+            pendingFlush = null;
+            if (stopped || batch.isEmpty()) return;
+            out = new ArrayList<>(batch);
+            batch.clear();
+            candidates += out.size();
+            writes++;
+            latencySumMs += nowMs * out.size() - pendingArrivalSumMs;
+            pendingArrivalSumMs = 0;
+            maxAddedLatencyMs = Math.max(maxAddedLatencyMs, nowMs - batchStartedAt);
+            batchStartedAt = -1;
+        }
+        Log.d(TAG, "📤 후보 " + out.size() + "개 묶음 전송");
+        sink.write(out);
+    }
+
+    public synchronized int getCandidates()         { return candidates; }
+    public synchronized int getWrites()             { return writes; }
+    public synchronized int getWritesSaved()        { return candidates - writes; }
+    public synchronized long getMaxAddedLatencyMs() { return maxAddedLatencyMs; }
+
+    /** 후보당 평균 추가 지연 (전송된 후보 기준) */
+    public synchronized long getAvgAddedLatencyMs() {
+        return candidates > 0 ? latencySumMs / candidates : 0;
+    }
+
+    /** 통화 종료: 대기 중인 후보 폐기 + 집계값 기록 */
+    public void stop(CallTelemetry telemetry) {
+        cancelPendingFlush();
+        synchronized (this) {
+            stopped = true;
+            batch.clear();
+            pendingArrivalSumMs = 0;
+            telemetry.put("ice_batch_window_ms", windowMs);
+            telemetry.put("ice_batch_candidates", candidates);
+            telemetry.put("ice_batch_writes", writes);
+            telemetry.put("ice_batch_writes_saved", candidates - writes);
+            telemetry.put("ice_batch_latency_avg_ms", candidates > 0 ? latencySumMs / candidates : 0);
+            telemetry.put("ice_batch_latency_max_ms", maxAddedLatencyMs);
+        }
+    }
+}
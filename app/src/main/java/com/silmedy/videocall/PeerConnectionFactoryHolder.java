@@ -0,0 +1,154 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.webrtc.EglBase;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.audio.AudioDeviceModule;
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+/**
+ * 프로세스 전역 PeerConnectionFactory 보관소
+ * - factory / ADM / 코덱 팩토리를 통화 간에 재사용
+ * - 루트 EGL 컨텍스트는 EglContextManager 소유, 여기서는 Handle 만 보유/반납
+ * - 통화 세션은 Lease 를 받아 사용하고, 모든 Lease 반납 후 IDLE_TIMEOUT_MS 가 지나야 해제
+ * - cold(최초 생성) / warm(재사용) 획득 시간을 기록
+ */
+public final class PeerConnectionFactoryHolder {
+    private static final String TAG = "PcFactoryHolder";
+
+    /** 마지막 Lease 반납 후 실제 해제까지 대기 시간 */
+    static final long IDLE_TIMEOUT_MS = 60_000L;
+
+    private static PeerConnectionFactoryHolder instance;
+    private static boolean webrtcInitialized;
+
+    private final Context appContext;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable idleRelease = this::releaseIfIdle;
+
+    private EglContextManager.Handle egl;
+    private AudioDeviceModule adm;
+    private PeerConnectionFactory factory;
+    private int leaseCount;
+
+    // 획득 시간 측정값
+    private long lastColdAcquireMs = -1;
+    private long lastWarmAcquireMs = -1;
+    private int coldAcquireCount;
+    private int warmAcquireCount;
+
+    private PeerConnectionFactoryHolder(Context ctx) {
+        this.appContext = ctx.getApplicationContext();
+    }
+
+    public static synchronized PeerConnectionFactoryHolder get(Context ctx) {
+        if (instance == null) {
+            instance = new PeerConnectionFactoryHolder(ctx);
+        }
+        return instance;
+    }
+
+    /**
+     * 통화 세션용 Lease 획득
+     * 팩토리가 살아 있으면 즉시 반환(warm), 없으면 새로 생성(cold)
+     */
+    public synchronized Lease acquire() {
+        long start = SystemClock.elapsedRealtime();
+        mainHandler.removeCallbacks(idleRelease);
+        boolean cold = factory == null;
+        if (cold) {
+            createFactory();
+        }
+        leaseCount++;
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        if (cold) {
+            lastColdAcquireMs = elapsed;
+            coldAcquireCount++;
+        } else {
+            lastWarmAcquireMs = elapsed;
+            warmAcquireCount++;
+        }
+        Log.d(TAG, (cold ? "🧊 cold" : "🔥 warm") + " acquire " + elapsed
+                + "ms, leases=" + leaseCount);
+        return new Lease();
+    }
+
+    private void createFactory() {
+        if (!webrtcInitialized) {
+            PeerConnectionFactory.initialize(
+                    PeerConnectionFactory.InitializationOptions.builder(appContext)
+                            .createInitializationOptions());
+            webrtcInitialized = true;
+        }
+        egl = EglContextManager.get().acquire(TAG);
+        adm = JavaAudioDeviceModule.builder(appContext)
+                .setUseHardwareAcousticEchoCanceler(true)
+                .setUseHardwareNoiseSuppressor(true)
+                .createAudioDeviceModule();
+        // 지원 코덱 목록은 영구 캐시에서 응답 (MediaCodecList 재조회 방지)
+        CodecCapabilityCache codecCache = CodecCapabilityCache.get(appContext);
+        factory = PeerConnectionFactory.builder()
+                .setAudioDeviceModule(adm)
+                .setVideoEncoderFactory(new CodecCapabilityCache.EncoderFactory(
+                        codecCache, egl.getContext()))
+                .setVideoDecoderFactory(new CodecCapabilityCache.DecoderFactory(
+                        codecCache, egl.getContext()))
+                .createPeerConnectionFactory();
+        Log.d(TAG, "PeerConnectionFactory created");
+    }
+
+    private synchronized void release(Lease lease) {
+        leaseCount--;
+        Log.d(TAG, "lease released, leases=" + leaseCount);
+        if (leaseCount == 0) {
+            mainHandler.postDelayed(idleRelease, IDLE_TIMEOUT_MS);
+        }
+    }
+
+    private synchronized void releaseIfIdle() {
+        if (leaseCount > 0 || factory == null) return;
+        Log.d(TAG, "💤 idle timeout → factory 해제");
+        factory.dispose();
+        factory = null;
+        adm.release();
+        adm = null;
+        // 컨텍스트는 유지 (다음 통화에서 재사용), 사용권만 반납
+        egl.release();
+        egl = null;
+    }
+
+    public synchronized long getLastColdAcquireMs() { return lastColdAcquireMs; }
+    public synchronized long getLastWarmAcquireMs() { return lastWarmAcquireMs; }
+    public synchronized int getColdAcquireCount()   { return coldAcquireCount; }
+    public synchronized int getWarmAcquireCount()   { return warmAcquireCount; }
+
+    /**
+     * 통화 세션 하나가 보유하는 팩토리 사용권
+     * release() 는 여러 번 호출해도 한 번만 반영됨
+     */
+    public final class Lease {
+        private final PeerConnectionFactory leasedFactory = factory;
+        private final EglBase.Context eglContext = egl.getContext();
+        private boolean released;
+
+        private Lease() {}
+
+        public PeerConnectionFactory getFactory() { return leasedFactory; }
+
+        /** 코덱 팩토리와 공유되는 루트 EGL 컨텍스트 (렌더러/캡처 초기화용) */
+        public EglBase.Context getEglBaseContext() { return eglContext; }
+
+        public void release() {
+            synchronized (PeerConnectionFactoryHolder.this) {
+                if (released) return;
+                released = true;
+                PeerConnectionFactoryHolder.this.release(this);
+            }
+        }
+    }
+}
@@ -8,6 +8,8 @@ import android.content.SharedPreferences;
 import android.media.AudioManager;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.View;
+import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.NotificationManagerCompat;
@@ -18,7 +20,6 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
-import org.webrtc.EglBase;
 import org.webrtc.SurfaceViewRenderer;
 
 /**
@@ -30,8 +31,9 @@ public class ReceiveActivity extends AppCompatActivity {
     private static final String KEY_TOKEN = "access_token";
 
     private SurfaceViewRenderer remoteView, localView;
+    /** 렌더러가 쓰는 공유 EGL 컨텍스트 사용권 (렌더러 release 후 반납) */
+    private EglContextManager.Handle rendererEgl;
     private WebRTCManager webRTC;
-    private EglBase eglBase;
 
     // ◀ 여기부터: Firebase 종료 감지용 필드
     private DatabaseReference callRef;
@@ -68,20 +70,31 @@ public class ReceiveActivity extends AppCompatActivity {
             return;
         }
 
+        // onNewIntent 재진입 시 이전 세션 정리 (sink 분리 후 렌더러 해제, Lease 반납)
+        // 이전 방의 삭제 감지도 해제 (남아 있으면 이전 방 삭제 시 새 통화를 종료함)
+        if (callRef != null && callListener != null) {
+            callRef.removeEventListener(callListener);
+            callRef = null;
+            callListener = null;
+        }
+        if (webRTC != null) webRTC.dispose();
+        releaseRenderers();
+
         // 레이아웃 + 오디오 세팅
         setContentView(R.layout.activity_receive);
         remoteView = findViewById(R.id.remoteView);
         localView  = findViewById(R.id.localView);
+        TextView remotePausedText = findViewById(R.id.remotePausedText);
         AudioManager am = (AudioManager) getSystemService(AUDIO_SERVICE);
         am.setMode(AudioManager.MODE_IN_COMMUNICATION);
         am.setSpeakerphoneOn(true);
         setVolumeControlStream(AudioManager.STREAM_VOICE_CALL);
 
-        // WebRTC 렌더러 초기화
-        eglBase = EglBase.create();
-        remoteView.init(eglBase.getEglBaseContext(), null);
+        // 코덱 팩토리와 같은 루트 EGL 컨텍스트로 렌더러 초기화 (생성은 프로세스당 한 번)
+        rendererEgl = EglContextManager.get().acquire("ReceiveActivity");
+        remoteView.init(rendererEgl.getContext(), null);
         remoteView.setMirror(false);
-        localView.init(eglBase.getEglBaseContext(), null);
+        localView.init(rendererEgl.getContext(), null);
         localView.setMirror(true);
 
         // FCM 풀스크린 알림 취소
@@ -89,21 +102,47 @@ public class ReceiveActivity extends AppCompatActivity {
                 .cancel(NotificationHelper.NOTIFY_ID + 1);
 
         // WebRTC 연결 시작
-        webRTC = new WebRTCManager(this, eglBase, remoteView, localView);
-        webRTC.setRoomId(roomId);
+        webRTC = isCaller ? null : CallPrewarmer.get(this).claim(roomId);
+        boolean prewarmed = webRTC != null;
+        if (prewarmed) {
+            // Pre-warm 세션은 자체 Lease 를 가지고 있음
+            webRTC.attachViews(remoteView, localView);
+        } else {
+            // 공유 팩토리 Lease 획득 (dispose 시 반납)
+            PeerConnectionFactoryHolder.Lease lease =
+                    PeerConnectionFactoryHolder.get(this).acquire();
+            webRTC = new WebRTCManager(this, lease, remoteView, localView);
+            webRTC.setRoomId(roomId);
+        }
+
+        // 상대방 영상 중지 시 정지 화면 대신 안내 표시
+        webRTC.setListener(new WebRTCManager.Listener() {
+            @Override
+            public void onRemoteVideoPaused(boolean paused, String reason) {
+                runOnUiThread(() -> remotePausedText.setVisibility(
+                        paused ? View.VISIBLE : View.GONE));
+            }
+
+            @Override
+            public void onCallEnded(String reason) {
+                Log.d(TAG, "📴 통화 종료: " + reason);
+                runOnUiThread(() -> finish());
+            }
+        });
 
         // ◀ 여기부터: Firebase 경로 삭제 시 액티비티 종료 감지 설정
         callRef = FirebaseDatabase
                 .getInstance()
                 .getReference("calls")
                 .child(roomId);
+        WebRTCManager session = webRTC;
         callListener = new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot snapshot) {
                 if (!snapshot.exists()) {
                     Log.d(TAG, "📴 방 데이터가 삭제되었습니다. ReceiveActivity 종료.");
-                    // WebRTC 리소스 해제
-                    webRTC.dispose();
+                    // 이 방의 WebRTC 리소스 해제
+                    session.dispose();
                     // 액티비티 종료
                     finish();
                 }
@@ -116,19 +155,46 @@ public class ReceiveActivity extends AppCompatActivity {
         if (isCaller) {
             Log.d(TAG, "📞 Caller 역할 - Offer 생성 시작");
             webRTC.createOfferAndSend(roomId);
+        } else if (prewarmed) {
+            Log.d(TAG, "📥 Callee 역할 - Pre-warm 세션 수락");
+            webRTC.accept();
         } else {
+            // setRoomId 에서 시그널링 구독 시작 → offer 적용 후 answer 자동 전송
             Log.d(TAG, "📥 Callee 역할 - Offer 수신 대기");
-            webRTC.createAnswerAndSend(roomId);
         }
     }
 
+    /** 렌더러 해제 + EGL 사용권 반납 (여러 번 호출해도 안전) */
+    private void releaseRenderers() {
+        if (remoteView != null) remoteView.release();
+        if (localView != null) localView.release();
+        remoteView = null;
+        localView = null;
+        if (rendererEgl != null) {
+            rendererEgl.release();
+            rendererEgl = null;
+        }
+    }
+
+    /** 화면 복귀 → 영상 재개 */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (webRTC != null) webRTC.setBackground(false);
+    }
+
+    /** 화면이 가려짐 → 음성만 유지 (종료 중이면 onDestroy 에서 정리) */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (webRTC != null && !isFinishing()) webRTC.setBackground(true);
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
         if (webRTC != null) webRTC.dispose();
-        if (remoteView != null) remoteView.release();
-        if (localView != null) localView.release();
-        if (eglBase != null) eglBase.release();
+        releaseRenderers();
 
         // ◀ 여기부터: 리스너 해제
         if (callRef != null && callListener != null) {
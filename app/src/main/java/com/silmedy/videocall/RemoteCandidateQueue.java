@@ -0,0 +1,120 @@
+package com.silmedy.videocall;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.webrtc.AddIceObserver;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 원격 ICE 후보 대기열
+ * - 원격 SDP 적용(onSetSuccess) 전에 도착한 후보는 보관 → 적용 직후 한 번에 추가
+ *   (setRemoteDescription 전에 addIceCandidate 하면 거부되어 연결 확인이 늦어짐)
+ * - ICE restart 로 새 원격 SDP 를 적용하는 동안에도 다시 보관
+ * - 추가 성공/거부, 연결 후 도착(late) 건수와 첫 원격 SDP 적용 → 연결까지 시간 집계
+ */
+public class RemoteCandidateQueue {
+    private static final String TAG = "RemoteCandidateQueue";
+
+    /** 후보 추가 대상 (PeerConnection::addIceCandidate) */
+    public interface Target {
+        void addIceCandidate(IceCandidate candidate, AddIceObserver observer);
+    }
+
+    private final Target target;
+    private final List<IceCandidate> pending = new ArrayList<>();
+    private boolean ready;
+    private boolean connected;
+
+    private int received;
+    private int buffered;
+    private int accepted;
+    private int rejected;
+    private int late;
+    private long firstRemoteDescriptionAt = -1;
+    private long timeToConnectedMs = -1;
+
+    public RemoteCandidateQueue(Target target) {
+        this.target = target;
+    }
+
+    /** 시그널링에서 받은 후보 (원격 SDP 적용 전이면 보관) */
+    public void add(IceCandidate candidate) {
+        synchronized (this) {
+            received++;
+            if (connected) late++;
+            if (!ready) {
+                buffered++;
+                pending.add(candidate);
+                return;
+            }
+        }
+        submit(candidate);
+    }
+
+    /** setRemoteDescription 호출 직전: 적용 완료까지 다시 보관 */
+    public synchronized void onRemoteDescriptionPending() {
+        ready = false;
+        if (firstRemoteDescriptionAt < 0) firstRemoteDescriptionAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * 원격 SDP 적용 완료 (시그널링 스레드의 onSetSuccess 에서 호출)
+     * 보관된 후보를 한 번에 추가 — PeerConnection 호출은 락 밖에서
+     */
+    public void onRemoteDescriptionSet() {
+        List<IceCandidate> drained;
+        synchronized (this) {
+            ready = true;
+            if (pending.isEmpty()) return;
+            drained = new ArrayList<>(pending);
+            pending.clear();
+        }
+        Log.d(TAG, "📥 보관 후보 " + drained.size() + "개 추가");
+        for (IceCandidate c : drained) submit(c);
+    }
+
+    /** 연결 상태 (연결 후 도착한 후보는 late 로 집계) */
+    public synchronized void setConnected(boolean connected) {
+        this.connected = connected;
+        if (connected && timeToConnectedMs < 0 && firstRemoteDescriptionAt >= 0) {
+            timeToConnectedMs = SystemClock.elapsedRealtime() - firstRemoteDescriptionAt;
+        }
+    }
+
+    private void submit(IceCandidate candidate) {
+        target.addIceCandidate(candidate, new AddIceObserver() {
+            @Override public void onAddSuccess() {
+                synchronized (RemoteCandidateQueue.this) {
+                    accepted++;
+                }
+            }
+            @Override public void onAddFailure(String error) {
+                synchronized (RemoteCandidateQueue.this) {
+                    rejected++;
+                }
+                Log.w(TAG, "addIceCandidate 거부: " + error + " (" + candidate.sdp + ")");
+            }
+        });
+    }
+
+    public synchronized int getReceived() { return received; }
+    public synchronized int getBuffered() { return buffered; }
+    public synchronized int getAccepted() { return accepted; }
+    public synchronized int getRejected() { return rejected; }
+    public synchronized int getLate()     { return late; }
+    public synchronized int getPending()  { return pending.size(); }
+
+    /** 집계값을 통화 기록에 추가 */
+    public synchronized void report(CallTelemetry telemetry) {
+        telemetry.put("remote_candidates", received);
+        telemetry.put("remote_candidates_buffered", buffered);
+        telemetry.put("remote_candidates_accepted", accepted);
+        telemetry.put("remote_candidates_rejected", rejected);
+        telemetry.put("remote_candidates_late", late);
+        if (timeToConnectedMs >= 0) telemetry.put("time_to_connected_ms", timeToConnectedMs);
+    }
+}
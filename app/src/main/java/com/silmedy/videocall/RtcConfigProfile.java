@@ -0,0 +1,124 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import org.webrtc.PeerConnection;
+import org.webrtc.PeerConnection.ContinualGatheringPolicy;
+import org.webrtc.PeerConnection.IceTransportsType;
+import org.webrtc.PeerConnection.TcpCandidatePolicy;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 이름 + 버전이 있는 RTCConfiguration 프로필
+ * - 통화마다 앱 설정(rtc_profile)으로 선택, 통화 기록에 id(name@vN) 를 남겨 프로필 간 비교
+ * - 후보 수집 속도(풀 크기, 연속 수집), 장애 감지/전환 시간(핑 주기, 수신 타임아웃, 복구 대기),
+ *   keepalive 배터리 비용(STUN keepalive, 안정 연결 핑 주기) 조정
+ * - 값을 바꾸면 version 을 올릴 것 (기록상 구분)
+ * - null 인 항목은 libwebrtc 기본값 사용
+ */
+public final class RtcConfigProfile {
+    private static final String TAG = "RtcConfigProfile";
+
+    public static final String BALANCED      = "balanced";
+    public static final String LOW_LATENCY   = "low_latency";
+    public static final String LOW_BANDWIDTH = "low_bandwidth";
+    public static final String RELAY_ONLY    = "relay_only";
+
+    private static final Map<String, RtcConfigProfile> PROFILES = new LinkedHashMap<>();
+
+    static {
+        // 값 순서: transports, pool, gathering, strongPingMs, stunKeepaliveMs,
+        //          receivingTimeoutMs, unwritableTimeMs, tcp, recoveryGraceMs
+        register(new RtcConfigProfile(BALANCED, 1,
+                IceTransportsType.ALL,   2, ContinualGatheringPolicy.GATHER_CONTINUALLY, null,      null,         null,     null,      TcpCandidatePolicy.ENABLED,  3_000));
+        // 빠른 수집 + 빠른 장애 감지: 핑/keepalive 가 잦아 배터리 비용 큼
+        register(new RtcConfigProfile(LOW_LATENCY, 1,
+                IceTransportsType.ALL,   4, ContinualGatheringPolicy.GATHER_CONTINUALLY, 1_000,     null,         1_000,    2_000,     TcpCandidatePolicy.DISABLED, 1_500));
+        // 저대역/저전력: 한 번만 수집, 핑/keepalive 주기를 늘려 부가 트래픽 최소화
+        register(new RtcConfigProfile(LOW_BANDWIDTH, 1,
+                IceTransportsType.ALL,   1, ContinualGatheringPolicy.GATHER_ONCE,        10_000,    25_000,       null,     null,      TcpCandidatePolicy.ENABLED,  5_000));
+        // TURN 만 사용: 사설망/방화벽 환경, 직접 연결 시도 없음
+        register(new RtcConfigProfile(RELAY_ONLY, 1,
+                IceTransportsType.RELAY, 1, ContinualGatheringPolicy.GATHER_CONTINUALLY, null,      null,         null,     null,      TcpCandidatePolicy.ENABLED,  3_000));
+    }
+
+    public final String name;
+    public final int version;
+    final IceTransportsType iceTransportsType;
+    final int candidatePoolSize;
+    final ContinualGatheringPolicy gatheringPolicy;
+    final Integer strongPingIntervalMs;
+    final Integer stunKeepaliveIntervalMs;
+    final Integer receivingTimeoutMs;
+    final Integer unwritableTimeMs;
+    final TcpCandidatePolicy tcpCandidatePolicy;
+    /** DISCONNECTED 후 ICE restart 까지 대기 (IceRecoveryController) */
+    public final long recoveryGraceMs;
+
+    RtcConfigProfile(String name, int version,
+                     IceTransportsType iceTransportsType, int candidatePoolSize,
+                     ContinualGatheringPolicy gatheringPolicy, Integer strongPingIntervalMs,
+                     Integer stunKeepaliveIntervalMs, Integer receivingTimeoutMs,
+                     Integer unwritableTimeMs, TcpCandidatePolicy tcpCandidatePolicy,
+                     long recoveryGraceMs) {
+        this.name = name;
+        this.version = version;
+        this.iceTransportsType = iceTransportsType;
+        this.candidatePoolSize = candidatePoolSize;
+        this.gatheringPolicy = gatheringPolicy;
+        this.strongPingIntervalMs = strongPingIntervalMs;
+        this.stunKeepaliveIntervalMs = stunKeepaliveIntervalMs;
+        this.receivingTimeoutMs = receivingTimeoutMs;
+        this.unwritableTimeMs = unwritableTimeMs;
+        this.tcpCandidatePolicy = tcpCandidatePolicy;
+        this.recoveryGraceMs = recoveryGraceMs;
+    }
+
+    private static void register(RtcConfigProfile p) {
+        PROFILES.put(p.name, p);
+    }
+
+    /** 이름으로 선택 (없거나 모르는 이름이면 BALANCED) */
+    public static RtcConfigProfile get(String name) {
+        RtcConfigProfile p = name != null ? PROFILES.get(name) : null;
+        if (p == null) {
+            if (name != null) Log.w(TAG, "알 수 없는 프로필: " + name + " → " + BALANCED);
+            p = PROFILES.get(BALANCED);
+        }
+        return p;
+    }
+
+    public static Collection<RtcConfigProfile> all() {
+        return Collections.unmodifiableCollection(PROFILES.values());
+    }
+
+    /** 통화 기록용 식별자 */
+    public String id() {
+        return name + "@v" + version;
+    }
+
+    /** 공통 설정 + 프로필 값 적용 */
+    public void apply(PeerConnection.RTCConfiguration cfg) {
+        cfg.sdpSemantics = PeerConnection.SdpSemantics.UNIFIED_PLAN;
+        cfg.bundlePolicy = PeerConnection.BundlePolicy.MAXBUNDLE;
+        cfg.rtcpMuxPolicy = PeerConnection.RtcpMuxPolicy.REQUIRE;
+        cfg.iceTransportsType = iceTransportsType;
+        // 후보 풀: setLocalDescription 이전부터 ICE 수집 시작
+        cfg.iceCandidatePoolSize = candidatePoolSize;
+        cfg.continualGatheringPolicy = gatheringPolicy;
+        cfg.tcpCandidatePolicy = tcpCandidatePolicy;
+        if (strongPingIntervalMs != null) cfg.iceCheckIntervalStrongConnectivityMs = strongPingIntervalMs;
+        if (stunKeepaliveIntervalMs != null) cfg.stunCandidateKeepaliveIntervalMs = stunKeepaliveIntervalMs;
+        if (receivingTimeoutMs != null) cfg.iceConnectionReceivingTimeout = receivingTimeoutMs;
+        if (unwritableTimeMs != null) cfg.iceUnwritableTimeMs = unwritableTimeMs;
+        if (iceTransportsType == IceTransportsType.RELAY) {
+            // TURN 만 쓰는 경우 연결 확인 전에도 송신 가능으로 간주 → 첫 미디어 시간 단축
+            cfg.presumeWritableWhenFullyRelayed = true;
+        }
+        Log.d(TAG, "⚙️ profile " + id());
+    }
+}
@@ -0,0 +1,574 @@
+package com.silmedy.videocall;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SDP 구조 모델 (순수 Java, 협상마다 쓰이므로 할당 최소화)
+ * - 한 번의 순회로 줄 단위 분리: 줄마다 Line 객체 + 값 문자열 하나만 생성, 정규식/split 없음
+ * - 세션 / 미디어 섹션 구분, 코덱(rtpmap/fmtp/rtcp-fb) · extmap · candidate 는 조회 시점에 해석
+ * - 수정하지 않은 입력은 serialize() 결과가 원문과 바이트 단위로 동일
+ *   (줄바꿈은 첫 줄 기준으로 통일: CRLF / LF 혼용 입력만 예외)
+ */
+public final class Sdp {
+    public static final String CRLF = "\r\n";
+
+    /**
+     * 한 줄 (<type>=<value>)
+     * a= 줄은 이름/값 경계 위치만 기억하고 필요할 때 잘라냄
+     */
+    public static final class Line {
+        /** 'v', 'o', 'm', 'a' ... (형식에 맞지 않는 줄은 RAW) */
+        public final char type;
+        private String value;
+        private int colon;
+
+        static final char RAW = 0;
+
+        public Line(char type, String value) {
+            this.type = type;
+            setValue(value);
+        }
+
+        public String value() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+            this.colon = type == 'a' ? value.indexOf(':') : -1;
+        }
+
+        /** a=<name>[:<value>] 의 name 과 일치하는지 (할당 없음) */
+        public boolean isAttribute(String name) {
+            if (type != 'a' || !value.startsWith(name)) return false;
+            return value.length() == name.length() || value.charAt(name.length()) == ':';
+        }
+
+        /** 속성 이름 (a= 줄이 아니면 null) */
+        public String name() {
+            if (type != 'a') return null;
+            return colon < 0 ? value : value.substring(0, colon);
+        }
+
+        /** 속성 값 (값 없는 속성이면 null) */
+        public String attributeValue() {
+            return colon < 0 ? null : value.substring(colon + 1);
+        }
+
+        void appendTo(StringBuilder sb, String eol) {
+            if (type != RAW) sb.append(type).append('=');
+            sb.append(value).append(eol);
+        }
+    }
+
+    /** 미디어 섹션 (m= 줄부터 다음 m= 줄 전까지) */
+    public static final class Media {
+        private final Line mLine;
+        private final List<Line> lines;
+
+        Media(Line mLine, int expectedLines) {
+            this.mLine = mLine;
+            this.lines = new ArrayList<>(expectedLines);
+        }
+
+        /** m= 줄 */
+        public Line mediaLine() {
+            return mLine;
+        }
+
+        /** m= 다음 줄들 (수정 가능) */
+        public List<Line> lines() {
+            return lines;
+        }
+
+        /** audio / video / application */
+        public String kind() {
+            return token(mLine.value, 0);
+        }
+
+        public String protocol() {
+            return token(mLine.value, 2);
+        }
+
+        /** m= 줄의 포맷 목록 (RTP 는 payload type 순서 = 선호 순서) */
+        public List<String> formats() {
+            String v = mLine.value;
+            List<String> out = new ArrayList<>();
+            int start = nthTokenStart(v, 3);
+            while (start >= 0 && start < v.length()) {
+                int end = v.indexOf(' ', start);
+                if (end < 0) end = v.length();
+                if (end > start) out.add(v.substring(start, end));
+                start = end + 1;
+            }
+            return out;
+        }
+
+        public void setFormats(List<String> formats) {
+            String v = mLine.value;
+            int start = nthTokenStart(v, 3);
+            StringBuilder sb = new StringBuilder(v.length());
+            sb.append(v, 0, start < 0 ? v.length() : start - 1);
+            for (String f : formats) sb.append(' ').append(f);
+            mLine.setValue(sb.toString());
+        }
+
+        /** 이름이 같은 첫 속성 줄 (없으면 null) */
+        public Line attribute(String name) {
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                Line l = lines.get(i);
+                if (l.isAttribute(name)) return l;
+            }
+            return null;
+        }
+
+        public List<Line> attributes(String name) {
+            List<Line> out = new ArrayList<>();
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                Line l = lines.get(i);
+                if (l.isAttribute(name)) out.add(l);
+            }
+            return out;
+        }
+
+        public String mid() {
+            Line l = attribute("mid");
+            return l != null ? l.attributeValue() : null;
+        }
+
+        /** sendrecv / sendonly / recvonly / inactive (없으면 null) */
+        public String direction() {
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                Line l = lines.get(i);
+                if (l.type != 'a') continue;
+                String v = l.value;
+                if (v.equals("sendrecv") || v.equals("sendonly")
+                        || v.equals("recvonly") || v.equals("inactive")) return v;
+            }
+            return null;
+        }
+
+        /** m= 줄 순서대로 코덱 (rtpmap 없는 정적 payload 는 이름 없이 포함) */
+        public List<Codec> codecs() {
+            List<String> formats = formats();
+            Map<Integer, Codec> byPt = new LinkedHashMap<>(formats.size() * 2);
+            for (String f : formats) {
+                int pt = parseInt(f, 0, f.length());
+                if (pt >= 0) byPt.put(pt, new Codec(pt));
+            }
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                Line l = lines.get(i);
+                if (l.type != 'a') continue;
+                if (l.isAttribute("rtpmap")) {
+                    Codec c = byPt.get(payloadType(l));
+                    if (c != null) c.setRtpmap(l);
+                } else if (l.isAttribute("fmtp")) {
+                    Codec c = byPt.get(payloadType(l));
+                    if (c != null) c.fmtpLine = l;
+                } else if (l.isAttribute("rtcp-fb")) {
+                    Codec c = byPt.get(payloadType(l));
+                    if (c != null) c.feedbackLines.add(l);
+                }
+            }
+            return new ArrayList<>(byPt.values());
+        }
+
+        public List<Extmap> extmaps() {
+            List<Extmap> out = new ArrayList<>();
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                Line l = lines.get(i);
+                if (l.isAttribute("extmap")) {
+                    Extmap e = Extmap.parse(l);
+                    if (e != null) out.add(e);
+                }
+            }
+            return out;
+        }
+
+        public List<Candidate> candidates() {
+            List<Candidate> out = new ArrayList<>();
+            for (int i = 0, n = lines.size(); i < n; i++) {
+                Line l = lines.get(i);
+                if (l.isAttribute("candidate")) {
+                    Candidate c = Candidate.parse(l.attributeValue());
+                    if (c != null) out.add(c);
+                }
+            }
+            return out;
+        }
+
+        /**
+         * 속성 값 설정: 있으면 첫 줄을 바꾸고, 없으면 섹션 끝에 추가 (value 가 null 이면 모두 제거)
+         */
+        public void setAttribute(String name, String value) {
+            Line found = null;
+            for (int i = lines.size() - 1; i >= 0; i--) {
+                Line l = lines.get(i);
+                if (!l.isAttribute(name)) continue;
+                if (value == null) lines.remove(i);
+                else found = l;
+            }
+            if (value == null) return;
+            String v = name + ":" + value;
+            if (found != null) found.setValue(v);
+            else lines.add(new Line('a', v));
+        }
+
+        /**
+         * 코덱의 fmtp key=value 설정 (value 가 null 이면 제거, 기존 순서 유지, 새 키는 끝에)
+         * fmtp 줄이 없으면 rtpmap 바로 뒤에 추가
+         */
+        public void setFmtpParam(Codec codec, String key, String value) {
+            String current = codec.fmtp();
+            StringBuilder sb = new StringBuilder(current != null ? current.length() + 24 : 24);
+            boolean replaced = false;
+            if (current != null) {
+                int start = 0;
+                while (start < current.length()) {
+                    int end = current.indexOf(';', start);
+                    if (end < 0) end = current.length();
+                    int eq = current.indexOf('=', start);
+                    boolean match = eq > start && eq < end && eq - start == key.length()
+                            && current.regionMatches(true, start, key, 0, key.length());
+                    if (match) {
+                        replaced = true;
+                        if (value != null) appendParam(sb, key, value);
+                    } else if (end > start) {
+                        if (sb.length() > 0) sb.append(';');
+                        sb.append(current, start, end);
+                    }
+                    start = end + 1;
+                }
+            }
+            if (!replaced && value != null) appendParam(sb, key, value);
+
+            String prefix = "fmtp:" + codec.payloadType;
+            if (codec.fmtpLine != null) {
+                if (sb.length() == 0) {
+                    lines.remove(codec.fmtpLine);
+                    codec.fmtpLine = null;
+                } else {
+                    codec.fmtpLine.setValue(prefix + " " + sb);
+                }
+            } else if (sb.length() > 0) {
+                Line l = new Line('a', prefix + " " + sb);
+                int at = codec.rtpmapLine != null ? lines.indexOf(codec.rtpmapLine) + 1 : lines.size();
+                lines.add(at, l);
+                codec.fmtpLine = l;
+            }
+        }
+
+        private static void appendParam(StringBuilder sb, String key, String value) {
+            if (sb.length() > 0) sb.append(';');
+            sb.append(key).append('=').append(value);
+        }
+
+        /** 해당 payload type 의 rtpmap / fmtp / rtcp-fb 줄 제거 (m= 줄은 그대로) */
+        public void removePayloadLines(int pt) {
+            for (int i = lines.size() - 1; i >= 0; i--) {
+                Line l = lines.get(i);
+                if ((l.isAttribute("rtpmap") || l.isAttribute("fmtp") || l.isAttribute("rtcp-fb"))
+                        && payloadType(l) == pt) {
+                    lines.remove(i);
+                }
+            }
+        }
+    }
+
+    /** 코덱 하나 (원본 줄을 참조 → 수정하면 직렬화에 반영) */
+    public static final class Codec {
+        public final int payloadType;
+        private String name;
+        private int clockRate;
+        private int channels;
+        Line rtpmapLine;
+        Line fmtpLine;
+        final List<Line> feedbackLines = new ArrayList<>(4);
+
+        Codec(int payloadType) {
+            this.payloadType = payloadType;
+        }
+
+        void setRtpmap(Line l) {
+            rtpmapLine = l;
+            // rtpmap:<pt> <name>/<clock>[/<channels>]
+            String v = l.value;
+            int sp = v.indexOf(' ');
+            if (sp < 0) return;
+            int slash = v.indexOf('/', sp + 1);
+            if (slash < 0) {
+                name = v.substring(sp + 1);
+                return;
+            }
+            name = v.substring(sp + 1, slash);
+            int slash2 = v.indexOf('/', slash + 1);
+            clockRate = Math.max(0, parseInt(v, slash + 1, slash2 < 0 ? v.length() : slash2));
+            if (slash2 > 0) channels = Math.max(0, parseInt(v, slash2 + 1, v.length()));
+        }
+
+        /** VP8, H264, opus ... (rtpmap 없으면 null) */
+        public String name()    { return name; }
+        public int clockRate()  { return clockRate; }
+        /** 오디오 채널 수 (없으면 0) */
+        public int channels()   { return channels; }
+
+        /** fmtp 파라미터 문자열 (없으면 null) */
+        public String fmtp() {
+            if (fmtpLine == null) return null;
+            String v = fmtpLine.value;
+            int sp = v.indexOf(' ');
+            return sp < 0 ? "" : v.substring(sp + 1);
+        }
+
+        /** fmtp 의 key=value 하나 (없으면 null) */
+        public String fmtpParam(String key) {
+            String f = fmtp();
+            if (f == null) return null;
+            int start = 0;
+            while (start < f.length()) {
+                int end = f.indexOf(';', start);
+                if (end < 0) end = f.length();
+                int eq = f.indexOf('=', start);
+                if (eq > start && eq < end && f.regionMatches(true, start, key, 0, key.length())
+                        && eq - start == key.length()) {
+                    return f.substring(eq + 1, end);
+                }
+                start = end + 1;
+            }
+            return null;
+        }
+
+        /** rtx / red / ulpfec 처럼 다른 코덱에 딸린 payload 의 원본 (apt) */
+        public int associatedPayloadType() {
+            String apt = fmtpParam("apt");
+            return apt != null ? parseInt(apt, 0, apt.length()) : -1;
+        }
+
+        /** rtcp-fb 값들 ("nack", "nack pli", "transport-cc" ...) */
+        public List<String> feedback() {
+            List<String> out = new ArrayList<>(feedbackLines.size());
+            for (Line l : feedbackLines) {
+                String v = l.value;
+                int sp = v.indexOf(' ');
+                if (sp > 0) out.add(v.substring(sp + 1));
+            }
+            return out;
+        }
+
+        public Line rtpmapLine() { return rtpmapLine; }
+        public Line fmtpLine()   { return fmtpLine; }
+        public List<Line> feedbackLines() { return Collections.unmodifiableList(feedbackLines); }
+    }
+
+    /** a=extmap:<id>[/<direction>] <uri> [<attributes>] */
+    public static final class Extmap {
+        public final Line line;
+        public final int id;
+        public final String direction;
+        public final String uri;
+        public final String attributes;
+
+        private Extmap(Line line, int id, String direction, String uri, String attributes) {
+            this.line = line;
+            this.id = id;
+            this.direction = direction;
+            this.uri = uri;
+            this.attributes = attributes;
+        }
+
+        static Extmap parse(Line l) {
+            String v = l.value;
+            int start = l.colon + 1;
+            int sp = v.indexOf(' ', start);
+            if (sp < 0) return null;
+            int slash = v.indexOf('/', start);
+            boolean hasDir = slash > 0 && slash < sp;
+            int id = parseInt(v, start, hasDir ? slash : sp);
+            if (id < 0) return null;
+            int sp2 = v.indexOf(' ', sp + 1);
+            return new Extmap(l, id,
+                    hasDir ? v.substring(slash + 1, sp) : null,
+                    v.substring(sp + 1, sp2 < 0 ? v.length() : sp2),
+                    sp2 < 0 ? null : v.substring(sp2 + 1));
+        }
+    }
+
+    /** ICE 후보 (a=candidate 줄 또는 trickle 로 받은 candidate 문자열) */
+    public static final class Candidate {
+        public final String foundation;
+        public final int component;
+        public final String transport;
+        public final long priority;
+        public final String address;
+        public final int port;
+        /** host / srflx / prflx / relay */
+        public final String type;
+
+        private Candidate(String foundation, int component, String transport, long priority,
+                          String address, int port, String type) {
+            this.foundation = foundation;
+            this.component = component;
+            this.transport = transport;
+            this.priority = priority;
+            this.address = address;
+            this.port = port;
+            this.type = type;
+        }
+
+        /** "candidate:" 접두어 유무 상관없이 해석 (형식이 틀리면 null) */
+        public static Candidate parse(String s) {
+            if (s == null) return null;
+            int i = s.startsWith("a=") ? 2 : 0;
+            if (s.startsWith("candidate:", i)) i += "candidate:".length();
+            String[] t = new String[8];
+            int count = 0;
+            while (count < t.length && i < s.length()) {
+                int end = s.indexOf(' ', i);
+                if (end < 0) end = s.length();
+                if (end > i) t[count++] = s.substring(i, end);
+                i = end + 1;
+            }
+            if (count < 8 || !"typ".equals(t[6])) return null;
+            try {
+                return new Candidate(t[0], Integer.parseInt(t[1]), t[2], Long.parseLong(t[3]),
+                        t[4], Integer.parseInt(t[5]), t[7]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+
+    private final List<Line> session;
+    private final List<Media> media;
+    private final String eol;
+    private final boolean trailingEol;
+    private final int sizeHint;
+
+    private Sdp(List<Line> session, List<Media> media, String eol, boolean trailingEol, int sizeHint) {
+        this.session = session;
+        this.media = media;
+        this.eol = eol;
+        this.trailingEol = trailingEol;
+        this.sizeHint = sizeHint;
+    }
+
+    /** 한 번의 순회로 해석 (형식이 틀린 줄도 RAW 로 보존) */
+    public static Sdp parse(String sdp) {
+        int len = sdp.length();
+        int firstLf = sdp.indexOf('\n');
+        String eol = firstLf > 0 && sdp.charAt(firstLf - 1) == '\r' ? CRLF : "\n";
+        // 줄당 평균 약 40자 → 목록 초기 크기 추정
+        List<Line> session = new ArrayList<>(16);
+        List<Media> media = new ArrayList<>(4);
+        List<Line> target = session;
+        int expected = Math.max(16, len / 40);
+
+        int start = 0;
+        while (start < len) {
+            int lf = sdp.indexOf('\n', start);
+            int next = lf < 0 ? len : lf + 1;
+            int end = lf < 0 ? len : lf;
+            if (end > start && sdp.charAt(end - 1) == '\r') end--;
+
+            Line line;
+            if (end - start >= 2 && sdp.charAt(start + 1) == '=') {
+                line = new Line(sdp.charAt(start), sdp.substring(start + 2, end));
+            } else {
+                line = new Line(Line.RAW, sdp.substring(start, end));
+            }
+            if (line.type == 'm') {
+                Media m = new Media(line, expected / 2);
+                media.add(m);
+                target = m.lines;
+            } else {
+                target.add(line);
+            }
+            start = next;
+        }
+        boolean trailing = len > 0 && sdp.charAt(len - 1) == '\n';
+        return new Sdp(session, media, eol, trailing, len);
+    }
+
+    /** 세션 줄 (v=, o=, s=, t=, a=group ...) — 수정 가능 */
+    public List<Line> sessionLines() {
+        return session;
+    }
+
+    /** 미디어 섹션 (m= 줄 순서) — 수정 가능 */
+    public List<Media> media() {
+        return media;
+    }
+
+    public Media media(String kind) {
+        for (Media m : media) {
+            if (kind.equals(m.kind())) return m;
+        }
+        return null;
+    }
+
+    public String lineEnding() {
+        return eol;
+    }
+
+    public String serialize() {
+        StringBuilder sb = new StringBuilder(sizeHint + 64);
+        for (int i = 0, n = session.size(); i < n; i++) session.get(i).appendTo(sb, eol);
+        for (int i = 0, n = media.size(); i < n; i++) {
+            Media m = media.get(i);
+            m.mLine.appendTo(sb, eol);
+            for (int j = 0, k = m.lines.size(); j < k; j++) m.lines.get(j).appendTo(sb, eol);
+        }
+        if (!trailingEol && sb.length() >= eol.length()) sb.setLength(sb.length() - eol.length());
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return serialize();
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+
+    /** a=rtpmap:<pt> / fmtp:<pt> / rtcp-fb:<pt> 의 pt (없거나 '*' 면 -1) */
+    static int payloadType(Line l) {
+        String v = l.value;
+        int start = l.colon + 1;
+        int end = v.indexOf(' ', start);
+        return parseInt(v, start, end < 0 ? v.length() : end);
+    }
+
+    /** 음이 아닌 정수 (숫자가 아니면 -1, 할당 없음) */
+    static int parseInt(String s, int start, int end) {
+        if (start < 0 || end <= start || end - start > 9) return -1;
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    private static int nthTokenStart(String v, int n) {
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            int sp = v.indexOf(' ', start);
+            if (sp < 0) return -1;
+            start = sp + 1;
+        }
+        return start;
+    }
+
+    private static String token(String v, int n) {
+        int start = nthTokenStart(v, n);
+        if (start < 0) return null;
+        int end = v.indexOf(' ', start);
+        return v.substring(start, end < 0 ? v.length() : end);
+    }
+}
@@ -0,0 +1,150 @@
+package com.silmedy.videocall;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * offer/answer SDP 압축 인코딩 (calls/{roomId}/offer, answer)
+ * - deflate + WebRTC SDP 에 맞춘 preset dictionary + base64
+ *   → 자주 나오는 줄(extmap URI, rtcp-fb, fmtp 등)은 첫 등장부터 짧은 참조로 압축
+ * - 메시지: { enc: "<인코딩 id>", sdp: "<base64>" }
+ *   기존 형식(문자열 / {sdp: 평문})은 그대로 읽음, 모르는 enc 는 IllegalArgumentException
+ * - 사전을 바꾸면 새 인코딩 id 를 추가하고 기존 사전은 디코딩용으로 남길 것
+ */
+public final class SdpCompression {
+    public static final String FIELD_ENCODING = "enc";
+    public static final String FIELD_SDP = "sdp";
+    /** deflate + DICTIONARY_V1 + base64 */
+    public static final String DEFLATE_DICT_V1 = "deflate-dict-v1";
+
+    /**
+     * libwebrtc / Chrome SDP 에 반복되는 문자열
+     * deflate 는 가까운 참조가 더 짧으므로 가장 흔한 내용을 끝에 배치
+     */
+    private static final byte[] DICTIONARY_V1 = (
+            "a=extmap:13 urn:3gpp:video-orientation\r\n"
+            + "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\r\n"
+            + "a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n"
+            + "a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\r\n"
+            + "a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\r\n"
+            + "a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\r\n"
+            + "a=extmap:10 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id\r\n"
+            + "a=extmap:11 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id\r\n"
+            + "a=rtpmap:45 AV1/90000\r\na=fmtp:45 level-idx=5;profile=0;tier=0\r\n"
+            + "a=rtpmap:98 VP9/90000\r\na=fmtp:98 profile-id=0\r\na=fmtp:100 profile-id=2\r\n"
+            + "a=rtpmap:116 red/90000\r\na=rtpmap:118 ulpfec/90000\r\n"
+            + "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42001f\r\n"
+            + "a=fmtp:104 level-asymmetry-allowed=1;packetization-mode=0;profile-level-id=42e01f\r\n"
+            + "a=fmtp:127 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=4d001f\r\n"
+            + "a=fmtp:112 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=64001f\r\n"
+            + "m=application 9 UDP/DTLS/SCTP webrtc-datachannel\r\na=sctp-port:5000\r\na=max-message-size:262144\r\n"
+            + "a=rtpmap:9 G722/8000\r\na=rtpmap:0 PCMU/8000\r\na=rtpmap:8 PCMA/8000\r\na=rtpmap:13 CN/8000\r\n"
+            + "a=rtpmap:110 telephone-event/48000\r\na=rtpmap:126 telephone-event/8000\r\n"
+            + "a=rtpmap:63 red/48000/2\r\na=fmtp:63 111/111\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\na=rtcp-fb:111 transport-cc\r\n"
+            + "a=fmtp:111 minptime=10;useinbandfec=1;usedtx=1;stereo=0;sprop-stereo=0;maxaveragebitrate=\r\n"
+            + "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n"
+            + "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n"
+            + "v=0\r\no=- 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\na=group:BUNDLE 0 1 2\r\n"
+            + "a=extmap-allow-mixed\r\na=msid-semantic: WMS ARDAMS\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103 104 105 106 107 108 109 127 125 39 40 45 46 98 99 100 101 112 113 116 117 118\r\n"
+            + "c=IN IP4 0.0.0.0\r\na=rtcp:9 IN IP4 0.0.0.0\r\n"
+            + "a=candidate: 1 udp  typ host generation 0 network-id 1 network-cost 10\r\n"
+            + "a=candidate: 1 udp  typ srflx raddr  rport  generation 0 network-id 1 network-cost 10\r\n"
+            + "a=ice-options:trickle renomination\r\na=fingerprint:sha-256 \r\n"
+            + "a=setup:actpass\r\na=setup:active\r\na=mid:\r\na=sendrecv\r\na=msid:ARDAMS ARDAMSv0\r\n"
+            + "a=rtcp-mux\r\na=rtcp-rsize\r\n"
+            + "a=ssrc-group:FID \r\na=ssrc: cname:\r\na=ssrc: msid:\r\n"
+            + "a=rtpmap:96 VP8/90000\r\na=rtpmap:97 rtx/90000\r\na=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:102 H264/90000\r\n"
+            + "x-google-min-bitrate=;x-google-start-bitrate=\r\n"
+            + "a=rtcp-fb:96 goog-remb\r\na=rtcp-fb:96 transport-cc\r\n"
+            + "a=rtcp-fb:96 ccm fir\r\na=rtcp-fb:96 nack\r\na=rtcp-fb:96 nack pli\r\n"
+            + "a=ice-ufrag:\r\na=ice-pwd:\r\na=ice-options:trickle\r\n"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private SdpCompression() {}
+
+    /** 전송용 메시지 ({enc, sdp}) */
+    public static Map<String, Object> encode(String sdp) {
+        Map<String, Object> msg = new HashMap<>(4);
+        msg.put(FIELD_ENCODING, DEFLATE_DICT_V1);
+        msg.put(FIELD_SDP, compress(sdp));
+        return msg;
+    }
+
+    /**
+     * 수신 값 → SDP (평문 문자열, {sdp} 평문, {enc, sdp} 압축 모두 처리)
+     * @return 값이 없으면 null
+     */
+    public static String decode(Object raw) {
+        if (raw == null) return null;
+        if (raw instanceof String) return (String) raw;
+        if (!(raw instanceof Map)) throw new IllegalArgumentException("SDP 형식 아님: " + raw.getClass());
+        Map<?, ?> msg = (Map<?, ?>) raw;
+        Object sdp = msg.get(FIELD_SDP);
+        if (sdp == null) return null;
+        Object enc = msg.get(FIELD_ENCODING);
+        if (enc == null) return sdp.toString();
+        if (DEFLATE_DICT_V1.equals(enc)) return decompress(sdp.toString());
+        throw new IllegalArgumentException("지원하지 않는 SDP 인코딩: " + enc);
+    }
+
+    static String compress(String sdp) {
+        byte[] input = sdp.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 64);
+            byte[] buf = new byte[2048];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+            return Base64.getEncoder().encodeToString(out.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decompress(String payload) {
+        byte[] input;
+        try {
+            input = Base64.getDecoder().decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("base64 손상", e);
+        }
+        // raw deflate 는 사전 요청 신호가 없으므로 시작 전에 설정
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY_V1);
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buf = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0 && !inflater.finished()
+                        && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("압축 데이터 손상 (잘림)");
+                }
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("압축 데이터 손상", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
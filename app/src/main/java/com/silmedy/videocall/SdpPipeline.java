@@ -0,0 +1,150 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 로컬 SDP 변환 파이프라인 (createOffer/createAnswer 성공 → setLocalDescription 사이에 실행)
+ * - 변환 하나 = 작은 Transform, 통화 프로필(RtcConfigProfile 이름)마다 조합 선택
+ * - 로컬 SDP 의 fmtp 는 "상대가 나에게 보낼 때" 적용됨 → 양쪽이 모두 적용해야 대칭
+ * - 변환 중 예외가 나면 원본 SDP 그대로 사용 (통화 연결이 우선)
+ * - 값을 바꾸면 version 을 올릴 것 (통화 기록 sdp_pipeline 으로 구분)
+ */
+public final class SdpPipeline {
+    private static final String TAG = "SdpPipeline";
+
+    /** SDP 변환 하나 (Sdp 를 직접 수정) */
+    public interface Transform {
+        void apply(Sdp sdp);
+    }
+
+    public final String name;
+    public final int version;
+    private final List<Transform> transforms;
+
+    public SdpPipeline(String name, int version, Transform... transforms) {
+        this.name = name;
+        this.version = version;
+        this.transforms = Collections.unmodifiableList(Arrays.asList(transforms));
+    }
+
+    /** 통화 프로필별 조합 (모르는 이름은 BALANCED) */
+    public static SdpPipeline forProfile(String profile) {
+        if (RtcConfigProfile.LOW_BANDWIDTH.equals(profile)) {
+            // 저대역: 오디오 대역폭 최소화 (FEC 유지, DTX, 40ms 패킷으로 헤더 오버헤드 절반)
+            return new SdpPipeline(profile, 2,
+                    new OpusParams(true, true, 40, 16_000),
+                    new VideoBitrate(300));
+        }
+        if (RtcConfigProfile.LOW_LATENCY.equals(profile)) {
+            // 저지연: DTX 끔 (무음 후 첫 패킷 지연 방지), 빠른 초기 비트레이트
+            return new SdpPipeline(profile, 2,
+                    new OpusParams(true, false, 20, 32_000),
+                    new VideoBitrate(1_200));
+        }
+        String name = RtcConfigProfile.RELAY_ONLY.equals(profile) ? profile : RtcConfigProfile.BALANCED;
+        return new SdpPipeline(name, 2,
+                new OpusParams(true, true, 20, 24_000),
+                new VideoBitrate(800));
+    }
+
+    public List<Transform> transforms() {
+        return transforms;
+    }
+
+    /** 통화 기록용 식별자 */
+    public String id() {
+        return name + "@v" + version;
+    }
+
+    /** 변환 적용 (실패하면 원본 반환) */
+    public String apply(String sdp) {
+        if (transforms.isEmpty()) return sdp;
+        try {
+            Sdp parsed = Sdp.parse(sdp);
+            for (Transform t : transforms) t.apply(parsed);
+            return parsed.serialize();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "SDP 변환 실패 → 원본 사용 (" + id() + ")", e);
+            return sdp;
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────── 변환들
+
+    /**
+     * Opus 파라미터: in-band FEC, DTX, ptime, maxaveragebitrate, 모노 고정
+     * (진료 통화는 음성 위주 → stereo 는 대역폭 낭비)
+     */
+    public static final class OpusParams implements Transform {
+        final boolean fec;
+        final boolean dtx;
+        /** 패킷 길이 ms (0 이면 변경 안 함) */
+        final int ptimeMs;
+        /** 평균 비트레이트 상한 bps (0 이면 변경 안 함) */
+        final int maxAverageBitrate;
+
+        public OpusParams(boolean fec, boolean dtx, int ptimeMs, int maxAverageBitrate) {
+            this.fec = fec;
+            this.dtx = dtx;
+            this.ptimeMs = ptimeMs;
+            this.maxAverageBitrate = maxAverageBitrate;
+        }
+
+        @Override
+        public void apply(Sdp sdp) {
+            for (Sdp.Media m : sdp.media()) {
+                if (!"audio".equals(m.kind())) continue;
+                boolean hasOpus = false;
+                for (Sdp.Codec c : m.codecs()) {
+                    if (!"opus".equalsIgnoreCase(c.name())) continue;
+                    hasOpus = true;
+                    m.setFmtpParam(c, "useinbandfec", fec ? "1" : "0");
+                    m.setFmtpParam(c, "usedtx", dtx ? "1" : null);
+                    m.setFmtpParam(c, "stereo", "0");
+                    m.setFmtpParam(c, "sprop-stereo", "0");
+                    if (maxAverageBitrate > 0) {
+                        m.setFmtpParam(c, "maxaveragebitrate", String.valueOf(maxAverageBitrate));
+                    }
+                }
+                if (hasOpus && ptimeMs > 0) m.setAttribute("ptime", String.valueOf(ptimeMs));
+            }
+        }
+    }
+
+    /**
+     * 영상 초기 비트레이트 힌트 (x-google-start-bitrate, kbps)
+     * BWE 가 낮은 기본값(300kbps)부터 천천히 올라가는 구간을 줄임
+     * x-google-min-bitrate 는 넣지 않고 있으면 제거: GCC 최소값이 되어 추정치가 그 아래로 내려가지 않음
+     * → AdaptiveBitrateController 최하 단계 / AudioOnlyFallbackController 전환이 동작하지 않음
+     * rtx / red / ulpfec 같은 보조 payload 는 제외
+     */
+    public static final class VideoBitrate implements Transform {
+        private static final Set<String> AUXILIARY = new HashSet<>(
+                Arrays.asList("rtx", "red", "ulpfec", "flexfec-03"));
+
+        final int startKbps;
+
+        public VideoBitrate(int startKbps) {
+            this.startKbps = startKbps;
+        }
+
+        @Override
+        public void apply(Sdp sdp) {
+            for (Sdp.Media m : sdp.media()) {
+                if (!"video".equals(m.kind())) continue;
+                for (Sdp.Codec c : m.codecs()) {
+                    if (c.name() == null || AUXILIARY.contains(c.name().toLowerCase(Locale.US))) continue;
+                    m.setFmtpParam(c, "x-google-min-bitrate", null);
+                    if (startKbps > 0) m.setFmtpParam(c, "x-google-start-bitrate", String.valueOf(startKbps));
+                }
+            }
+        }
+    }
+}
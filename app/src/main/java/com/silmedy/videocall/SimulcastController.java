@@ -0,0 +1,257 @@
+package com.silmedy.videocall;
+
+import android.util.Log;
+
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.PeerConnection;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RtpCapabilities;
+import org.webrtc.RtpParameters;
+import org.webrtc.RtpSender;
+import org.webrtc.RtpTransceiver;
+import org.webrtc.VideoTrack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 송신 영상 다중 레이어 인코딩 (opt-in)
+ * - MODE_SIMULCAST: rid 별 해상도/비트레이트 레이어를 addTransceiver 로 추가
+ * - MODE_SVC: VP9/AV1 지원 시 단일 인코딩 + scalabilityMode
+ * - 측정된 송신 대역폭(AdaptiveBitrateController 결정)으로 상위 레이어 on/off
+ *   → 안 쓰는 레이어는 인코딩하지 않아 CPU 절약
+ * - 발열 상한(onLevelFloor)은 여기서 직접 적용: 허용 레이어 수 + 인코딩별 비트레이트/fps 상한
+ *   (이 모드의 AdaptiveBitrateController 는 송신기가 없어 상한을 적용할 수 없음)
+ */
+public class SimulcastController implements AdaptiveBitrateController.Listener {
+    private static final String TAG = "Simulcast";
+
+    public static final String MODE_OFF       = "off";
+    public static final String MODE_SIMULCAST = "simulcast";
+    public static final String MODE_SVC       = "svc";
+
+    static final String SVC_SCALABILITY_MODE = "L3T3_KEY";
+
+    /** 레이어 정의: 낮은 품질 → 높은 품질 순 */
+    static final Layer[] LAYERS = {
+            new Layer("q", 4.0,   150_000),
+            new Layer("h", 2.0,   500_000),
+            new Layer("f", 1.0, 1_500_000),
+    };
+
+    /** 레이어 활성/비활성 전환에 필요한 연속 샘플 수 */
+    static final int ENABLE_SAMPLES  = 3;
+    static final int DISABLE_SAMPLES = 2;
+
+    static final class Layer {
+        final String rid;
+        final double scaleDownBy;
+        final int maxBitrateBps;
+
+        Layer(String rid, double scaleDownBy, int maxBitrateBps) {
+            this.rid = rid;
+            this.scaleDownBy = scaleDownBy;
+            this.maxBitrateBps = maxBitrateBps;
+        }
+    }
+
+    private final String mode;
+    private RtpSender sender;
+    /** 실제로 rid 레이어가 적용됐는지 (SVC → simulcast 대체 포함) */
+    private boolean simulcast;
+    /** 대역폭 기준 활성 레이어 수 (실제 활성은 발열 상한 layerCap 과의 최솟값) */
+    private int activeLayers = LAYERS.length;
+    /** AdaptiveBitrateController 단계 하한 (0 = 제한 없음) */
+    private int levelFloor;
+    /** 영상 송신 일시 중지 중 (모든 레이어 비활성, 대역폭 결정 무시) */
+    private boolean paused;
+    private int enableCount;
+    private int disableCount;
+
+    public SimulcastController(String mode) {
+        this.mode = mode;
+    }
+
+    /** 테스트용: 송신기 없이 simulcast 레이어 결정만 수행 */
+    SimulcastController() {
+        this(MODE_SIMULCAST);
+        simulcast = true;
+    }
+
+    public String getMode() { return mode; }
+
+    /**
+     * 영상 트랙을 다중 레이어 transceiver 로 추가
+     * SVC 를 요청했지만 VP9/AV1 이 없으면 simulcast 로 대체
+     */
+    public RtpSender addVideoTrack(PeerConnection pc, PeerConnectionFactory factory,
+                                   VideoTrack track, List<String> streamIds) {
+        List<RtpParameters.Encoding> encodings;
+        if (MODE_SVC.equals(mode) && supportsSvc(factory)) {
+            RtpParameters.Encoding e = new RtpParameters.Encoding(null, true, 1.0);
+            e.scalabilityMode = SVC_SCALABILITY_MODE;
+            e.maxBitrateBps = LAYERS[LAYERS.length - 1].maxBitrateBps;
+            encodings = Collections.singletonList(e);
+            Log.d(TAG, "SVC " + SVC_SCALABILITY_MODE);
+        } else {
+            encodings = buildSimulcastEncodings();
+            simulcast = true;
+            Log.d(TAG, "Simulcast layers=" + LAYERS.length);
+        }
+        RtpTransceiver transceiver = pc.addTransceiver(track,
+                new RtpTransceiver.RtpTransceiverInit(
+                        RtpTransceiver.RtpTransceiverDirection.SEND_RECV,
+                        streamIds, encodings));
+        sender = transceiver.getSender();
+        return sender;
+    }
+
+    static List<RtpParameters.Encoding> buildSimulcastEncodings() {
+        List<RtpParameters.Encoding> list = new ArrayList<>();
+        for (Layer l : LAYERS) {
+            RtpParameters.Encoding e = new RtpParameters.Encoding(l.rid, true, l.scaleDownBy);
+            e.maxBitrateBps = l.maxBitrateBps;
+            list.add(e);
+        }
+        return list;
+    }
+
+    private static boolean supportsSvc(PeerConnectionFactory factory) {
+        RtpCapabilities caps = factory.getRtpSenderCapabilities(
+                MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO);
+        for (RtpCapabilities.CodecCapability c : caps.codecs) {
+            if ("VP9".equalsIgnoreCase(c.name) || "AV1".equalsIgnoreCase(c.name)) return true;
+        }
+        return false;
+    }
+
+    /** 대역폭 안에 들어가는 레이어 수 (최하위 레이어는 항상 유지) */
+    static int layersFor(long availableBps) {
+        long budget = (long) (availableBps * AdaptiveBitrateController.BANDWIDTH_HEADROOM);
+        int count = 0;
+        long sum = 0;
+        for (Layer l : LAYERS) {
+            sum += l.maxBitrateBps;
+            if (sum > budget) break;
+            count++;
+        }
+        return Math.max(1, count);
+    }
+
+    /** 발열 단계 하한에서 허용하는 레이어 수: 레이어 비트레이트가 그 단계 상한 이하인 것만 (최하위는 유지) */
+    static int layerCapFor(int levelFloor) {
+        int bps = AdaptiveBitrateController.LADDER[levelFloor].maxBitrateBps;
+        int count = 0;
+        for (Layer l : LAYERS) {
+            if (l.maxBitrateBps <= bps) count++;
+        }
+        return Math.max(1, count);
+    }
+
+    public int getActiveLayers() { return activeLayers; }
+
+    /** 발열 상한까지 반영한 실제 활성 레이어 수 */
+    int getEffectiveLayers() {
+        return Math.min(activeLayers, simulcast ? layerCapFor(levelFloor) : 1);
+    }
+
+    @Override
+    public void onDecision(AdaptiveBitrateController.Decision decision) {
+        // 발열 결정은 측정 샘플이 아님 → 레이어 히스테리시스에 넣지 않음 (상한은 onLevelFloor 로 적용)
+        if (AdaptiveBitrateController.REASON_THERMAL.equals(decision.reason)) return;
+        if (!simulcast || paused) return;
+        int target = layersFor(decision.availableBitrateBps);
+        if (target > activeLayers) {
+            disableCount = 0;
+            if (++enableCount < ENABLE_SAMPLES) return;
+            target = activeLayers + 1;
+        } else if (target < activeLayers) {
+            enableCount = 0;
+            if (++disableCount < DISABLE_SAMPLES) return;
+        } else {
+            enableCount = 0;
+            disableCount = 0;
+            return;
+        }
+        enableCount = 0;
+        disableCount = 0;
+        setActiveLayers(target);
+    }
+
+    /** 발열 상한 변경 (simulcast / SVC 모두 적용) */
+    @Override
+    public void onLevelFloor(int floor) {
+        if (floor == levelFloor) return;
+        Log.d(TAG, "🌡️ level floor " + levelFloor + " → " + floor
+                + (simulcast ? " (max layers " + layerCapFor(floor) + ")" : ""));
+        levelFloor = floor;
+        if (sender == null) return;
+        RtpParameters params = sender.getParameters();
+        applyEncodings(params.encodings, activeLayers, paused, floor);
+        if (!sender.setParameters(params)) Log.w(TAG, "setParameters 실패 (floor=" + floor + ")");
+    }
+
+    /** 영상 송신 중지/재개. 재개 시 직전 활성 레이어 수 복원 */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (sender == null) return;
+        RtpParameters params = sender.getParameters();
+        applyEncodings(params.encodings, activeLayers, paused, levelFloor);
+        sender.setParameters(params);
+    }
+
+    private void setActiveLayers(int count) {
+        if (sender == null) {
+            activeLayers = count;
+            return;
+        }
+        RtpParameters params = sender.getParameters();
+        applyEncodings(params.encodings, count, false, levelFloor);
+        if (sender.setParameters(params)) {
+            Log.d(TAG, "🎚 active layers " + activeLayers + " → " + count);
+            activeLayers = count;
+        } else {
+            Log.w(TAG, "setParameters 실패 (layers=" + count + ")");
+        }
+    }
+
+    /** 활성 레이어 + 발열 상한을 인코딩에 반영 */
+    static void applyEncodings(List<RtpParameters.Encoding> encodings, int count, boolean paused,
+                               int levelFloor) {
+        applyActive(encodings, Math.min(count, layerCapFor(levelFloor)), paused);
+        applyFloor(encodings, levelFloor);
+    }
+
+    /**
+     * 발열 상한 → 인코딩별 maxBitrateBps / maxFramerate
+     * 레이어 기본 비트레이트와 단계 상한 중 작은 값 (rid 없는 SVC 인코딩은 최상위 레이어 기준)
+     */
+    static void applyFloor(List<RtpParameters.Encoding> encodings, int levelFloor) {
+        AdaptiveBitrateController.Level cap = AdaptiveBitrateController.LADDER[levelFloor];
+        for (RtpParameters.Encoding e : encodings) {
+            int idx = indexOf(e.rid);
+            Layer l = LAYERS[idx < 0 ? LAYERS.length - 1 : idx];
+            e.maxBitrateBps = Math.min(l.maxBitrateBps, cap.maxBitrateBps);
+            e.maxFramerate = cap.maxFramerate;
+        }
+    }
+
+    /**
+     * 활성 레이어 수 → 인코딩별 active
+     * 하위 count 개 rid 만 켜고, 일시 중지면 전부 끔 (rid 없는 단일/SVC 인코딩은 중지 여부만 따름)
+     */
+    static void applyActive(List<RtpParameters.Encoding> encodings, int count, boolean paused) {
+        for (RtpParameters.Encoding e : encodings) {
+            int idx = indexOf(e.rid);
+            e.active = !paused && (idx < 0 || idx < count);
+        }
+    }
+
+    private static int indexOf(String rid) {
+        for (int i = 0; i < LAYERS.length; i++) {
+            if (LAYERS[i].rid.equals(rid)) return i;
+        }
+        return -1;
+    }
+}
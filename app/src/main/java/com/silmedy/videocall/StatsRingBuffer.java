@@ -0,0 +1,169 @@
+package com.silmedy.videocall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 통화 품질 샘플 고정 크기 링 버퍼
+ * - 수치 지표는 지표별 double[] 열, 범주형 지표는 int 코드 열로 저장
+ * - RTCStatsReport 객체를 보관하지 않아 GC 부담 없음
+ * - 최근 N ms 구간의 p50/p95/max/평균 조회
+ */
+public class StatsRingBuffer {
+    // ── 수치 지표 ──
+    /** 음성 + 영상 합계 (RTP 페이로드) */
+    public static final int OUT_BITRATE_BPS       = 0;
+    public static final int IN_BITRATE_BPS        = 1;
+    public static final int OUT_FPS               = 2;
+    public static final int IN_FPS                = 3;
+    public static final int OUT_FRAME_WIDTH       = 4;
+    public static final int OUT_FRAME_HEIGHT      = 5;
+    public static final int IN_FRAME_WIDTH        = 6;
+    public static final int IN_FRAME_HEIGHT       = 7;
+    public static final int JITTER_MS             = 8;
+    public static final int IN_LOSS_FRACTION      = 9;
+    public static final int REMOTE_LOSS_FRACTION  = 10;
+    public static final int RTT_MS                = 11;
+    public static final int AVAILABLE_OUT_BPS     = 12;
+    /** 영상 outbound-rtp / inbound-rtp 만 */
+    public static final int OUT_VIDEO_BITRATE_BPS = 13;
+    public static final int IN_VIDEO_BITRATE_BPS  = 14;
+    public static final int METRIC_COUNT          = 15;
+
+    // ── 범주형 지표 ──
+    public static final int CANDIDATE_TYPE        = 0;
+    public static final int ENCODER_IMPL          = 1;
+    public static final int DECODER_IMPL          = 2;
+    public static final int QUALITY_LIMITATION    = 3;
+    public static final int CATEGORY_COUNT        = 4;
+
+    /** 값이 없는 경우 (집계에서 제외) */
+    public static final double MISSING = Double.NaN;
+
+    /** 구간 집계 결과 */
+    public static final class Aggregate {
+        public final int count;
+        public final double p50;
+        public final double p95;
+        public final double max;
+        public final double mean;
+
+        Aggregate(int count, double p50, double p95, double max, double mean) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        @Override public String toString() {
+            return "n=" + count + " p50=" + p50 + " p95=" + p95 + " max=" + max;
+        }
+    }
+
+    private final int capacity;
+    private final long[] timestamps;
+    private final double[][] metrics;
+    private final int[][] categories;
+    private final double[] scratch;
+    /** 범주 문자열 ↔ 코드 (통화당 종류가 몇 개뿐이라 선형 탐색) */
+    private final List<String> symbols = new ArrayList<>();
+    private int head;   // 다음 기록 위치
+    private int size;
+
+    public StatsRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.metrics = new double[METRIC_COUNT][capacity];
+        this.categories = new int[CATEGORY_COUNT][capacity];
+        this.scratch = new double[capacity];
+    }
+
+    public synchronized int size() { return size; }
+
+    /**
+     * 샘플 한 건 기록
+     * @param values     METRIC_COUNT 길이, 없는 값은 MISSING
+     * @param categories CATEGORY_COUNT 길이, 없는 값은 null
+     */
+    public synchronized void append(long timestampMs, double[] values, String[] categoryValues) {
+        timestamps[head] = timestampMs;
+        for (int m = 0; m < METRIC_COUNT; m++) {
+            metrics[m][head] = values[m];
+        }
+        for (int c = 0; c < CATEGORY_COUNT; c++) {
+            categories[c][head] = intern(categoryValues[c]);
+        }
+        head = (head + 1) % capacity;
+        if (size < capacity) size++;
+    }
+
+    private int intern(String value) {
+        if (value == null) return -1;
+        int idx = symbols.indexOf(value);
+        if (idx >= 0) return idx;
+        symbols.add(value);
+        return symbols.size() - 1;
+    }
+
+    /** 가장 최근 샘플의 범주 값 */
+    public synchronized String latestCategory(int category) {
+        if (size == 0) return null;
+        int code = categories[category][(head - 1 + capacity) % capacity];
+        return code >= 0 ? symbols.get(code) : null;
+    }
+
+    /** 가장 최근 샘플의 수치 값 */
+    public synchronized double latest(int metric) {
+        if (size == 0) return MISSING;
+        return metrics[metric][(head - 1 + capacity) % capacity];
+    }
+
+    /** 오래된 순으로 타임스탬프 복사, 복사한 개수 반환 */
+    public synchronized int copyTimestamps(long[] out) {
+        int n = Math.min(size, out.length);
+        int oldest = (head - size + capacity) % capacity;
+        for (int i = 0; i < n; i++) {
+            out[i] = timestamps[(oldest + i) % capacity];
+        }
+        return n;
+    }
+
+    /** 오래된 순으로 지표 값 복사, 복사한 개수 반환 */
+    public synchronized int copy(int metric, double[] out) {
+        int n = Math.min(size, out.length);
+        int oldest = (head - size + capacity) % capacity;
+        for (int i = 0; i < n; i++) {
+            out[i] = metrics[metric][(oldest + i) % capacity];
+        }
+        return n;
+    }
+
+    /** 최근 windowMs 구간 집계 (값 없으면 count=0) */
+    public synchronized Aggregate aggregate(int metric, long windowMs) {
+        if (size == 0) return new Aggregate(0, MISSING, MISSING, MISSING, MISSING);
+        int newest = (head - 1 + capacity) % capacity;
+        long from = timestamps[newest] - windowMs;
+        int n = 0;
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            int idx = (newest - i + capacity) % capacity;
+            if (timestamps[idx] < from) break;
+            double v = metrics[metric][idx];
+            if (Double.isNaN(v)) continue;
+            scratch[n++] = v;
+            sum += v;
+        }
+        if (n == 0) return new Aggregate(0, MISSING, MISSING, MISSING, MISSING);
+        Arrays.sort(scratch, 0, n);
+        return new Aggregate(n, percentile(n, 0.50), percentile(n, 0.95),
+                scratch[n - 1], sum / n);
+    }
+
+    /** 정렬된 scratch[0..n) 의 nearest-rank 백분위 */
+    private double percentile(int n, double p) {
+        int rank = (int) Math.ceil(p * n) - 1;
+        return scratch[Math.max(0, Math.min(n - 1, rank))];
+    }
+}
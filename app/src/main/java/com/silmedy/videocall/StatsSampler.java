@@ -0,0 +1,234 @@
+package com.silmedy.videocall;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.webrtc.PeerConnection;
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * 주기적 getStats 샘플러
+ * - 핵심 지표만 뽑아 StatsRingBuffer 에 기록 (리포트 객체는 보관하지 않음)
+ * - 누적 카운터(bytes/packets)는 직전 값과의 차이로 비트레이트/손실률 계산
+ * - Listener 로 매 샘플 전달 (AdaptiveBitrateController 등)
+ * - getStats 호출, 리포트 처리, Listener 호출은 모두 delivery(통화 스레드)에서
+ *   → Listener 가 RtpSender 를 바꿔도 다른 통화 작업과 겹치지 않음
+ * - stop 이후 도착한 getStats 콜백은 버림 (dispose 된 PeerConnection / RtpSender 접근 방지)
+ */
+public class StatsSampler {
+    private static final String TAG = "StatsSampler";
+
+    public static final long DEFAULT_INTERVAL_MS = 1_000L;
+    /** 링 버퍼 크기: 기본 주기 기준 약 10분 */
+    public static final int  DEFAULT_CAPACITY    = 600;
+
+    /**
+     * 한 번의 샘플 (객체 재사용 → 콜백 안에서만 유효, 필요하면 값을 복사)
+     */
+    public static final class Sample {
+        public long timestampMs;
+        public final double[] values = new double[StatsRingBuffer.METRIC_COUNT];
+        public final String[] categories = new String[StatsRingBuffer.CATEGORY_COUNT];
+
+        public double get(int metric) { return values[metric]; }
+    }
+
+    public interface Listener {
+        void onSample(Sample sample);
+    }
+
+    private final PeerConnection peerConnection;
+    private final Executor delivery;
+    private final long intervalMs;
+    private final StatsRingBuffer history;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Sample sample = new Sample();
+    private Handler handler;
+    private volatile boolean running;
+
+    // 증분 계산용 직전 누적값
+    private long prevTimestampUs = -1;
+    private double prevBytesSent;
+    private double prevBytesReceived;
+    private double prevVideoBytesSent;
+    private double prevVideoBytesReceived;
+    private double prevPacketsLost;
+    private double prevPacketsReceived;
+
+    /**
+     * @param delivery getStats 요청 / 샘플 처리 / Listener 호출 스레드 (CallExecutor)
+     */
+    public StatsSampler(PeerConnection peerConnection, Executor delivery) {
+        this(peerConnection, delivery, DEFAULT_INTERVAL_MS, DEFAULT_CAPACITY);
+    }
+
+    public StatsSampler(PeerConnection peerConnection, Executor delivery, long intervalMs, int capacity) {
+        this.peerConnection = peerConnection;
+        this.delivery = delivery;
+        this.intervalMs = intervalMs;
+        this.history = new StatsRingBuffer(capacity);
+    }
+
+    public StatsRingBuffer getHistory() { return history; }
+    public long getIntervalMs()         { return intervalMs; }
+
+    public void addListener(Listener l)    { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    /** 최근 windowMs 구간 집계 */
+    public StatsRingBuffer.Aggregate query(int metric, long windowMs) {
+        return history.aggregate(metric, windowMs);
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        if (handler == null) handler = new Handler(Looper.getMainLooper());
+        handler.post(poll);
+        Log.d(TAG, "▶ start interval=" + intervalMs + "ms");
+    }
+
+    /** 이후 getStats 요청 중지, 이미 요청한 결과가 도착해도 Listener 에 전달하지 않음 */
+    public void stop() {
+        running = false;
+        if (handler != null) handler.removeCallbacks(poll);
+    }
+
+    private final Runnable poll = new Runnable() {
+        @Override public void run() {
+            if (!running) return;
+            delivery.execute(() -> {
+                if (running) peerConnection.getStats(StatsSampler.this::onStatsDelivered);
+            });
+            handler.postDelayed(this, intervalMs);
+        }
+    };
+
+    /** WebRTC 시그널링 스레드 → delivery 로 전달 */
+    private void onStatsDelivered(RTCStatsReport report) {
+        if (!running) return;
+        delivery.execute(() -> {
+            if (running) onStats(report);
+        });
+    }
+
+    private synchronized void onStats(RTCStatsReport report) {
+        Map<String, RTCStats> map = report.getStatsMap();
+        double[] v = sample.values;
+        String[] c = sample.categories;
+        Arrays.fill(v, StatsRingBuffer.MISSING);
+        Arrays.fill(c, null);
+
+        double bytesSent = 0, bytesReceived = 0, packetsLost = 0, packetsReceived = 0;
+        double videoBytesSent = 0, videoBytesReceived = 0;
+        String selectedPairId = null;
+
+        for (RTCStats s : map.values()) {
+            Map<String, Object> m = s.getMembers();
+            switch (s.getType()) {
+                case "outbound-rtp":
+                    bytesSent += num(m.get("bytesSent"), 0);
+                    if ("video".equals(m.get("kind"))) {
+                        // simulcast 면 레이어(rid)별로 하나씩
+                        videoBytesSent += num(m.get("bytesSent"), 0);
+                        v[StatsRingBuffer.OUT_FPS] = num(m.get("framesPerSecond"), StatsRingBuffer.MISSING);
+                        v[StatsRingBuffer.OUT_FRAME_WIDTH] = num(m.get("frameWidth"), StatsRingBuffer.MISSING);
+                        v[StatsRingBuffer.OUT_FRAME_HEIGHT] = num(m.get("frameHeight"), StatsRingBuffer.MISSING);
+                        c[StatsRingBuffer.ENCODER_IMPL] = str(m.get("encoderImplementation"));
+                        c[StatsRingBuffer.QUALITY_LIMITATION] = str(m.get("qualityLimitationReason"));
+                    }
+                    break;
+                case "inbound-rtp":
+                    bytesReceived += num(m.get("bytesReceived"), 0);
+                    packetsLost += num(m.get("packetsLost"), 0);
+                    packetsReceived += num(m.get("packetsReceived"), 0);
+                    if ("video".equals(m.get("kind"))) {
+                        videoBytesReceived += num(m.get("bytesReceived"), 0);
+                        v[StatsRingBuffer.IN_FPS] = num(m.get("framesPerSecond"), StatsRingBuffer.MISSING);
+                        v[StatsRingBuffer.IN_FRAME_WIDTH] = num(m.get("frameWidth"), StatsRingBuffer.MISSING);
+                        v[StatsRingBuffer.IN_FRAME_HEIGHT] = num(m.get("frameHeight"), StatsRingBuffer.MISSING);
+                        v[StatsRingBuffer.JITTER_MS] = num(m.get("jitter"), StatsRingBuffer.MISSING) * 1000;
+                        c[StatsRingBuffer.DECODER_IMPL] = str(m.get("decoderImplementation"));
+                    }
+                    break;
+                case "remote-inbound-rtp":
+                    if ("video".equals(m.get("kind"))) {
+                        v[StatsRingBuffer.REMOTE_LOSS_FRACTION] = num(m.get("fractionLost"), StatsRingBuffer.MISSING);
+                    }
+                    break;
+                case "transport":
+                    selectedPairId = str(m.get("selectedCandidatePairId"));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        RTCStats pair = selectedPairId != null ? map.get(selectedPairId) : null;
+        if (pair == null) pair = findNominatedPair(map);
+        if (pair != null) {
+            Map<String, Object> m = pair.getMembers();
+            v[StatsRingBuffer.AVAILABLE_OUT_BPS] = num(m.get("availableOutgoingBitrate"), StatsRingBuffer.MISSING);
+            v[StatsRingBuffer.RTT_MS] = num(m.get("currentRoundTripTime"), StatsRingBuffer.MISSING) * 1000;
+            RTCStats local = map.get(str(m.get("localCandidateId")));
+            if (local != null) {
+                c[StatsRingBuffer.CANDIDATE_TYPE] = str(local.getMembers().get("candidateType"));
+            }
+        }
+
+        long ts = (long) report.getTimestampUs();
+        if (prevTimestampUs > 0 && ts > prevTimestampUs) {
+            double seconds = (ts - prevTimestampUs) / 1_000_000.0;
+            v[StatsRingBuffer.OUT_BITRATE_BPS] = Math.max(0, bytesSent - prevBytesSent) * 8 / seconds;
+            v[StatsRingBuffer.IN_BITRATE_BPS] = Math.max(0, bytesReceived - prevBytesReceived) * 8 / seconds;
+            v[StatsRingBuffer.OUT_VIDEO_BITRATE_BPS] =
+                    Math.max(0, videoBytesSent - prevVideoBytesSent) * 8 / seconds;
+            v[StatsRingBuffer.IN_VIDEO_BITRATE_BPS] =
+                    Math.max(0, videoBytesReceived - prevVideoBytesReceived) * 8 / seconds;
+            double lost = packetsLost - prevPacketsLost;
+            double expected = lost + (packetsReceived - prevPacketsReceived);
+            if (expected > 0) {
+                v[StatsRingBuffer.IN_LOSS_FRACTION] = Math.max(0, lost) / expected;
+            }
+        }
+        prevTimestampUs = ts;
+        prevBytesSent = bytesSent;
+        prevBytesReceived = bytesReceived;
+        prevVideoBytesSent = videoBytesSent;
+        prevVideoBytesReceived = videoBytesReceived;
+        prevPacketsLost = packetsLost;
+        prevPacketsReceived = packetsReceived;
+
+        sample.timestampMs = ts / 1000;
+        history.append(sample.timestampMs, v, c);
+        for (Listener l : listeners) l.onSample(sample);
+    }
+
+    private static RTCStats findNominatedPair(Map<String, RTCStats> map) {
+        for (RTCStats s : map.values()) {
+            if ("candidate-pair".equals(s.getType())
+                    && Boolean.TRUE.equals(s.getMembers().get("nominated"))
+                    && "succeeded".equals(s.getMembers().get("state"))) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /** RTCStats 값은 Integer/Long/Double/BigInteger 가 섞여 있어 Number 로 통일 */
+    private static double num(Object o, double fallback) {
+        return o instanceof Number ? ((Number) o).doubleValue() : fallback;
+    }
+
+    private static String str(Object o) {
+        return o != null ? o.toString() : null;
+    }
+}
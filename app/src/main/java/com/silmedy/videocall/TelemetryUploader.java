@@ -0,0 +1,214 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 통화 품질 기록 업로더
+ * - 통화 기록(JSON)을 앱 저장소에 파일로 쌓아 두고
+ * - 통화 종료 후 또는 비종량제(Wi-Fi 등) 네트워크 연결 시 gzip 배치로 전송
+ * - 디스크 사용량은 maxDiskBytes 이하로 유지 (오래된 기록부터 삭제)
+ */
+public class TelemetryUploader {
+    private static final String TAG = "TelemetryUploader";
+
+    static final String ENDPOINT        = "http://3.36.62.211:5000/api/v1/telemetry/calls";
+    static final long   MAX_DISK_BYTES  = 1024 * 1024;
+    static final long   MAX_BATCH_BYTES = 256 * 1024;
+
+    private static final String PREFS     = "SilmedyPrefs";
+    private static final String KEY_TOKEN = "access_token";
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    /** 인증 토큰 제공 (없으면 null) */
+    interface TokenProvider {
+        String token();
+    }
+
+    private static TelemetryUploader instance;
+
+    private final File dir;
+    private final OkHttpClient client;
+    private final String endpoint;
+    private final long maxDiskBytes;
+    private final TokenProvider tokens;
+    private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private int sequence;
+
+    TelemetryUploader(File dir, OkHttpClient client, String endpoint,
+                      long maxDiskBytes, TokenProvider tokens) {
+        this.dir = dir;
+        this.client = client;
+        this.endpoint = endpoint;
+        this.maxDiskBytes = maxDiskBytes;
+        this.tokens = tokens;
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.w(TAG, "디렉터리 생성 실패: " + dir);
+        }
+    }
+
+    public static synchronized TelemetryUploader get(Context ctx) {
+        if (instance == null) {
+            Context app = ctx.getApplicationContext();
+            instance = new TelemetryUploader(
+                    new File(app.getFilesDir(), "telemetry"),
+                    new OkHttpClient(), ENDPOINT, MAX_DISK_BYTES,
+                    () -> app.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                            .getString(KEY_TOKEN, null));
+            instance.flushOnUnmeteredNetwork(app);
+        }
+        return instance;
+    }
+
+    /** 통화 종료 시: 기록 저장 후 바로 전송 시도 */
+    public void submit(String json) {
+        if (json == null) return;
+        io.execute(() -> {
+            writeRecord(json);
+            uploadPending();
+        });
+    }
+
+    public void flush() {
+        io.execute(this::uploadPending);
+    }
+
+    /** 비종량제 네트워크가 잡힐 때마다 남은 기록 전송 */
+    private void flushOnUnmeteredNetwork(Context ctx) {
+        ConnectivityManager cm = ctx.getSystemService(ConnectivityManager.class);
+        if (cm == null) return;
+        NetworkRequest req = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED)
+                .build();
+        cm.registerNetworkCallback(req, new ConnectivityManager.NetworkCallback() {
+            @Override public void onAvailable(Network network) {
+                flush();
+            }
+        });
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 아래는 io 스레드(또는 테스트)에서 동기 호출
+    // ────────────────────────────────────────────────────────────────────────────
+
+    synchronized void writeRecord(String json) {
+        String name = String.format(Locale.US, "%013d-%04d.json",
+                System.currentTimeMillis(), sequence++ % 10_000);
+        try (OutputStream out = new FileOutputStream(new File(dir, name))) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.e(TAG, "기록 저장 실패", e);
+        }
+        evictOldest();
+    }
+
+    /** 파일 이름 = 생성 시각 → 이름순 정렬이 곧 오래된 순 */
+    private File[] pendingFiles() {
+        File[] files = dir.listFiles((d, n) -> n.endsWith(".json"));
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void evictOldest() {
+        File[] files = pendingFiles();
+        long total = 0;
+        for (File f : files) total += f.length();
+        for (int i = 0; i < files.length && total > maxDiskBytes; i++) {
+            total -= files[i].length();
+            Log.w(TAG, "디스크 한도 초과 → 삭제: " + files[i].getName());
+            if (!files[i].delete()) Log.w(TAG, "삭제 실패: " + files[i]);
+        }
+    }
+
+    /**
+     * 남은 기록을 배치 단위로 전송, 성공한 배치는 삭제
+     * @return 모두 전송했으면 true
+     */
+    synchronized boolean uploadPending() {
+        File[] files = pendingFiles();
+        int i = 0;
+        while (i < files.length) {
+            List<File> batch = new ArrayList<>();
+            long bytes = 0;
+            while (i < files.length && (batch.isEmpty() || bytes + files[i].length() <= MAX_BATCH_BYTES)) {
+                bytes += files[i].length();
+                batch.add(files[i++]);
+            }
+            if (!send(batch)) return false;
+            for (File f : batch) {
+                if (!f.delete()) Log.w(TAG, "삭제 실패: " + f);
+            }
+        }
+        return true;
+    }
+
+    private boolean send(List<File> batch) {
+        byte[] body;
+        try {
+            body = gzipArray(batch);
+        } catch (IOException e) {
+            Log.e(TAG, "배치 압축 실패", e);
+            return false;
+        }
+        Request.Builder rb = new Request.Builder()
+                .url(endpoint)
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(body, JSON));
+        String token = tokens != null ? tokens.token() : null;
+        if (token != null) rb.header("Authorization", "Bearer " + token);
+
+        try (Response res = client.newCall(rb.build()).execute()) {
+            Log.d(TAG, "📤 batch " + batch.size() + "건, " + body.length + "B → " + res.code());
+            return res.isSuccessful();
+        } catch (IOException e) {
+            Log.w(TAG, "전송 실패 (다음 기회에 재시도)", e);
+            return false;
+        }
+    }
+
+    /** 각 파일 JSON 을 배열로 묶어 gzip */
+    static byte[] gzipArray(List<File> files) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (GZIPOutputStream gz = new GZIPOutputStream(buf)) {
+            gz.write('[');
+            byte[] chunk = new byte[8192];
+            for (int i = 0; i < files.size(); i++) {
+                if (i > 0) gz.write(',');
+                try (InputStream in = new FileInputStream(files.get(i))) {
+                    int n;
+                    while ((n = in.read(chunk)) > 0) gz.write(chunk, 0, n);
+                }
+            }
+            gz.write(']');
+        }
+        return buf.toByteArray();
+    }
+}
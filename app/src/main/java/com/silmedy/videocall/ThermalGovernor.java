@@ -0,0 +1,298 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 발열 / CPU 부하에 따른 캡처·인코딩 단계 조절
+ * - PowerManager 발열 상태(API 29+)와 프로세스 CPU 사용률(/proc/self/stat)을 SAMPLE_INTERVAL_MS 마다 확인
+ *   (사용률은 전체 코어가 아니라 CPU_CORE_BUDGET 코어 기준: 통화는 인코딩/디코딩 몇 개 스레드가 대부분이라
+ *    8코어 기준으로 나누면 과부하여도 임계값에 닿지 않음)
+ * - 발열 단계는 즉시 해당 단계 이하로 내림, CPU 과부하는 DOWN_SAMPLES 연속일 때 한 단계씩 내림
+ * - 발열이 풀리고 CPU 가 CPU_LOW 미만으로 UP_HOLD_MS 유지되면 한 단계씩 올림 (식는 데 시간이 걸림)
+ *   (CPU 를 읽을 수 없는 기기는 발열 상태만으로 판단)
+ * - 단계 = 캡처 해상도/fps + 인코더 비트레이트 상한(AdaptiveBitrateController 단계 하한)
+ * - 단계 변경과 사유는 Callback 으로 전달 (통화 기록 이벤트), 종료 시 집계 기록
+ */
+public class ThermalGovernor {
+    private static final String TAG = "ThermalGovernor";
+
+    static final long   SAMPLE_INTERVAL_MS = 5_000;
+    /** 통화에 허용하는 코어 수 (사용률 분모, 기기 코어 수가 더 적으면 그 값) */
+    static final int    CPU_CORE_BUDGET = 2;
+    /** CPU_CORE_BUDGET 대비 이 앱 프로세스 사용률 */
+    static final double CPU_HIGH     = 0.60;
+    static final double CPU_LOW      = 0.35;
+    static final int    DOWN_SAMPLES = 2;
+    static final long   UP_HOLD_MS   = 30_000;
+
+    // PowerManager.THERMAL_STATUS_* 와 같은 값 (API 29 미만에서도 비교용)
+    static final int THERMAL_NONE     = 0;
+    static final int THERMAL_LIGHT    = 1;
+    static final int THERMAL_MODERATE = 2;
+    static final int THERMAL_SEVERE   = 3;
+    static final int THERMAL_CRITICAL = 4;
+
+    /** 단계: 0 이 최고 품질 (initLocalMedia 기본 캡처값) */
+    static final Step[] LADDER = {
+            new Step(640, 480, 30, 0),
+            new Step(640, 480, 24, 1),
+            new Step(640, 480, 15, 2),
+            new Step(320, 240, 15, 3),
+            new Step(320, 240, 10, 4),
+    };
+
+    static final class Step {
+        final int width;
+        final int height;
+        final int fps;
+        /** AdaptiveBitrateController.LADDER 에서 허용하는 가장 좋은 단계 */
+        final int bitrateLevelFloor;
+
+        Step(int width, int height, int fps, int bitrateLevelFloor) {
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+            this.bitrateLevelFloor = bitrateLevelFloor;
+        }
+
+        @Override public String toString() {
+            return width + "x" + height + "@" + fps + " abr>=" + bitrateLevelFloor;
+        }
+    }
+
+    public interface Callback {
+        /** 단계 변경 (캡처 포맷 + 비트레이트 상한 적용) */
+        void onStep(int from, int to, Step step, String reason);
+    }
+
+    private final PowerManager power;
+    private final Callback callback;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable tick = this::tick;
+    private Object thermalListener;
+    private boolean running;
+
+    private int step;
+    private int highSamples;
+    /** CPU 여유 + 발열 해소가 처음 확인된 시각 (-1 = 미충족) */
+    private long coolSinceMs = -1;
+
+    // CPU 사용률 계산용 직전 값
+    private final long clockTicksPerSec;
+    private final int cores;
+    private long lastTicks = -1;
+    private long lastWallMs;
+
+    // 집계
+    private int steps;
+    private int maxStep;
+    private int maxThermal;
+    private int cpuSamples;
+    private double cpuSum;
+    private double cpuMax;
+
+    public ThermalGovernor(Context ctx, Callback callback) {
+        this(ctx.getSystemService(PowerManager.class), callback, clockTicks(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    ThermalGovernor(PowerManager power, Callback callback, long clockTicksPerSec, int cores) {
+        this.power = power;
+        this.callback = callback;
+        this.clockTicksPerSec = clockTicksPerSec;
+        this.cores = Math.max(1, cores);
+    }
+
+    public void start() {
+        synchronized (this) {
+            if (running) return;
+            running = true;
+        }
+        if (power != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // 발열 상태가 바뀌면 주기를 기다리지 않고 바로 평가
+            PowerManager.OnThermalStatusChangedListener l = status -> {
+                handler.removeCallbacks(tick);
+                tick();
+            };
+            power.addThermalStatusListener(l);
+            thermalListener = l;
+        }
+        handler.postDelayed(tick, SAMPLE_INTERVAL_MS);
+        Log.d(TAG, "▶ start cores=" + cores);
+    }
+
+    public synchronized int getStep() {
+        return step;
+    }
+
+    private void tick() {
+        synchronized (this) {
+            if (!running) return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        onReading(now, thermalStatus(), sampleCpu(now));
+        handler.postDelayed(tick, SAMPLE_INTERVAL_MS);
+    }
+
+    private int thermalStatus() {
+        if (power == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) return THERMAL_NONE;
+        return power.getCurrentThermalStatus();
+    }
+
+    /** 직전 측정 이후 프로세스 CPU 사용률 (첫 측정 / 읽기 실패면 NaN) */
+    private double sampleCpu(long nowMs) {
+        long ticks;
+        try (FileInputStream in = new FileInputStream("/proc/self/stat")) {
+            byte[] buf = new byte[1024];
+            int n = in.read(buf);
+            ticks = n > 0 ? parseCpuTicks(new String(buf, 0, n, StandardCharsets.US_ASCII)) : -1;
+        } catch (IOException e) {
+            ticks = -1;
+        }
+        double cpu = Double.NaN;
+        if (ticks >= 0 && lastTicks >= 0) {
+            cpu = cpuFraction(ticks - lastTicks, clockTicksPerSec, nowMs - lastWallMs, cores);
+        }
+        lastTicks = ticks;
+        lastWallMs = nowMs;
+        return cpu;
+    }
+
+    /** 측정값 하나 평가 후 필요 시 단계 변경 */
+    void onReading(long nowMs, int thermalStatus, double cpu) {
+        int from, to;
+        String reason;
+        synchronized (this) {
+            maxThermal = Math.max(maxThermal, thermalStatus);
+            if (!Double.isNaN(cpu)) {
+                cpuSamples++;
+                cpuSum += cpu;
+                cpuMax = Math.max(cpuMax, cpu);
+            }
+
+            int floor = thermalFloor(thermalStatus);
+            from = step;
+            to = step;
+            reason = null;
+            if (floor > step) {
+                to = floor;
+                reason = "thermal";
+                highSamples = 0;
+                coolSinceMs = -1;
+            } else if (cpu >= CPU_HIGH) {
+                coolSinceMs = -1;
+                if (step < LADDER.length - 1 && ++highSamples >= DOWN_SAMPLES) {
+                    to = step + 1;
+                    reason = "cpu";
+                    highSamples = 0;
+                }
+            } else {
+                highSamples = 0;
+                if (step > floor && (Double.isNaN(cpu) || cpu < CPU_LOW)) {
+                    if (coolSinceMs < 0) coolSinceMs = nowMs;
+                    if (nowMs - coolSinceMs >= UP_HOLD_MS) {
+                        to = step - 1;
+                        reason = "cooled";
+                        coolSinceMs = nowMs;
+                    }
+                } else {
+                    coolSinceMs = -1;
+                }
+            }
+            if (to == from) return;
+            step = to;
+            steps++;
+            maxStep = Math.max(maxStep, to);
+        }
+        String detail = reason + " thermal=" + thermalStatus
+                + " cpu=" + (Double.isNaN(cpu) ? "-" : Math.round(cpu * 100) + "%");
+        Log.d(TAG, "🌡️ step " + from + " → " + to + " (" + detail + ") " + LADDER[to]);
+        callback.onStep(from, to, LADDER[to], detail);
+    }
+
+    /** 발열 상태별 최소 단계 */
+    static int thermalFloor(int status) {
+        if (status >= THERMAL_CRITICAL) return LADDER.length - 1;
+        if (status >= THERMAL_SEVERE) return 3;
+        if (status >= THERMAL_MODERATE) return 2;
+        if (status >= THERMAL_LIGHT) return 1;
+        return 0;
+    }
+
+    /** /proc/self/stat 의 utime + stime (clock tick, 형식 오류면 -1) */
+    static long parseCpuTicks(String stat) {
+        // comm 에 공백/괄호가 있을 수 있으므로 마지막 ')' 이후부터 (state 가 3번째 필드)
+        int i = stat.lastIndexOf(')');
+        if (i < 0) return -1;
+        int field = 2;
+        long utime = -1;
+        int pos = i + 1;
+        int len = stat.length();
+        while (pos < len) {
+            while (pos < len && stat.charAt(pos) == ' ') pos++;
+            int end = pos;
+            while (end < len && stat.charAt(end) != ' ' && stat.charAt(end) != '\n') end++;
+            if (end == pos) break;
+            field++;
+            if (field == 14 || field == 15) {
+                long v;
+                try {
+                    v = Long.parseLong(stat.substring(pos, end));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+                if (field == 14) utime = v;
+                else return utime + v;
+            }
+            pos = end;
+        }
+        return -1;
+    }
+
+    /** 구간 CPU 시간 / (경과 시간 × min(코어 수, CPU_CORE_BUDGET)) */
+    static double cpuFraction(long deltaTicks, long ticksPerSec, long deltaWallMs, int cores) {
+        if (deltaWallMs <= 0 || ticksPerSec <= 0 || deltaTicks < 0) return Double.NaN;
+        double cpuMs = deltaTicks * 1000.0 / ticksPerSec;
+        int budget = Math.max(1, Math.min(cores, CPU_CORE_BUDGET));
+        return cpuMs / (deltaWallMs * (double) budget);
+    }
+
+    private static long clockTicks() {
+        try {
+            return Os.sysconf(OsConstants._SC_CLK_TCK);
+        } catch (RuntimeException e) {
+            return 100; // 리눅스 기본값
+        }
+    }
+
+    /** 감시 중지 + 통화 기록에 집계 추가 */
+    public void stop(CallTelemetry telemetry) {
+        synchronized (this) {
+            running = false;
+        }
+        handler.removeCallbacks(tick);
+        if (thermalListener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            power.removeThermalStatusListener((PowerManager.OnThermalStatusChangedListener) thermalListener);
+            thermalListener = null;
+        }
+        synchronized (this) {
+            telemetry.put("thermal_steps", steps);
+            telemetry.put("thermal_max_step", maxStep);
+            telemetry.put("thermal_max_status", maxThermal);
+            telemetry.put("cpu_avg_pct", cpuSamples > 0 ? Math.round(cpuSum / cpuSamples * 100) : 0);
+            telemetry.put("cpu_max_pct", Math.round(cpuMax * 100));
+        }
+    }
+}
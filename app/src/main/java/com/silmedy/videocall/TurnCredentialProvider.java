@@ -0,0 +1,305 @@
+package com.silmedy.videocall;
+
+import android.content.Context;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.webrtc.PeerConnection;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * 임시 TURN 자격 증명 제공
+ * - 서버(/api/v1/turn/credentials)에서 TTL 이 있는 username/credential 발급
+ * - 메모리 + 디스크(JSON 파일)에 만료 시각과 함께 보관 → 앱 재시작 후에도 재사용
+ * - 만료 전(REFRESH_AHEAD_FRACTION) 백그라운드에서 미리 갱신 → 통화 준비 중 네트워크 왕복 없음
+ * - iceServers() 는 동기 호출: 유효한 자격 증명이 없으면 고정 relay(FALLBACK_TURN_URI)로 대신하고 갱신 시작
+ *   → 첫 실행 / 캐시 만료 / 발급 서버 장애에도 relay 후보 확보 (relay_only 프로필은 relay 가 없으면 후보 0개)
+ * - awaitCredentials() 로 진행 중인 갱신을 잠깐 기다릴 수 있음 (협상 직전 setConfiguration 으로 교체용)
+ */
+public class TurnCredentialProvider {
+    private static final String TAG = "TurnCredentialProvider";
+
+    static final String ENDPOINT  = "http://3.36.62.211:5000/api/v1/turn/credentials";
+    static final String STUN_URI  = "stun:stun.l.google.com:19302";
+    /** 발급받은 자격 증명이 없을 때 쓰는 고정 relay */
+    static final String FALLBACK_TURN_URI      = "turn:13.209.17.4:3478";
+    static final String FALLBACK_TURN_USERNAME = "testuser";
+    static final String FALLBACK_TURN_PASSWORD = "testpass";
+    /** 남은 수명이 TTL 의 이 비율 이하가 되면 갱신 */
+    static final double REFRESH_AHEAD_FRACTION = 0.2;
+    /** 만료 직전 자격 증명은 통화 도중 끊길 수 있어 사용하지 않음 */
+    static final long   MIN_REMAINING_MS = 60_000;
+    static final long   RETRY_DELAY_MS   = 30_000;
+
+    private static final String PREFS     = "SilmedyPrefs";
+    private static final String KEY_TOKEN = "access_token";
+
+    /** 인증 토큰 제공 (없으면 null) */
+    interface TokenProvider {
+        String token();
+    }
+
+    /** 현재 시각 (테스트에서 교체) */
+    interface Clock {
+        long nowMs();
+    }
+
+    /** 발급받은 자격 증명 (불변) */
+    public static final class Credentials {
+        public final String username;
+        public final String password;
+        public final List<String> uris;
+        public final long fetchedAtMs;
+        public final long expiresAtMs;
+
+        Credentials(String username, String password, List<String> uris,
+                    long fetchedAtMs, long expiresAtMs) {
+            this.username = username;
+            this.password = password;
+            this.uris = Collections.unmodifiableList(new ArrayList<>(uris));
+            this.fetchedAtMs = fetchedAtMs;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        boolean isUsable(long nowMs) {
+            return expiresAtMs - nowMs > MIN_REMAINING_MS;
+        }
+
+        /** 미리 갱신을 시작할 시각 */
+        long refreshAtMs() {
+            long ttl = expiresAtMs - fetchedAtMs;
+            return expiresAtMs - Math.max(MIN_REMAINING_MS, (long) (ttl * REFRESH_AHEAD_FRACTION));
+        }
+
+        /** 서버 응답: {username, credential|password, ttl(초), uris[]} */
+        static Credentials fromResponse(JSONObject j, long nowMs) throws JSONException {
+            String password = j.has("credential") ? j.getString("credential") : j.getString("password");
+            return new Credentials(j.getString("username"), password, uris(j.getJSONArray("uris")),
+                    nowMs, nowMs + j.getLong("ttl") * 1000);
+        }
+
+        static Credentials fromJson(JSONObject j) throws JSONException {
+            return new Credentials(j.getString("username"), j.getString("password"),
+                    uris(j.getJSONArray("uris")), j.getLong("fetched_at"), j.getLong("expires_at"));
+        }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                    .put("username", username)
+                    .put("password", password)
+                    .put("uris", new JSONArray(uris))
+                    .put("fetched_at", fetchedAtMs)
+                    .put("expires_at", expiresAtMs);
+        }
+
+        private static List<String> uris(JSONArray arr) throws JSONException {
+            List<String> out = new ArrayList<>();
+            for (int i = 0; i < arr.length(); i++) out.add(arr.getString(i));
+            return out;
+        }
+    }
+
+    private static TurnCredentialProvider instance;
+
+    private final File cacheFile;
+    private final OkHttpClient client;
+    private final String endpoint;
+    private final TokenProvider tokens;
+    private final Clock clock;
+    private final ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor();
+    private Credentials current;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    TurnCredentialProvider(File cacheFile, OkHttpClient client, String endpoint,
+                           TokenProvider tokens, Clock clock) {
+        this.cacheFile = cacheFile;
+        this.client = client;
+        this.endpoint = endpoint;
+        this.tokens = tokens;
+        this.clock = clock;
+        this.current = load();
+    }
+
+    public static synchronized TurnCredentialProvider get(Context ctx) {
+        if (instance == null) {
+            Context app = ctx.getApplicationContext();
+            instance = new TurnCredentialProvider(
+                    new File(app.getFilesDir(), "turn_credentials.json"),
+                    new OkHttpClient(), ENDPOINT,
+                    () -> app.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                            .getString(KEY_TOKEN, null),
+                    System::currentTimeMillis);
+            instance.prefetch();
+        }
+        return instance;
+    }
+
+    /** 갱신이 필요하면 백그라운드에서 가져옴 (첫 get, 홈 화면 진입, 착신 알림 시) */
+    public void prefetch() {
+        io.execute(this::refreshIfNeeded);
+    }
+
+    public synchronized Credentials current() {
+        return current;
+    }
+
+    /**
+     * RTCConfiguration 용 ICE 서버 목록 (동기, 네트워크 호출 없음)
+     * 유효한 TURN 자격 증명이 없으면 고정 relay 로 대신하고 갱신 시작
+     */
+    public List<PeerConnection.IceServer> iceServers() {
+        Credentials c = usableCredentials();
+        if (c == null) {
+            Log.w(TAG, "⚠️ 유효한 TURN 자격 증명 없음 → 고정 relay 사용");
+            prefetch();
+        }
+        return iceServers(c);
+    }
+
+    /** @param c null 이면 고정 relay */
+    static List<PeerConnection.IceServer> iceServers(Credentials c) {
+        List<PeerConnection.IceServer> servers = new ArrayList<>();
+        servers.add(PeerConnection.IceServer.builder(STUN_URI).createIceServer());
+        if (c != null) {
+            servers.add(PeerConnection.IceServer.builder(c.uris)
+                    .setUsername(c.username)
+                    .setPassword(c.password)
+                    .createIceServer());
+        } else {
+            servers.add(PeerConnection.IceServer.builder(FALLBACK_TURN_URI)
+                    .setUsername(FALLBACK_TURN_USERNAME)
+                    .setPassword(FALLBACK_TURN_PASSWORD)
+                    .createIceServer());
+        }
+        return servers;
+    }
+
+    /**
+     * 유효한 자격 증명 (없으면 진행 중인 갱신을 최대 timeoutMs 기다림, 그래도 없으면 null)
+     * io 스레드는 하나뿐이므로 앞서 시작된 prefetch 가 끝난 뒤 확인됨
+     */
+    public Credentials awaitCredentials(long timeoutMs) {
+        Credentials c = usableCredentials();
+        if (c != null || timeoutMs <= 0) return c;
+        Future<?> f = io.submit(this::refreshIfNeeded);
+        try {
+            f.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Log.w(TAG, "자격 증명 대기 시간 초과 " + timeoutMs + "ms");
+        } catch (ExecutionException e) {
+            Log.w(TAG, "자격 증명 갱신 실패", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return usableCredentials();
+    }
+
+    synchronized Credentials usableCredentials() {
+        return current != null && current.isUsable(clock.nowMs()) ? current : null;
+    }
+
+    // ────────────────────────────────────────────────────────────────────────────
+    // 아래는 io 스레드(또는 테스트)에서 동기 호출
+    // ────────────────────────────────────────────────────────────────────────────
+
+    void refreshIfNeeded() {
+        Credentials c = current();
+        if (c != null && clock.nowMs() < c.refreshAtMs()) {
+            scheduleRefresh(c.refreshAtMs() - clock.nowMs());
+            return;
+        }
+        // 로그인 전에는 재시도하지 않음 (로그인 후 prefetch 로 다시 시작)
+        if (tokens == null || tokens.token() == null) return;
+        if (!refreshNow()) scheduleRefresh(RETRY_DELAY_MS);
+    }
+
+    /**
+     * 서버에서 새 자격 증명 발급 → 메모리/디스크 갱신 + 다음 갱신 예약
+     * @return 성공 여부
+     */
+    boolean refreshNow() {
+        Request.Builder rb = new Request.Builder().url(endpoint).get();
+        String token = tokens != null ? tokens.token() : null;
+        if (token == null) {
+            Log.w(TAG, "로그인 전 → 자격 증명 요청 생략");
+            return false;
+        }
+        rb.header("Authorization", "Bearer " + token);
+
+        Credentials fresh;
+        try (Response res = client.newCall(rb.build()).execute()) {
+            ResponseBody body = res.body();
+            if (!res.isSuccessful() || body == null) {
+                Log.w(TAG, "자격 증명 요청 실패: " + res.code());
+                return false;
+            }
+            fresh = Credentials.fromResponse(new JSONObject(body.string()), clock.nowMs());
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "자격 증명 요청 실패", e);
+            return false;
+        }
+        synchronized (this) {
+            current = fresh;
+        }
+        save(fresh);
+        Log.d(TAG, "🔑 TURN 자격 증명 갱신, 만료까지 "
+                + (fresh.expiresAtMs - fresh.fetchedAtMs) / 1000 + "s");
+        // TTL 이 아주 짧아도 서버를 연속 호출하지 않도록 최소 간격 유지
+        scheduleRefresh(Math.max(RETRY_DELAY_MS, fresh.refreshAtMs() - clock.nowMs()));
+        return true;
+    }
+
+    private void scheduleRefresh(long delayMs) {
+        synchronized (this) {
+            if (scheduledRefresh != null) scheduledRefresh.cancel(false);
+            scheduledRefresh = io.schedule(this::refreshIfNeeded,
+                    Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Credentials load() {
+        if (!cacheFile.exists()) return null;
+        try {
+            String json = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8);
+            return Credentials.fromJson(new JSONObject(json));
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "디스크 캐시 읽기 실패", e);
+            return null;
+        }
+    }
+
+    /** 임시 파일에 쓴 뒤 이름 변경 → 쓰는 도중 종료돼도 이전 캐시 유지 */
+    private void save(Credentials c) {
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(c.toJson().toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "디스크 캐시 저장 실패", e);
+            return;
+        }
+        if (!tmp.renameTo(cacheFile)) Log.w(TAG, "디스크 캐시 교체 실패: " + cacheFile);
+    }
+}
@@ -1,128 +1,303 @@
 package com.silmedy.videocall;
 
-import android.app.Activity;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
 import org.webrtc.AudioSource;
 import org.webrtc.AudioTrack;
-import org.webrtc.Camera1Enumerator;
-import org.webrtc.DefaultVideoDecoderFactory;
-import org.webrtc.DefaultVideoEncoderFactory;
-import org.webrtc.EglBase;
+import org.webrtc.CameraEnumerationAndroid;
+import org.webrtc.DataChannel;
 import org.webrtc.IceCandidate;
 import org.webrtc.MediaConstraints;
 import org.webrtc.MediaStreamTrack;
 import org.webrtc.PeerConnection;
 import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RtpParameters;
+import org.webrtc.RtpSender;
 import org.webrtc.RtpTransceiver;
 import org.webrtc.SessionDescription;
 import org.webrtc.SurfaceTextureHelper;
 import org.webrtc.SurfaceViewRenderer;
-import org.webrtc.VideoCapturer;
 import org.webrtc.VideoSource;
 import org.webrtc.VideoTrack;
-import org.webrtc.audio.AudioDeviceModule;
-import org.webrtc.audio.JavaAudioDeviceModule;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class WebRTCManager implements FirebaseSignalingClient.Callback {
     private static final String TAG = "WebRTCManager";
 
+    /** 영상 일시 중지 사유 */
+    public static final String PAUSE_AUDIO_ONLY = "audio_only";
+    /** 통화 화면이 가려짐 (앱 백그라운드) */
+    public static final String PAUSE_BACKGROUND = "background";
+    /** 상대 화면이 가려짐 → 볼 사람이 없으므로 내 영상도 중지 */
+    public static final String PAUSE_REMOTE_BACKGROUND = "remote_background";
+
+    /** 통화 상태 알림 (UI 갱신용, 메인 스레드 보장 없음) */
+    public interface Listener {
+        /** 내 영상 송신 중지/재개 */
+        default void onLocalVideoPaused(boolean paused, String reason) {}
+        /** 상대방 영상 송신 중지/재개 → 정지 화면 대신 안내 표시 */
+        default void onRemoteVideoPaused(boolean paused, String reason) {}
+        /** 연결 복구 실패 등으로 통화 종료 (리소스는 이미 해제됨) */
+        default void onCallEnded(String reason) {}
+    }
+
+    /** 기본 캡처 목표값 (실제 포맷은 CameraCapturerController 가 기기 지원값에서 선택) */
+    private static final int CAPTURE_WIDTH  = 640;
+    private static final int CAPTURE_HEIGHT = 480;
+    private static final int CAPTURE_FPS    = 30;
+    /** 발급 TURN 자격 증명이 없을 때 첫 협상 직전 기다리는 최대 시간 */
+    private static final long TURN_AWAIT_MS = 2_000;
+
+    /** 앱 설정: 송신 영상 레이어 모드 (SimulcastController.MODE_*) */
+    private static final String PREFS                = "SilmedyPrefs";
+    private static final String KEY_VIDEO_LAYER_MODE = "video_layer_mode";
+    private static final String KEY_VIDEO_CODECS     = "video_codec_preference";
+    private static final String KEY_ICE_BATCH_WINDOW = "ice_batch_window_ms";
+    private static final String KEY_RTC_PROFILE      = "rtc_profile";
+    /** offer/answer 압축 전송 (상대 앱이 모두 압축을 읽을 수 있게 된 뒤 켤 것) */
+    private static final String KEY_SDP_COMPRESSION  = "sdp_compression";
+    private static final String STREAM_ID            = "ARDAMS";
+
     private final Context context;
-    private final EglBase eglBase;
-    private final SurfaceViewRenderer remoteView;
-    private final SurfaceViewRenderer localView;
-    private PeerConnectionFactory factory;
+    /**
+     * PeerConnection / 시그널링 상태 변경은 모두 이 스레드에서 순서대로 실행
+     * (Firebase·WebRTC 옵저버·UI 호출은 메시지로 전달, 렌더링만 UI 스레드로)
+     */
+    private final CallExecutor exec = new CallExecutor("WebRTC");
+    private final PeerConnectionFactoryHolder.Lease factoryLease;
+    private final PeerConnectionFactory factory;
+    private SurfaceViewRenderer remoteView;
+    private SurfaceViewRenderer localView;
+    private VideoTrack remoteVideoTrack;
     private PeerConnection peerConnection;
-    private FirebaseSignalingClient signalingClient;
-    private String roomId;
+    /** 생성 시 설정 (ICE 서버 교체 시 나머지 값 유지용) */
+    private PeerConnection.RTCConfiguration rtcConfig;
+    /** 발급 TURN 자격 증명 없이 고정 relay 로 시작함 → 협상 직전 교체 시도 */
+    private boolean fallbackIceServers;
+    private boolean turnAwaited;
+    private volatile FirebaseSignalingClient signalingClient;
+    private volatile String roomId;
+    private boolean disposed;
+    /** 화면이 가려진 동안 원격 렌더링 분리 + 캡처 중지 */
+    private boolean background;
+    private volatile Listener listener;
+    private volatile String localRole = FirebaseSignalingClient.ROLE_CALLEE;
+
+    // Pre-warm 상태: 수락 전까지 offer 를 보관
+    private boolean prewarm;
+    private boolean accepted;
+    private String pendingOffer;
+    /** 원격 SDP 적용 전 도착한 후보 보관 */
+    private RemoteCandidateQueue remoteCandidates;
+    /** 로컬 후보 묶음 전송 */
+    private OutboundCandidateBatcher localCandidates;
 
-    public WebRTCManager(Context ctx, EglBase eglBase,
+    // 로컬 미디어 (팩토리는 공유되므로 통화 종료 시 개별 해제)
+    private CameraCapturerController camera;
+    private SurfaceTextureHelper captureHelper;
+    private VideoSource videoSource;
+    private AudioSource audioSource;
+    private RtpSender videoSender;
+    private VideoTrack localVideoTrack;
+    private AdaptiveBitrateController bitrateController;
+    private SimulcastController layers;
+    /** 영상 송신을 멈추게 한 사유들 (하나라도 있으면 중지) */
+    private final Set<String> videoPauseReasons = new HashSet<>();
+    private StatsSampler statsSampler;
+    private final CallTelemetry telemetry = new CallTelemetry();
+    private CodecPreferencePolicy codecPolicy;
+    /** 로컬 SDP 변환 (Opus 파라미터 / 영상 초기 비트레이트, 프로필별) */
+    private SdpPipeline sdpPipeline;
+    private DataChannelFileTransfer fileTransfer;
+    private IceRecoveryController iceRecovery;
+    /** offer/answer 협상 상태 (기본 Callee = polite) */
+    private final NegotiationStateMachine negotiation = new NegotiationStateMachine(true);
+    private NetworkHandoverMonitor handover;
+    /** 발열 / CPU 부하 시 캡처·인코딩 단계 하향 */
+    private ThermalGovernor thermal;
+
+    /**
+     * @param factoryLease PeerConnectionFactoryHolder 에서 받은 Lease (dispose 시 반납)
+     */
+    public WebRTCManager(Context ctx, PeerConnectionFactoryHolder.Lease factoryLease,
                          SurfaceViewRenderer remoteView,
                          SurfaceViewRenderer localView) {
         this.context = ctx.getApplicationContext();
-        this.eglBase = eglBase;
-        this.remoteView = remoteView;
-        this.localView = localView;
+        this.factoryLease = factoryLease;
+        this.factory = factoryLease.getFactory();
         Log.d(TAG, "Constructor called");
-        initFactory();
         initPeerConnection();
-        initLocalMedia();
+        attachViews(remoteView, localView);
+    }
+
+    /**
+     * Pre-warm 용 생성자: 화면 없이 PeerConnection 만 만들어 두고
+     * offer 는 accept() 전까지 적용하지 않음 (CallPrewarmer 에서 사용)
+     */
+    WebRTCManager(Context ctx, PeerConnectionFactoryHolder.Lease factoryLease) {
+        this.context = ctx.getApplicationContext();
+        this.factoryLease = factoryLease;
+        this.factory = factoryLease.getFactory();
+        this.prewarm = true;
+        telemetry.put("prewarm", true);
+        Log.d(TAG, "Constructor called (prewarm)");
+        initPeerConnection();
+    }
+
+    /**
+     * 렌더러 연결 + 로컬 미디어 시작
+     * Pre-warm 세션은 화면이 뜬 뒤 호출되며, 먼저 도착한 원격 트랙도 이때 연결
+     */
+    public void attachViews(SurfaceViewRenderer remoteView,
+                            SurfaceViewRenderer localView) {
+        VideoTrack vt;
+        synchronized (this) {
+            this.remoteView = remoteView;
+            this.localView = localView;
+            vt = remoteVideoTrack;
+        }
+        exec.post("attachViews", () -> {
+            if (camera == null) initLocalMedia();
+        });
+        if (vt != null) addRemoteSink(vt, remoteView);
+    }
+
+    /**
+     * Pre-warm 세션 수락: 보관한 offer 적용 후 answer 전송
+     * offer 가 아직 없으면 도착 즉시 처리되도록 표시만 함
+     */
+    public void accept() {
+        exec.post("accept", () -> {
+            String sdp;
+            synchronized (this) {
+                accepted = true;
+                sdp = pendingOffer;
+                pendingOffer = null;
+            }
+            if (sdp != null) {
+                applyOfferAndAnswer(sdp);
+            }
+        });
     }
 
     public void setRoomId(String roomId) {
         this.roomId = roomId;
         Log.d(TAG, "setRoomId() called. roomId=" + roomId);
-        if (signalingClient == null) {
-            signalingClient = new FirebaseSignalingClient(roomId, this);
-            Log.d(TAG, "FirebaseSignalingClient initialized");
-        }
-    }
-
-    private void initFactory() {
-        Log.d(TAG, "initFactory() start");
-        PeerConnectionFactory.initialize(
-                PeerConnectionFactory.InitializationOptions.builder(context)
-                        .createInitializationOptions());
-        AudioDeviceModule adm = JavaAudioDeviceModule.builder(context)
-                .setUseHardwareAcousticEchoCanceler(true)
-                .setUseHardwareNoiseSuppressor(true)
-                .createAudioDeviceModule();
-        factory = PeerConnectionFactory.builder()
-                .setAudioDeviceModule(adm)
-                .setVideoEncoderFactory(new DefaultVideoEncoderFactory(
-                        eglBase.getEglBaseContext(), true, true))
-                .setVideoDecoderFactory(new DefaultVideoDecoderFactory(
-                        eglBase.getEglBaseContext()))
-                .createPeerConnectionFactory();
-        Log.d(TAG, "PeerConnectionFactory created");
+        exec.post("setRoomId", this::ensureSignalingClient);
+    }
+
+    /** 시그널링 클라이언트 생성 (이미 있으면 무시) */
+    private void ensureSignalingClient() {
+        if (signalingClient != null) return;
+        FirebaseSignalingClient client = new FirebaseSignalingClient(roomId, this);
+        client.setCompressSdp(context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .getBoolean(KEY_SDP_COMPRESSION, false));
+        signalingClient = client;
+        Log.d(TAG, "FirebaseSignalingClient initialized");
     }
 
     private void initPeerConnection() {
         Log.d(TAG, "initPeerConnection() start");
-        List<PeerConnection.IceServer> iceServers = new ArrayList<>();
-        iceServers.add(PeerConnection.IceServer.builder(
-                "stun:stun.l.google.com:19302").createIceServer());
-        iceServers.add(PeerConnection.IceServer.builder(
-                        "turn:13.209.17.4:3478")
-                .setUsername("testuser").setPassword("testpass")
-                .createIceServer());
+        codecPolicy = new CodecPreferencePolicy(factory, CodecPreferencePolicy.parsePreference(
+                context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                        .getString(KEY_VIDEO_CODECS, null)),
+                CodecCapabilityCache.get(context).hardwareEncoders());
+        // TURN 자격 증명은 미리 받아 둔 캐시에서 동기 조회 (통화 준비 중 네트워크 왕복 없음)
+        // 없으면 고정 relay 로 시작하고 첫 협상 직전에 발급받은 것으로 교체 (refreshIceServers)
+        TurnCredentialProvider turn = TurnCredentialProvider.get(context);
+        fallbackIceServers = turn.usableCredentials() == null;
+        List<PeerConnection.IceServer> iceServers = turn.iceServers();
         PeerConnection.RTCConfiguration cfg =
                 new PeerConnection.RTCConfiguration(iceServers);
+        rtcConfig = cfg;
+        // 통화별 설정 프로필 (수집 속도 / 장애 전환 / keepalive 비용)
+        SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        RtcConfigProfile profile = RtcConfigProfile.get(prefs.getString(KEY_RTC_PROFILE, null));
+        profile.apply(cfg);
+        telemetry.put("rtc_profile", profile.id());
+        sdpPipeline = SdpPipeline.forProfile(profile.name);
+        telemetry.put("sdp_pipeline", sdpPipeline.id());
+        long batchWindowMs = prefs.getLong(KEY_ICE_BATCH_WINDOW, OutboundCandidateBatcher.DEFAULT_WINDOW_MS);
+        // 묶음 타이머도 통화 스레드에서 → signalingClient 접근과 release 순서가 한 스레드에서 정해짐
+        localCandidates = new OutboundCandidateBatcher(
+                batch -> signalingClient.sendIceCandidates(batch), batchWindowMs,
+                (task, delayMs) -> exec.postDelayed("flushCandidates", task, delayMs));
+        iceRecovery = new IceRecoveryController(new IceRecoveryController.Callback() {
+            @Override public void onRestartIce(int attempt) {
+                telemetry.event("ice_restart", "attempt=" + attempt);
+                exec.post("restartIce", () -> restartIce());
+            }
+            @Override public void onRecovered(long recoveryMs, int restarts) {
+                telemetry.event("ice_recovered", recoveryMs + "ms restarts=" + restarts);
+            }
+            @Override public void onGiveUp(String reason) {
+                // FAILED 는 옵저버 처리 도중 오므로 현재 작업이 끝난 뒤 종료
+                exec.post("endCall", () -> endCall(reason));
+            }
+        }, profile.recoveryGraceMs);
+        // Wi-Fi ↔ LTE 전환 시 consent 타임아웃을 기다리지 않고 바로 ICE restart
+        handover = new NetworkHandoverMonitor(context, new NetworkHandoverMonitor.Callback() {
+            @Override public void onHandover(String from, String to) {
+                telemetry.event("handover", from + "->" + to);
+                iceRecovery.onNetworkChanged();
+            }
+            @Override public void onMediaResumed(long handoverMs) {
+                telemetry.event("handover_resumed", handoverMs + "ms");
+            }
+        });
+
+        thermal = new ThermalGovernor(context, (from, to, step, reason) -> {
+            telemetry.event("thermal_step", from + "->" + to + " " + step + " " + reason);
+            exec.post("thermalStep", () -> {
+                if (camera != null) camera.changeFormat(step.width, step.height, step.fps);
+                updateCaptureHeight(step.height);
+                AdaptiveBitrateController abr = getBitrateController();
+                if (abr != null) abr.setLevelFloor(step.bitrateLevelFloor);
+            });
+        });
 
         peerConnection = factory.createPeerConnection(cfg,
                 new PeerConnectionAdapter() {
                     @Override
                     public void onIceCandidate(IceCandidate candidate) {
                         Log.d(TAG, "onIceCandidate() candidate=" + candidate.sdp);
-                        signalingClient.sendIceCandidate(new SignalingData(candidate));
+                        exec.post("onIceCandidate", () -> localCandidates.add(candidate));
+                    }
+
+                    @Override
+                    public void onIceGatheringChange(PeerConnection.IceGatheringState newState) {
+                        if (newState == PeerConnection.IceGatheringState.COMPLETE) {
+                            exec.post("onGatheringComplete", () -> localCandidates.onGatheringComplete());
+                        }
+                    }
+
+                    @Override
+                    public void onDataChannel(DataChannel dc) {
+                        // Callee: Caller 가 연 파일 전송 채널 수신
+                        if (DataChannelFileTransfer.CHANNEL_LABEL.equals(dc.label())) {
+                            exec.post("onDataChannel", () -> fileTransfer.attach(dc));
+                        }
                     }
 
                     @Override
                     public void onTrack(RtpTransceiver transceiver) {
                         MediaStreamTrack track = transceiver.getReceiver().track();
                         if (track instanceof VideoTrack) {
-                            VideoTrack vt = (VideoTrack) track;
-                            remoteView.post(() -> vt.addSink(remoteView));
+                            exec.post("onTrack", () -> onRemoteVideoTrack((VideoTrack) track));
                         }
                     }
 
                     @Override
                     public void onIceConnectionChange(PeerConnection.IceConnectionState newState) {
                         Log.d(TAG, "onIceConnectionChange() state=" + newState);
-                        if (newState == PeerConnection.IceConnectionState.DISCONNECTED
-                                || newState == PeerConnection.IceConnectionState.CLOSED
-                                || newState == PeerConnection.IceConnectionState.FAILED) {
-                            dispose();
-                            if (context instanceof Activity) {
-                                ((Activity) context).runOnUiThread(
-                                        () -> ((Activity) context).finish()
-                                );
-                            }
-                        }
+                        exec.post("onIceConnectionChange", () -> onIceConnectionChange(newState));
                     }
                 }
         );
@@ -131,44 +306,157 @@ public class WebRTCManager implements FirebaseSignalingClient.Callback {
             Log.e(TAG, "Failed to create PeerConnection");
         } else {
             Log.d(TAG, "PeerConnection created");
+            remoteCandidates = new RemoteCandidateQueue(peerConnection::addIceCandidate);
+            // 샘플 Listener(적응 제어, 음성 전용 전환)가 videoSender 를 바꾸므로 통화 스레드에서 전달
+            statsSampler = new StatsSampler(peerConnection, task -> exec.post("stats", task));
+            // 파일 전송: 채널이 닫히면 Caller 만 새로 열고 Callee 는 onDataChannel 대기
+            // (재생성 요청은 파일 전송 io 스레드에서 오므로 createDataChannel 은 통화 스레드에서)
+            fileTransfer = new DataChannelFileTransfer(
+                    new FileTransferStore(new File(context.getFilesDir(), "transfers")),
+                    telemetry,
+                    () -> exec.post("reopenFiles", () -> {
+                        if (disposed || !FirebaseSignalingClient.ROLE_CALLER.equals(localRole)) return;
+                        fileTransfer.attach(createFilesChannel());
+                    }));
+            statsSampler.addListener(fileTransfer);
+            statsSampler.addListener(handover);
+            handover.start();
+        }
+    }
+
+    private void onIceConnectionChange(PeerConnection.IceConnectionState newState) {
+        telemetry.event("ice", newState.name());
+        if (newState == PeerConnection.IceConnectionState.CONNECTED) {
+            startBitrateControl();
+        }
+        boolean connected = newState == PeerConnection.IceConnectionState.CONNECTED
+                || newState == PeerConnection.IceConnectionState.COMPLETED;
+        remoteCandidates.setConnected(connected);
+        if (connected) handover.onIceConnected();
+        // DISCONNECTED 는 바로 끊지 않고 복구 시도, FAILED/타임아웃 시에만 종료
+        iceRecovery.onIceConnectionChange(newState);
+    }
+
+    private void onRemoteVideoTrack(VideoTrack vt) {
+        SurfaceViewRenderer view;
+        synchronized (this) {
+            remoteVideoTrack = vt;
+            // 백그라운드면 화면 복귀 시 연결
+            view = background ? null : remoteView;
         }
+        if (view != null) addRemoteSink(vt, view);
+    }
+
+    /** 렌더링 연결만 UI 스레드에서 (dispose 이후 도착하면 무시) */
+    private void addRemoteSink(VideoTrack vt, SurfaceViewRenderer view) {
+        view.post(() -> {
+            synchronized (this) {
+                if (disposed) return;
+            }
+            vt.addSink(view);
+        });
     }
 
     private void initLocalMedia() {
         Log.d(TAG, "initLocalMedia() start");
-        VideoCapturer capturer = createCameraCapturer();
-        SurfaceTextureHelper helper = SurfaceTextureHelper.create(
-                "CaptureThread", eglBase.getEglBaseContext());
-        VideoSource vs = factory.createVideoSource(false);
-        capturer.initialize(helper, context, vs.getCapturerObserver());
+        camera = new CameraCapturerController(context);
+        captureHelper = SurfaceTextureHelper.create(
+                "CaptureThread", factoryLease.getEglBaseContext());
+        videoSource = factory.createVideoSource(false);
+        camera.initialize(captureHelper, videoSource.getCapturerObserver());
         try {
-            capturer.startCapture(640, 480, 30);
+            camera.start(CAPTURE_WIDTH, CAPTURE_HEIGHT, CAPTURE_FPS);
         } catch (Exception e) {
             Log.e(TAG, "startCapture() failed", e);
         }
-        VideoTrack localVideo = factory.createVideoTrack("ARDAMSv0", vs);
-        localVideo.addSink(localView);
+        VideoTrack localVideo = factory.createVideoTrack("ARDAMSv0", videoSource);
+        SurfaceViewRenderer view;
+        synchronized (this) {
+            localVideoTrack = localVideo;
+            view = localView;
+        }
+        if (view != null) localVideo.addSink(view);
 
-        AudioSource as = factory.createAudioSource(new MediaConstraints());
-        AudioTrack localAudio = factory.createAudioTrack("ARDAMSa0", as);
-        peerConnection.addTrack(localVideo);
+        audioSource = factory.createAudioSource(new MediaConstraints());
+        AudioTrack localAudio = factory.createAudioTrack("ARDAMSa0", audioSource);
+        String layerMode = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                .getString(KEY_VIDEO_LAYER_MODE, SimulcastController.MODE_OFF);
+        AdaptiveBitrateController abr;
+        if (SimulcastController.MODE_OFF.equals(layerMode)) {
+            videoSender = peerConnection.addTrack(localVideo);
+            abr = new AdaptiveBitrateController(videoSender);
+        } else {
+            // 다중 레이어: 인코딩은 SimulcastController 가 레이어 단위로 관리하고
+            // 적응 제어기는 대역폭 측정/결정만 제공
+            layers = new SimulcastController(layerMode);
+            videoSender = layers.addVideoTrack(peerConnection, factory, localVideo,
+                    Collections.singletonList(STREAM_ID));
+            abr = new AdaptiveBitrateController(null);
+            abr.addListener(layers);
+        }
         peerConnection.addTrack(localAudio);
+        AudioOnlyFallbackController fallback = new AudioOnlyFallbackController(
+                (audioOnly, reason, availableBps) -> {
+                    telemetry.event("audio_only", audioOnly + " " + reason + " avail=" + availableBps);
+                    setVideoPaused(PAUSE_AUDIO_ONLY, audioOnly);
+                });
+        synchronized (this) {
+            bitrateController = abr;
+            statsSampler.addListener(abr);
+            statsSampler.addListener(fallback);
+        }
+        updateCaptureHeight(CAPTURE_HEIGHT);
         Log.d(TAG, "Local tracks added");
     }
 
-    private VideoCapturer createCameraCapturer() {
-        Camera1Enumerator enumerator = new Camera1Enumerator(false);
-        for (String name : enumerator.getDeviceNames()) {
-            if (enumerator.isFrontFacing(name)) {
-                VideoCapturer cap = enumerator.createCapturer(name, null);
-                if (cap != null) return cap;
-            }
-        }
-        for (String name : enumerator.getDeviceNames()) {
-            VideoCapturer cap = enumerator.createCapturer(name, null);
-            if (cap != null) return cap;
+    /** 연결 후 통계 수집 + 영상 송신 적응 제어 시작 (재연결 시 중복 시작 안 함) */
+    private void startBitrateControl() {
+        AdaptiveBitrateController abr;
+        synchronized (this) {
+            if (disposed) return;
+            abr = bitrateController;
         }
-        throw new RuntimeException("No camera available");
+        statsSampler.start();
+        if (abr != null) abr.start();
+        thermal.start();
+    }
+
+    /** 통화 품질 샘플러 (링 버퍼 이력 + 구간 집계 조회) */
+    public StatsSampler getStatsSampler() {
+        return statsSampler;
+    }
+
+    /** 적응 제어 결정 스트림 구독용 (로컬 미디어 시작 전에는 null) */
+    public synchronized AdaptiveBitrateController getBitrateController() {
+        return bitrateController;
+    }
+
+    /** 통화 중 파일(처방전, 검사 사진 등) 송수신 */
+    public DataChannelFileTransfer getFileTransfer() {
+        return fileTransfer;
+    }
+
+    /** 파일 전송용 DataChannel (순서 보장 + 신뢰 전송) */
+    private DataChannel createFilesChannel() {
+        DataChannel.Init init = new DataChannel.Init();
+        init.ordered = true;
+        return peerConnection.createDataChannel(DataChannelFileTransfer.CHANNEL_LABEL, init);
+    }
+
+    /** 통화 중 캡처 포맷 변경 (트랙 재생성/재협상 없음) */
+    public void changeCaptureFormat(int width, int height, int fps) {
+        exec.post("changeCaptureFormat", () -> {
+            if (camera != null) camera.changeFormat(width, height, fps);
+            updateCaptureHeight(height);
+        });
+    }
+
+    /** 실제 캡처 높이를 적응 제어에 반영 (단계별 해상도 축소가 이미 줄어든 캡처에 겹치지 않게) */
+    private void updateCaptureHeight(int requestedHeight) {
+        AdaptiveBitrateController abr = getBitrateController();
+        if (abr == null) return;
+        CameraEnumerationAndroid.CaptureFormat format = camera != null ? camera.getCurrentFormat() : null;
+        abr.setCaptureHeight(format != null ? format.height : requestedHeight);
     }
 
     /**
@@ -176,72 +464,384 @@ public class WebRTCManager implements FirebaseSignalingClient.Callback {
      */
     public void createOfferAndSend(String roomId) {
         this.roomId = roomId;
+        telemetry.put("role", "caller");
+        localRole = FirebaseSignalingClient.ROLE_CALLER;
+        // glare 시 Caller 는 자기 offer 를 유지
+        negotiation.setPolite(false);
+        exec.post("createOffer", this::startCall);
+    }
+
+    private void startCall() {
         // 신규 시그널링 클라이언트 초기화 (이미 init 되었다면 중복 무시)
-        if (signalingClient == null) {
-            signalingClient = new FirebaseSignalingClient(roomId, this);
-        }
-        peerConnection.createOffer(new SdpAdapter("createOffer") {
-            @Override
-            public void onCreateSuccess(SessionDescription offer) {
-                peerConnection.setLocalDescription(
-                        new SdpAdapter("setLocalOffer"), offer);
-                signalingClient.sendOffer(offer.description);
-            }
-        }, new MediaConstraints());
+        ensureSignalingClient();
+        signalingClient.setLocalRole(localRole);
+        // offer 에 m=application 이 포함되도록 채널을 먼저 생성
+        fileTransfer.attach(createFilesChannel());
+        codecPolicy.apply(peerConnection);
+        negotiateOffer(false);
     }
 
     /**
-     * Callee 역할: Answer 생성 후 전송
+     * Callee 역할: 시그널링 준비 후 offer 대기 (answer 는 offer 적용 후 자동 생성)
      */
     public void createAnswerAndSend(String roomId) {
         this.roomId = roomId;
-        if (signalingClient == null) {
-            signalingClient = new FirebaseSignalingClient(roomId, this);
+        exec.post("createAnswer", () -> {
+            ensureSignalingClient();
+            createAnswer();
+        });
+    }
+
+    /** SDP 단계 실패 → 상태 머신 복귀 + 보관된 협상 진행 */
+    private class NegotiationStep extends SdpAdapter {
+        private final String step;
+
+        NegotiationStep(String step) {
+            super(step);
+            this.step = step;
+        }
+
+        @Override public void onCreateFailure(String error) { fail(error); }
+        @Override public void onSetFailure(String error)    { fail(error); }
+
+        private void fail(String error) {
+            Log.e(TAG, "[" + step + "] failure: " + error);
+            exec.post(step + "Failed", () -> {
+                negotiation.onFailure(step);
+                runPendingNegotiation();
+            });
+        }
+    }
+
+    /** offer 생성 → setLocalDescription 성공 후 전송 (협상 중이면 끝난 뒤 실행) */
+    private void negotiateOffer(boolean iceRestart) {
+        if (!negotiation.requestOffer(iceRestart)) return;
+        refreshIceServers();
+        MediaConstraints constraints = new MediaConstraints();
+        if (iceRestart) {
+            constraints.mandatory.add(new MediaConstraints.KeyValuePair("IceRestart", "true"));
+        }
+        peerConnection.createOffer(new NegotiationStep("createOffer") {
+            @Override
+            public void onCreateSuccess(SessionDescription offer) {
+                exec.post("setLocalOffer", () -> {
+                    // glare 로 rollback 된 offer 는 버림
+                    if (!negotiation.isCreatingOffer()) return;
+                    SessionDescription local = transform(offer);
+                    peerConnection.setLocalDescription(new NegotiationStep("setLocalOffer") {
+                        @Override
+                        public void onSetSuccess() {
+                            exec.post("sendOffer", () -> {
+                                if (!negotiation.isCreatingOffer()) return;
+                                negotiation.onLocalOfferSet();
+                                signalingClient.sendOffer(local.description);
+                            });
+                        }
+                    }, local);
+                });
+            }
+        }, constraints);
+    }
+
+    private void createAnswer() {
+        if (!negotiation.canCreateAnswer()) {
+            Log.d(TAG, "적용된 offer 없음 → answer 생략 (offer 대기)");
+            return;
         }
-        peerConnection.createAnswer(new SdpAdapter("createAnswer") {
+        refreshIceServers();
+        codecPolicy.apply(peerConnection);
+        peerConnection.createAnswer(new NegotiationStep("createAnswer") {
             @Override
             public void onCreateSuccess(SessionDescription answer) {
-                peerConnection.setLocalDescription(
-                        new SdpAdapter("setLocalAnswer"), answer);
-                signalingClient.sendAnswer(answer.description);
+                exec.post("setLocalAnswer", () -> {
+                    if (!negotiation.canCreateAnswer()) return;
+                    SessionDescription local = transform(answer);
+                    peerConnection.setLocalDescription(new NegotiationStep("setLocalAnswer") {
+                        @Override
+                        public void onSetSuccess() {
+                            exec.post("sendAnswer", () -> {
+                                if (!negotiation.canCreateAnswer()) return;
+                                negotiation.onLocalAnswerSet();
+                                signalingClient.sendAnswer(local.description);
+                                codecPolicy.logNegotiated(peerConnection, roomId);
+                                runPendingNegotiation();
+                            });
+                        }
+                    }, local);
+                });
             }
         }, new MediaConstraints());
     }
 
+    /**
+     * 고정 relay 로 만든 PeerConnection 에 발급받은 TURN 자격 증명 적용 (통화 스레드)
+     * 후보 수집은 setLocalDescription 부터이므로 createOffer/createAnswer 전에 바꾸면 첫 수집부터 반영
+     * 진행 중인 발급은 처음 한 번만 TURN_AWAIT_MS 까지 기다리고, 이후 협상(ICE restart)에서는 받아 둔 것만 확인
+     */
+    private void refreshIceServers() {
+        if (!fallbackIceServers || peerConnection == null) return;
+        long waitMs = turnAwaited ? 0 : TURN_AWAIT_MS;
+        turnAwaited = true;
+        TurnCredentialProvider.Credentials c =
+                TurnCredentialProvider.get(context).awaitCredentials(waitMs);
+        if (c == null) {
+            Log.w(TAG, "⚠️ TURN 자격 증명 아직 없음 → 고정 relay 유지");
+            return;
+        }
+        fallbackIceServers = false;
+        rtcConfig.iceServers = TurnCredentialProvider.iceServers(c);
+        boolean ok = peerConnection.setConfiguration(rtcConfig);
+        telemetry.event("turn_credentials", ok ? "applied" : "apply_failed");
+        Log.d(TAG, "🔑 발급 TURN 자격 증명 적용 " + (ok ? "성공" : "실패"));
+    }
+
+    /** 생성된 로컬 SDP 에 프로필별 변환 적용 (setLocalDescription 과 전송에 같은 SDP 사용) */
+    private SessionDescription transform(SessionDescription sdp) {
+        String munged = sdpPipeline.apply(sdp.description);
+        return munged.equals(sdp.description) ? sdp : new SessionDescription(sdp.type, munged);
+    }
+
+    /** STABLE 로 돌아온 뒤 보관된 원격 offer / 로컬 offer 요청 처리 */
+    private void runPendingNegotiation() {
+        String offer = negotiation.pollDeferredOffer();
+        if (offer != null) {
+            handleOffer(offer);
+            return;
+        }
+        int pending = negotiation.pollPendingOffer();
+        if (pending != NegotiationStateMachine.PENDING_NONE) {
+            negotiateOffer(pending == NegotiationStateMachine.PENDING_RESTART);
+        }
+    }
+
+    /**
+     * ICE restart
+     * - Caller: IceRestart 제약으로 새 offer 생성 → 기존 offer 경로로 전송
+     * - Callee: offer 를 만들 수 없으므로 Caller 에 재시작 요청
+     */
+    private void restartIce() {
+        if (!FirebaseSignalingClient.ROLE_CALLER.equals(localRole)) {
+            if (signalingClient != null) signalingClient.requestIceRestart();
+            return;
+        }
+        negotiateOffer(true);
+    }
+
+    /** 복구 불가: 리소스 해제 후 화면에 종료 알림 */
+    private void endCall(String reason) {
+        Log.w(TAG, "📴 endCall reason=" + reason);
+        telemetry.event("call_ended", reason);
+        dispose();
+        Listener l = listener;
+        if (l != null) l.onCallEnded(reason);
+    }
+
     // ────────────────────────────────────────────────────────────────────────────
     // FirebaseSignalingClient.Callback 구현
     // ────────────────────────────────────────────────────────────────────────────
+    // 리스너는 메인 스레드에서 호출되므로 통화 스레드로 넘김 (영상 상태 알림은 UI 전용이라 제외)
     @Override
     public void onOfferReceived(String sdp) {
+        exec.post("onOffer", () -> handleOffer(sdp));
+    }
+
+    private void handleOffer(String sdp) {
+        synchronized (this) {
+            if (prewarm && !accepted) {
+                // 수락 전: offer 만 보관해 두고 accept() 에서 적용
+                Log.d(TAG, "Prewarm: offer 보관, 수락 대기");
+                pendingOffer = sdp;
+                return;
+            }
+        }
+        applyOfferAndAnswer(sdp);
+    }
+
+    /** 재전달 / 이전 버전 offer 는 상태 머신에서 걸러져 no-op */
+    private void applyOfferAndAnswer(String sdp) {
+        NegotiationStateMachine.Action action = negotiation.onRemoteOffer(sdp);
+        if (action == NegotiationStateMachine.Action.ROLLBACK_AND_APPLY) {
+            peerConnection.setLocalDescription(new SdpAdapter("rollback"),
+                    new SessionDescription(SessionDescription.Type.ROLLBACK, ""));
+        } else if (action != NegotiationStateMachine.Action.APPLY) {
+            return;
+        }
         SessionDescription offerDesc =
                 new SessionDescription(SessionDescription.Type.OFFER, sdp);
-        peerConnection.setRemoteDescription(
-                new SdpAdapter("setRemoteOffer"), offerDesc);
-        // Offer 받은 후 곧바로 Answer 생성/전송
-        createAnswerAndSend(roomId);
+        remoteCandidates.onRemoteDescriptionPending();
+        peerConnection.setRemoteDescription(new NegotiationStep("setRemoteOffer") {
+            @Override
+            public void onSetSuccess() {
+                exec.post("setRemoteOffer", () -> {
+                    remoteCandidates.onRemoteDescriptionSet();
+                    // Offer 적용 후 곧바로 Answer 생성/전송
+                    if (negotiation.onRemoteOfferSet()) createAnswer();
+                });
+            }
+        }, offerDesc);
     }
 
     @Override
     public void onAnswerReceived(String sdp) {
+        exec.post("onAnswer", () -> handleAnswer(sdp));
+    }
+
+    private void handleAnswer(String sdp) {
+        if (negotiation.onRemoteAnswer(sdp) != NegotiationStateMachine.Action.APPLY) return;
         SessionDescription answerDesc =
                 new SessionDescription(SessionDescription.Type.ANSWER, sdp);
-        peerConnection.setRemoteDescription(
-                new SdpAdapter("setRemoteAnswer"), answerDesc);
+        remoteCandidates.onRemoteDescriptionPending();
+        peerConnection.setRemoteDescription(new NegotiationStep("setRemoteAnswer") {
+            @Override
+            public void onSetSuccess() {
+                exec.post("setRemoteAnswer", () -> {
+                    negotiation.onRemoteAnswerSet();
+                    remoteCandidates.onRemoteDescriptionSet();
+                    codecPolicy.logNegotiated(peerConnection, roomId);
+                    runPendingNegotiation();
+                });
+            }
+        }, answerDesc);
+    }
+
+    @Override
+    public void onRemoteMediaState(boolean videoPaused, String reason, boolean hidden) {
+        // 상대 화면이 가려진 동안만 내 영상도 멈춤 (상대 영상이 다른 사유로 멈춰 있어도 표시 여부만 따름)
+        setVideoPaused(PAUSE_REMOTE_BACKGROUND, hidden);
+        Listener l = listener;
+        if (l != null) l.onRemoteVideoPaused(videoPaused, reason);
+    }
+
+    @Override
+    public void onIceRestartRequested() {
+        exec.post("onIceRestartRequested", () -> iceRecovery.onRestartRequested());
     }
 
     @Override
     public void onIceCandidateReceived(IceCandidate candidate) {
-        peerConnection.addIceCandidate(candidate);
+        exec.post("onRemoteCandidate", () -> remoteCandidates.add(candidate));
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 영상 송신 중지/재개 (사유별로 관리, 모든 사유가 풀려야 재개)
+     * 인코딩을 inactive 로 바꿔 재협상 없이 대역폭을 음성에 양보하고 상대방에 알림
+     */
+    public void setVideoPaused(String reason, boolean paused) {
+        exec.post("setVideoPaused", () -> applyVideoPaused(reason, paused));
+    }
+
+    /**
+     * 통화 화면 표시 여부 (Activity onStart/onStop 에서 UI 스레드로 호출)
+     * 백그라운드: 원격 렌더링 분리, 카메라 캡처 중지, 영상 송신 중지 + 상대에 알림 → 음성만 유지
+     * 복귀: 같은 트랙/송신기로 재개 (재협상 없음)
+     */
+    public void setBackground(boolean hidden) {
+        VideoTrack remote;
+        SurfaceViewRenderer rv;
+        synchronized (this) {
+            if (disposed || background == hidden) return;
+            background = hidden;
+            remote = remoteVideoTrack;
+            rv = remoteView;
+        }
+        if (remote != null && rv != null) {
+            if (hidden) remote.removeSink(rv);
+            else addRemoteSink(remote, rv);
+        }
+        exec.post("setBackground", () -> {
+            telemetry.event("media_mode", hidden ? "background" : "foreground");
+            if (camera != null) {
+                if (hidden) camera.stop();
+                else camera.resume();
+            }
+            applyVideoPaused(PAUSE_BACKGROUND, hidden);
+        });
+    }
+
+    private void applyVideoPaused(String reason, boolean paused) {
+        boolean wasPaused, nowPaused, hidden;
+        synchronized (videoPauseReasons) {
+            wasPaused = !videoPauseReasons.isEmpty();
+            if (paused) videoPauseReasons.add(reason); else videoPauseReasons.remove(reason);
+            nowPaused = !videoPauseReasons.isEmpty();
+            hidden = videoPauseReasons.contains(PAUSE_BACKGROUND);
+        }
+        boolean flipped = wasPaused != nowPaused && videoSender != null;
+        if (flipped) {
+            if (layers != null) {
+                layers.setPaused(nowPaused);
+            } else {
+                RtpParameters params = videoSender.getParameters();
+                for (RtpParameters.Encoding e : params.encodings) e.active = !nowPaused;
+                videoSender.setParameters(params);
+            }
+            Log.d(TAG, "🎥 video " + (nowPaused ? "paused" : "resumed") + " (" + reason + ")");
+        }
+        // 화면 표시 여부는 중지 상태가 그대로여도 바뀔 때마다 알림 (음성 전용 중 백그라운드 전환 등)
+        if ((flipped || PAUSE_BACKGROUND.equals(reason)) && signalingClient != null) {
+            signalingClient.sendMediaState(nowPaused, reason, hidden);
+        }
+        Listener l = listener;
+        if (flipped && l != null) l.onLocalVideoPaused(nowPaused, reason);
     }
 
     /**
      * 연결 종료 시 리소스 해제
+     * 렌더러는 호출 직후 release 될 수 있으므로 sink 분리만 즉시 하고 나머지는 통화 스레드에서 정리
      */
     public void dispose() {
+        VideoTrack remote, local;
+        SurfaceViewRenderer rv, lv;
+        synchronized (this) {
+            if (disposed) return;
+            disposed = true;
+            remote = remoteVideoTrack;
+            local = localVideoTrack;
+            rv = remoteView;
+            lv = localView;
+        }
         Log.d(TAG, "dispose() called");
-        if (signalingClient != null) signalingClient.stop();
+        if (remote != null && rv != null) remote.removeSink(rv);
+        if (local != null && lv != null) local.removeSink(lv);
+        exec.post("dispose", () -> {
+            try {
+                release();
+            } finally {
+                // 이후 도착한 콜백은 실행하지 않음
+                exec.shutdown();
+            }
+        });
+    }
+
+    private void release() {
+        // 대기 중인 후보 묶음 폐기가 시그널링 중지보다 먼저 (중지 후 RTDB 쓰기 방지)
+        localCandidates.stop(telemetry);
+        if (signalingClient != null) {
+            signalingClient.stop();
+            signalingClient.report(telemetry);
+        }
+        if (iceRecovery != null) iceRecovery.stop();
+        handover.stop(telemetry);
+        thermal.stop(telemetry);
+        if (statsSampler != null) statsSampler.stop();
+        if (bitrateController != null) bitrateController.stop();
+        negotiation.close();
+        negotiation.report(telemetry);
+        if (remoteCandidates != null) remoteCandidates.report(telemetry);
+        exec.report(telemetry);
+        // 통화 기록 저장 + 전송 (디스크 버퍼 → gzip 배치)
+        TelemetryUploader.get(context).submit(telemetry.toJson(roomId, statsSampler));
+        if (camera != null) camera.dispose();
+        if (fileTransfer != null) fileTransfer.dispose();
         if (peerConnection != null) peerConnection.dispose();
-        if (factory != null) factory.dispose();
-        eglBase.release();
+        if (videoSource != null) videoSource.dispose();
+        if (audioSource != null) audioSource.dispose();
+        if (captureHelper != null) captureHelper.dispose();
+        // 팩토리는 해제하지 않고 Lease 만 반납 → 유휴 타임아웃 후 Holder 가 정리
+        factoryLease.release();
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.silmedy.videocall;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * AdaptiveBitrateController 결정 로직 (히스테리시스) 검증
+ */
+public class AdaptiveBitrateControllerTest {
+    private AdaptiveBitrateController controller;
+    private final List<AdaptiveBitrateController.Decision> decisions = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        controller = new AdaptiveBitrateController(null);
+        controller.addListener(decisions::add);
+    }
+
+    @Test
+    public void targetLevel_picksHighestLevelWithinBudget() {
+        assertEquals(0, AdaptiveBitrateController.targetLevel(3_000_000));
+        assertEquals(1, AdaptiveBitrateController.targetLevel(1_000_000));
+        assertEquals(4, AdaptiveBitrateController.targetLevel(50_000));
+    }
+
+    @Test
+    public void stepsDown_onlyAfterConsecutiveBadSamples() {
+        controller.onSample(200_000, 0, 50);
+        assertEquals(1, controller.getLevel());
+        assertFalse(decisions.get(0).changed);
+
+        controller.onSample(200_000, 0, 50);
+        assertEquals(4, controller.getLevel());
+        assertTrue(decisions.get(1).changed);
+        assertEquals(120_000, decisions.get(1).maxBitrateBps);
+    }
+
+    @Test
+    public void stepsUp_oneLevelAfterSustainedGoodSamples() {
+        controller.onSample(200_000, 0, 50);
+        controller.onSample(200_000, 0, 50);
+        assertEquals(4, controller.getLevel());
+
+        for (int i = 0; i < AdaptiveBitrateController.UP_SAMPLES - 1; i++) {
+            controller.onSample(5_000_000, 0, 50);
+        }
+        assertEquals(4, controller.getLevel());
+        controller.onSample(5_000_000, 0, 50);
+        assertEquals(3, controller.getLevel());
+    }
+
+    @Test
+    public void highLoss_forcesStepDownEvenWithBandwidth() {
+        controller.onSample(5_000_000, 0.2, 50);
+        controller.onSample(5_000_000, 0.2, 50);
+        assertEquals(2, controller.getLevel());
+        assertEquals("loss", decisions.get(1).reason);
+    }
+
+    @Test
+    public void mixedSamples_resetCounters() {
+        controller.onSample(200_000, 0, 50);
+        controller.onSample(1_000_000, 0, 50);
+        controller.onSample(200_000, 0, 50);
+        assertEquals(1, controller.getLevel());
+    }
+
+    @Test
+    public void levelFloor_capsQualityAndStepsDownImmediately() {
+        controller.setLevelFloor(3);
+        assertEquals(3, controller.getLevel());
+        assertEquals(AdaptiveBitrateController.REASON_THERMAL, decisions.get(0).reason);
+
+        // 대역폭이 충분해도 floor 보다 좋은 단계로 올라가지 않음
+        for (int i = 0; i < AdaptiveBitrateController.UP_SAMPLES * 2; i++) {
+            controller.onSample(5_000_000, 0, 50);
+        }
+        assertEquals(3, controller.getLevel());
+
+        controller.setLevelFloor(0);
+        for (int i = 0; i < AdaptiveBitrateController.UP_SAMPLES; i++) {
+            controller.onSample(5_000_000, 0, 50);
+        }
+        assertEquals(2, controller.getLevel());
+    }
+
+    @Test
+    public void scale_isRebasedOnReducedCapture() {
+        AdaptiveBitrateController.Level[] ladder = AdaptiveBitrateController.LADDER;
+        // 기준 캡처는 그대로
+        assertEquals(2.0, AdaptiveBitrateController.scaleFor(ladder[3], 480), 1e-9);
+        // 발열 단계의 320x240 캡처 + 단계 하한: 인코딩 높이가 기준 대비 단계 높이와 같아야 함 (160x120 / 80x60 아님)
+        for (ThermalGovernor.Step step : ThermalGovernor.LADDER) {
+            AdaptiveBitrateController.Level level = ladder[step.bitrateLevelFloor];
+            double encoded = step.height / AdaptiveBitrateController.scaleFor(level, step.height);
+            double expected = Math.min(step.height,
+                    AdaptiveBitrateController.REFERENCE_HEIGHT / level.scaleDownBy);
+            assertEquals(step.toString(), expected, encoded, 1e-9);
+        }
+        assertEquals(1.0, AdaptiveBitrateController.scaleFor(ladder[3], 240), 1e-9);
+        assertEquals(2.0, AdaptiveBitrateController.scaleFor(ladder[4], 240), 1e-9);
+        // 캡처보다 크게 확대하지 않음
+        assertEquals(1.0, AdaptiveBitrateController.scaleFor(ladder[2], 240), 1e-9);
+    }
+
+    @Test
+    public void levelFloor_notifiesFloorAndCarriesLastMeasurement() {
+        List<Integer> floors = new ArrayList<>();
+        controller.addListener(new AdaptiveBitrateController.Listener() {
+            @Override public void onDecision(AdaptiveBitrateController.Decision decision) { }
+            @Override public void onLevelFloor(int floor) { floors.add(floor); }
+        });
+        controller.onSample(2_000_000, 0.01, 80);
+
+        controller.setLevelFloor(3);
+        controller.setLevelFloor(3);
+        controller.setLevelFloor(0);
+        assertEquals(java.util.Arrays.asList(3, 0), floors);
+
+        // 발열 결정에는 측정하지 않은 0bps 대신 직전 측정값
+        AdaptiveBitrateController.Decision thermal = decisions.get(decisions.size() - 1);
+        assertEquals(AdaptiveBitrateController.REASON_THERMAL, thermal.reason);
+        assertEquals(2_000_000, thermal.availableBitrateBps);
+        assertEquals(80, thermal.rttMs, 1e-9);
+    }
+}
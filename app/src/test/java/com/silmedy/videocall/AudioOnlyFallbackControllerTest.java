@@ -0,0 +1,124 @@
+package com.silmedy.videocall;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * AudioOnlyFallbackController 전환 / 유지 시간 / 재개 probe 검증
+ */
+public class AudioOnlyFallbackControllerTest {
+    /** 영상이 꺼진 동안 GCC 추정치 (음성 송신량 수준) */
+    private static final long AUDIO_ONLY_ESTIMATE = 40_000;
+    private static final long LOW = 60_000;
+    private static final long GOOD = 400_000;
+
+    private AudioOnlyFallbackController controller;
+    private final List<String> changes = new ArrayList<>();
+    private long now;
+
+    @Before
+    public void setUp() {
+        controller = new AudioOnlyFallbackController(
+                (audioOnly, reason, bps) -> changes.add(audioOnly + ":" + reason));
+        now = 0;
+    }
+
+    /** 1초 간격 샘플을 durationMs 동안 */
+    private void feed(long bps, long durationMs) {
+        for (long end = now + durationMs; now < end; ) {
+            now += 1000;
+            controller.onSample(now, bps);
+        }
+    }
+
+    /** 음성 전용이 될 때까지 붕괴 유지 */
+    private void collapse() {
+        feed(LOW, AudioOnlyFallbackController.FALLBACK_HOLD_MS + 1000);
+        assertTrue(controller.isAudioOnly());
+    }
+
+    @Test
+    public void fallsBackOnlyAfterHoldTime() {
+        feed(GOOD, 5_000);
+        feed(LOW, AudioOnlyFallbackController.FALLBACK_HOLD_MS);
+        assertFalse(controller.isAudioOnly());
+        feed(LOW, 1000);
+        assertTrue(controller.isAudioOnly());
+        assertEquals("[true:bandwidth]", changes.toString());
+    }
+
+    @Test
+    public void shortDipResetsHoldTimer() {
+        feed(LOW, 4_000);
+        feed(GOOD, 1_000);
+        feed(LOW, 4_000);
+        assertFalse(controller.isAudioOnly());
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void probesVideoEvenThoughEstimateStaysAtAudioLevel() {
+        collapse();
+        // 영상이 꺼진 동안 추정치는 음성 수준에 머묾 → 추정치로는 회복 불가
+        feed(AUDIO_ONLY_ESTIMATE, AudioOnlyFallbackController.PROBE_INITIAL_MS - 1000);
+        assertTrue(controller.isAudioOnly());
+        feed(AUDIO_ONLY_ESTIMATE, 1000);
+        assertFalse(controller.isAudioOnly());
+        assertTrue(controller.isProbing());
+        assertEquals("[true:bandwidth, false:probe]", changes.toString());
+    }
+
+    @Test
+    public void probeConfirmsWhenEstimateRecovers() {
+        collapse();
+        feed(AUDIO_ONLY_ESTIMATE, AudioOnlyFallbackController.PROBE_INITIAL_MS);
+        assertTrue(controller.isProbing());
+
+        // 영상을 켜면 추정치가 곧 올라옴
+        feed(LOW, 2_000);
+        feed(GOOD, AudioOnlyFallbackController.PROBE_CONFIRM_MS);
+        assertFalse(controller.isAudioOnly());
+        assertFalse(controller.isProbing());
+
+        // 확정 후 다시 붕괴하면 처음 간격으로 probe
+        collapse();
+        feed(AUDIO_ONLY_ESTIMATE, AudioOnlyFallbackController.PROBE_INITIAL_MS);
+        assertTrue(controller.isProbing());
+    }
+
+    @Test
+    public void failedProbeFallsBackWithExponentialBackoff() {
+        collapse();
+        long interval = AudioOnlyFallbackController.PROBE_INITIAL_MS;
+        for (int i = 0; i < 5; i++) {
+            feed(AUDIO_ONLY_ESTIMATE, interval - 1000);
+            assertTrue("probe " + i + " 이른 재개", controller.isAudioOnly());
+            feed(AUDIO_ONLY_ESTIMATE, 1000);
+            assertTrue(controller.isProbing());
+
+            // probe 중에도 붕괴 → 다시 음성 전용
+            collapse();
+            assertFalse(controller.isProbing());
+            interval = Math.min(interval * 2, AudioOnlyFallbackController.PROBE_MAX_MS);
+        }
+        assertEquals(AudioOnlyFallbackController.PROBE_MAX_MS, interval);
+        assertEquals("true:probe_failed", changes.get(changes.size() - 1));
+    }
+
+    @Test
+    public void missingEstimateIsIgnored() {
+        StatsSampler.Sample sample = new StatsSampler.Sample();
+        sample.values[StatsRingBuffer.AVAILABLE_OUT_BPS] = StatsRingBuffer.MISSING;
+        for (int i = 1; i <= 10; i++) {
+            sample.timestampMs = i * 1000L;
+            controller.onSample(sample);
+        }
+        assertFalse(controller.isAudioOnly());
+        assertTrue(changes.isEmpty());
+    }
+}
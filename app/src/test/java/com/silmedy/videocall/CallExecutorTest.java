@@ -0,0 +1,142 @@
+package com.silmedy.videocall;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * CallExecutor 순서 보장 / shutdown 후 폐기 / 집계 검증
+ */
+public class CallExecutorTest {
+    private final CallExecutor exec = new CallExecutor("test");
+
+    @After
+    public void tearDown() {
+        exec.shutdown();
+    }
+
+    /** 앞선 작업이 모두 끝날 때까지 대기 */
+    private void drain() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        exec.post("drain", done::countDown);
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runsTasksInOrderOnOneThread() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            exec.post("t" + n, () -> {
+                order.add(n);
+                threads.add(Thread.currentThread());
+                assertTrue(exec.isCurrentThread());
+            });
+        }
+        drain();
+
+        assertEquals(20, order.size());
+        for (int i = 0; i < 20; i++) assertEquals(i, (int) order.get(i));
+        for (Thread t : threads) assertSame(threads.get(0), t);
+        assertFalse(exec.isCurrentThread());
+    }
+
+    @Test
+    public void failingTaskDoesNotStopLaterTasks() throws Exception {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        exec.post("boom", () -> { throw new IllegalStateException("boom"); });
+        exec.post("after", () -> ran.add("after"));
+        drain();
+
+        assertEquals(Collections.singletonList("after"), ran);
+    }
+
+    @Test
+    public void tracksQueueDepthAndWait() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        exec.post("block", () -> {
+            started.countDown();
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 3; i++) exec.post("queued", () -> {});
+        assertTrue(exec.getQueueDepth() >= 3);
+
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        Thread.sleep(30);
+        release.countDown();
+        drain();
+
+        assertEquals(0, exec.getQueueDepth());
+        // drain 작업 자체의 집계는 latch 이후라 아직 반영 전일 수 있음
+        assertTrue(exec.getTasks() >= 4);
+        assertTrue(exec.getMaxDepth() >= 3);
+        assertTrue(exec.getWaitMaxMs() >= 30);
+        assertTrue(exec.getRunMaxMs() >= 30);
+    }
+
+    @Test
+    public void tasksAfterShutdownAreDropped() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        exec.post("block", () -> {
+            started.countDown();
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ran.add("block");
+        });
+        exec.post("queued", () -> ran.add("queued"));
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        exec.shutdown();
+        exec.post("late", () -> ran.add("late"));
+        release.countDown();
+        Thread.sleep(100);
+
+        // 실행 중이던 작업만 끝까지, 대기 중이던 작업은 폐기
+        assertEquals(Collections.singletonList("block"), ran);
+        assertEquals(1, exec.getDropped());
+    }
+
+    @Test
+    public void postDelayed_runsOnCallThreadAfterDelay() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        List<Boolean> onCallThread = Collections.synchronizedList(new ArrayList<>());
+        long start = System.nanoTime();
+        assertNotNull(exec.postDelayed("delayed", () -> {
+            onCallThread.add(exec.isCurrentThread());
+            done.countDown();
+        }, 50));
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(Collections.singletonList(true), onCallThread);
+    }
+
+    @Test
+    public void postDelayed_isCancelledByShutdown() throws Exception {
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        assertNotNull(exec.postDelayed("delayed", () -> ran.add("delayed"), 50));
+        exec.shutdown();
+        assertNull(exec.postDelayed("late", () -> ran.add("late"), 0));
+        Thread.sleep(100);
+
+        assertTrue(ran.isEmpty());
+        assertEquals(0, exec.getQueueDepth());
+    }
+}
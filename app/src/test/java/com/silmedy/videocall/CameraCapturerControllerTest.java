@@ -0,0 +1,68 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+import org.webrtc.CameraEnumerationAndroid.CaptureFormat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CameraCapturerController.selectFormat 포맷 선택 순위 검증
+ */
+public class CameraCapturerControllerTest {
+
+    private static CaptureFormat format(int width, int height, int maxFps) {
+        return new CaptureFormat(width, height, 15_000, maxFps * 1000);
+    }
+
+    @Test
+    public void exactMatchWins() {
+        List<CaptureFormat> formats = Arrays.asList(
+                format(320, 240, 30), format(640, 480, 30), format(1280, 720, 30));
+        assertSame(formats.get(1), CameraCapturerController.selectFormat(formats, 640, 480, 30));
+    }
+
+    @Test
+    public void fpsShortfallOutweighsSizeMismatch() {
+        // 640x480 은 15fps 까지만 → 30fps 가 되는 800x600 선택
+        CaptureFormat slow = format(640, 480, 15);
+        CaptureFormat larger = format(800, 600, 30);
+        assertSame(larger, CameraCapturerController.selectFormat(
+                Arrays.asList(slow, larger), 640, 480, 30));
+
+        // 훨씬 큰 포맷이라도 fps 가 되면 우선
+        CaptureFormat hd = format(1920, 1440, 30);
+        assertSame(hd, CameraCapturerController.selectFormat(
+                Arrays.asList(slow, hd), 640, 480, 30));
+    }
+
+    @Test
+    public void closestSizeAmongFormatsReachingFps() {
+        List<CaptureFormat> formats = Arrays.asList(
+                format(1280, 960, 30), format(800, 600, 30), format(320, 240, 30));
+        assertSame(formats.get(1), CameraCapturerController.selectFormat(formats, 640, 480, 30));
+    }
+
+    @Test
+    public void smallestShortfallWhenNoFormatReachesFps() {
+        CaptureFormat f15 = format(640, 480, 15);
+        CaptureFormat f24 = format(1280, 960, 24);
+        assertSame(f24, CameraCapturerController.selectFormat(Arrays.asList(f15, f24), 640, 480, 30));
+    }
+
+    @Test
+    public void aspectRatioMatchPreferredAtSameFps() {
+        CaptureFormat wide = format(640, 360, 30);
+        CaptureFormat standard = format(480, 360, 30);
+        assertSame(standard, CameraCapturerController.selectFormat(
+                Arrays.asList(wide, standard), 640, 480, 30));
+    }
+
+    @Test
+    public void emptyListReturnsNull() {
+        assertNull(CameraCapturerController.selectFormat(Collections.emptyList(), 640, 480, 30));
+    }
+}
@@ -0,0 +1,54 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+import org.webrtc.VideoCodecInfo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * CodecCapabilityCache 저장 형식 왕복 검증
+ */
+public class CodecCapabilityCacheTest {
+
+    @Test
+    public void roundTripKeepsParamsAndScalabilityModes() throws Exception {
+        Map<String, String> h264 = new HashMap<>();
+        h264.put("profile-level-id", "42e01f");
+        h264.put("packetization-mode", "1");
+        VideoCodecInfo[] probed = {
+                new VideoCodecInfo("VP8", new HashMap<>(), Arrays.asList("L1T1", "L1T2", "L1T3")),
+                new VideoCodecInfo("VP9", Collections.singletonMap("profile-id", "0"),
+                        Arrays.asList("L1T1", "L3T3", "L3T3_KEY")),
+                new VideoCodecInfo("H264", h264, Collections.emptyList()),
+        };
+
+        VideoCodecInfo[] restored = CodecCapabilityCache.fromJson(CodecCapabilityCache.toJson(probed));
+
+        assertEquals(probed.length, restored.length);
+        for (int i = 0; i < probed.length; i++) {
+            assertEquals(probed[i].name, restored[i].name);
+            assertEquals(probed[i].params, restored[i].params);
+            assertEquals(probed[i].name, probed[i].scalabilityModes, restored[i].scalabilityModes);
+        }
+        assertTrue(restored[1].scalabilityModes.contains(SimulcastController.SVC_SCALABILITY_MODE));
+    }
+
+    @Test
+    public void entryWithoutModesReadsAsEmptyList() throws Exception {
+        VideoCodecInfo[] restored = CodecCapabilityCache.fromJson(
+                "[{\"name\":\"VP8\",\"params\":{}}]");
+        assertEquals("VP8", restored[0].name);
+        assertTrue(restored[0].scalabilityModes.isEmpty());
+    }
+
+    @Test
+    public void cacheKeyIncludesFormatVersion() {
+        assertTrue(CodecCapabilityCache.currentKey()
+                .endsWith("|v" + CodecCapabilityCache.FORMAT_VERSION));
+    }
+}
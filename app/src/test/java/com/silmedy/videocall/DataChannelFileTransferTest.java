@@ -0,0 +1,373 @@
+package com.silmedy.videocall;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.webrtc.DataChannel;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * DataChannelFileTransfer 제어 메시지(offer/accept/done/verified/cancel)와 청크 처리 검증
+ * 가짜 DataChannel 로 상대방 역할을 하고, 잘못된 입력에 대한 거부도 확인
+ */
+public class DataChannelFileTransferTest {
+    private static final int CHUNK = DataChannelFileTransfer.CHUNK_SIZE;
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** 기본은 열린 상태인 채널, 보낸 메시지를 기록 */
+    private static final class FakeChannel extends DataChannel {
+        final List<JSONObject> controls = new ArrayList<>();
+        final List<ByteBuffer> chunks = new ArrayList<>();
+        volatile State state = State.OPEN;
+
+        FakeChannel() {
+            super(0);
+        }
+
+        @Override public String label() { return DataChannelFileTransfer.CHANNEL_LABEL; }
+        @Override public State state() { return state; }
+        @Override public long bufferedAmount() { return 0; }
+        @Override public void registerObserver(Observer observer) {}
+        @Override public void unregisterObserver() {}
+        @Override public void close() {}
+        @Override public void dispose() {}
+
+        @Override
+        public synchronized boolean send(Buffer buffer) {
+            ByteBuffer copy = ByteBuffer.allocate(buffer.data.remaining());
+            copy.put(buffer.data.duplicate());
+            copy.flip();
+            if (buffer.binary) {
+                chunks.add(copy);
+            } else {
+                try {
+                    controls.add(new JSONObject(new String(copy.array(), StandardCharsets.UTF_8)));
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            }
+            return true;
+        }
+
+        synchronized List<String> types() {
+            List<String> types = new ArrayList<>();
+            for (JSONObject o : controls) types.add(o.optString("type"));
+            return types;
+        }
+
+        synchronized JSONObject last() {
+            return controls.get(controls.size() - 1);
+        }
+    }
+
+    private final List<String> events = new ArrayList<>();
+    private FileTransferStore store;
+    private DataChannelFileTransfer transfer;
+    private FakeChannel channel;
+    private byte[] content;
+    private String sha256;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new FileTransferStore(tmp.newFolder("transfers"));
+        transfer = new DataChannelFileTransfer(store, null, null);
+        transfer.setListener(new DataChannelFileTransfer.Listener() {
+            @Override public void onSent(String id) { events.add("sent:" + id); }
+            @Override public void onReceived(String id, File file) { events.add("received:" + id); }
+            @Override public void onFailed(String id, String reason) { events.add("failed:" + id + ":" + reason); }
+        });
+        channel = new FakeChannel();
+        transfer.attach(channel);
+
+        content = new byte[CHUNK * 2 + 100];
+        new Random(11).nextBytes(content);
+        File src = tmp.newFile("src.bin");
+        Files.write(src.toPath(), content);
+        try (FileChannel ch = FileChannel.open(src.toPath(), StandardOpenOption.READ)) {
+            sha256 = FileTransferStore.sha256(ch);
+        }
+        transfer.awaitIdle();
+    }
+
+    @After
+    public void tearDown() {
+        transfer.dispose();
+    }
+
+    private void control(String json) throws InterruptedException {
+        transfer.onMessage(new DataChannel.Buffer(
+                ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)), false));
+        transfer.awaitIdle();
+    }
+
+    private void offer(String id, long size, int chunk) throws InterruptedException {
+        control("{\"type\":\"offer\",\"id\":\"" + id + "\",\"stream\":1,\"name\":\"rx.bin\",\"size\":"
+                + size + ",\"sha256\":\"" + sha256 + "\",\"chunk\":" + chunk + "}");
+    }
+
+    private void chunk(int stream, long offset, byte[] data, int from, int length)
+            throws InterruptedException {
+        ByteBuffer frame = ByteBuffer.allocate(DataChannelFileTransfer.HEADER_BYTES + length);
+        frame.putInt(stream).putLong(offset).put(data, from, length);
+        frame.flip();
+        transfer.onMessage(new DataChannel.Buffer(frame, true));
+        transfer.awaitIdle();
+    }
+
+    private void sendAllChunks(long from) throws InterruptedException {
+        for (long off = from; off < content.length; off += CHUNK) {
+            int len = (int) Math.min(CHUNK, content.length - off);
+            chunk(1, off, content, (int) off, len);
+        }
+    }
+
+    // ── 수신 측 ──
+
+    @Test
+    public void offerChunksDone_receivesVerifiedFile() throws Exception {
+        offer("a", content.length, CHUNK);
+        assertEquals(Arrays.asList("accept"), channel.types());
+        assertEquals(0, channel.last().getLong("offset"));
+
+        sendAllChunks(0);
+        control("{\"type\":\"done\",\"id\":\"a\"}");
+
+        assertEquals("verified", channel.last().getString("type"));
+        assertTrue(channel.last().getBoolean("ok"));
+        assertEquals(Arrays.asList("received:a"), events);
+        assertArrayEquals(content, Files.readAllBytes(new File(store.getDir(), "rx.bin").toPath()));
+    }
+
+    @Test
+    public void offerResumesFromExistingPartAtChunkBoundary() throws Exception {
+        Files.write(store.partFile("r").toPath(), Arrays.copyOf(content, CHUNK + 500));
+
+        offer("r", content.length, CHUNK);
+        assertEquals(CHUNK, channel.last().getLong("offset"));
+
+        sendAllChunks(CHUNK);
+        control("{\"type\":\"done\",\"id\":\"r\"}");
+        assertTrue(channel.last().getBoolean("ok"));
+        assertEquals(Arrays.asList("received:r"), events);
+    }
+
+    @Test
+    public void corruptedContentReportsChecksumMismatch() throws Exception {
+        offer("c", content.length, CHUNK);
+        byte[] wrong = content.clone();
+        wrong[5] ^= 1;
+        chunk(1, 0, wrong, 0, CHUNK);
+        chunk(1, CHUNK, content, CHUNK, content.length - CHUNK);
+        control("{\"type\":\"done\",\"id\":\"c\"}");
+
+        assertFalse(channel.last().getBoolean("ok"));
+        assertEquals(Arrays.asList("failed:c:checksum_mismatch"), events);
+        assertFalse(store.partFile("c").exists());
+    }
+
+    @Test
+    public void peerCancelDeletesPart() throws Exception {
+        offer("x", content.length, CHUNK);
+        chunk(1, 0, content, 0, CHUNK);
+        assertTrue(store.partFile("x").exists());
+
+        control("{\"type\":\"cancel\",\"id\":\"x\"}");
+        assertFalse(store.partFile("x").exists());
+        assertEquals(Arrays.asList("failed:x:cancelled"), events);
+
+        // 취소 후 도착한 청크는 무시
+        chunk(1, CHUNK, content, CHUNK, CHUNK);
+        assertFalse(store.partFile("x").exists());
+    }
+
+    // ── 잘못된 입력 ──
+
+    @Test
+    public void malformedControlMessagesAreIgnored() throws Exception {
+        control("not json");
+        control("{\"type\":\"unknown\",\"id\":\"a\"}");
+        control("{\"type\":\"done\",\"id\":\"nobody\"}");
+        control("{\"type\":\"accept\",\"id\":\"nobody\",\"offset\":5}");
+        control("{\"type\":\"verified\",\"id\":\"nobody\",\"ok\":true}");
+        assertTrue(channel.controls.isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void offerWithInvalidChunkSizeIsRejected() throws Exception {
+        for (int chunk : new int[]{0, -1, DataChannelFileTransfer.MAX_CHUNK_SIZE + 1}) {
+            events.clear();
+            offer("bad", content.length, chunk);
+            assertEquals("chunk=" + chunk, "cancel", channel.last().getString("type"));
+            assertEquals(Arrays.asList("failed:bad:invalid_offer"), events);
+        }
+        assertFalse(channel.types().contains("accept"));
+    }
+
+    @Test
+    public void offerWithNegativeSizeOrNoIdIsRejected() throws Exception {
+        offer("neg", -5, CHUNK);
+        assertEquals("cancel", channel.last().getString("type"));
+        control("{\"type\":\"offer\",\"stream\":1,\"size\":10,\"chunk\":1024}");
+        assertEquals(Arrays.asList("failed:neg:invalid_offer", "failed::invalid_offer"), events);
+        assertFalse(channel.types().contains("accept"));
+    }
+
+    @Test
+    public void negativeOffsetCancelsTransferWithoutCrashing() throws Exception {
+        offer("n", content.length, CHUNK);
+        chunk(1, -1, content, 0, 100);
+
+        assertEquals("cancel", channel.last().getString("type"));
+        assertEquals(Arrays.asList("failed:n:invalid_chunk"), events);
+        assertFalse(store.partFile("n").exists());
+
+        // io 스레드가 살아 있어 다음 전송을 처리
+        offer("next", content.length, CHUNK);
+        assertEquals("accept", channel.last().getString("type"));
+    }
+
+    @Test
+    public void offsetBeyondSizeCancelsWithoutSparseWrite() throws Exception {
+        offer("big", content.length, CHUNK);
+        chunk(1, 1L << 40, content, 0, 100);
+
+        assertEquals("cancel", channel.last().getString("type"));
+        assertEquals(Arrays.asList("failed:big:invalid_chunk"), events);
+        assertFalse(store.partFile("big").exists());
+    }
+
+    @Test
+    public void chunkPastEndOfFileIsRejected() throws Exception {
+        offer("end", content.length, CHUNK);
+        // 마지막 위치에서 크기를 넘는 청크
+        chunk(1, content.length - 10, content, 0, 20);
+        assertEquals(Arrays.asList("failed:end:invalid_chunk"), events);
+
+        // 정확히 끝까지는 허용
+        events.clear();
+        offer("end2", content.length, CHUNK);
+        chunk(1, content.length - 10, content, 0, 10);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void shortFramesAndUnknownStreamsAreIgnored() throws Exception {
+        transfer.onMessage(new DataChannel.Buffer(ByteBuffer.wrap(new byte[5]), true));
+        chunk(42, 0, content, 0, 100);
+        assertTrue(channel.controls.isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    // ── 송신 측 ──
+
+    /** 토큰 버킷이 바로 차도록 최대 속도 허용 */
+    private void allowFullRate() {
+        StatsSampler.Sample sample = new StatsSampler.Sample();
+        sample.values[StatsRingBuffer.AVAILABLE_OUT_BPS] = 100_000_000;
+        transfer.onSample(sample);
+    }
+
+    private void waitFor(String type) throws Exception {
+        for (int i = 0; i < 200 && !channel.types().contains(type); i++) {
+            Thread.sleep(10);
+            transfer.awaitIdle();
+        }
+        assertTrue("no " + type + " in " + channel.types(), channel.types().contains(type));
+    }
+
+    @Test
+    public void sendOffersThenStreamsFromAcceptedOffset() throws Exception {
+        allowFullRate();
+        File src = new File(tmp.getRoot(), "src.bin");
+        String id = transfer.send(src);
+        transfer.awaitIdle();
+
+        JSONObject offer = channel.last();
+        assertEquals("offer", offer.getString("type"));
+        assertEquals(id, offer.getString("id"));
+        assertEquals(content.length, offer.getLong("size"));
+        assertEquals(sha256, offer.getString("sha256"));
+        assertEquals(CHUNK, offer.getInt("chunk"));
+
+        // 수신 측이 첫 청크를 이미 가지고 있음
+        control("{\"type\":\"accept\",\"id\":\"" + id + "\",\"offset\":" + CHUNK + "}");
+        waitFor("done");
+
+        ByteBuffer first = channel.chunks.get(0);
+        assertEquals(offer.getInt("stream"), first.getInt());
+        assertEquals(CHUNK, first.getLong());
+        long sent = 0;
+        for (ByteBuffer b : channel.chunks) sent += b.limit() - DataChannelFileTransfer.HEADER_BYTES;
+        assertEquals(content.length - CHUNK, sent);
+
+        control("{\"type\":\"verified\",\"id\":\"" + id + "\",\"ok\":true}");
+        assertEquals(Arrays.asList("sent:" + id), events);
+    }
+
+    @Test
+    public void acceptOffsetIsClampedToFile() throws Exception {
+        allowFullRate();
+        String id = transfer.send(new File(tmp.getRoot(), "src.bin"));
+        transfer.awaitIdle();
+
+        control("{\"type\":\"accept\",\"id\":\"" + id + "\",\"offset\":-100}");
+        waitFor("done");
+        channel.chunks.get(0).getInt();
+        assertEquals(0, channel.chunks.get(0).getLong());
+    }
+
+    @Test
+    public void peerCancelRejectsOutgoing() throws Exception {
+        String id = transfer.send(new File(tmp.getRoot(), "src.bin"));
+        transfer.awaitIdle();
+        control("{\"type\":\"cancel\",\"id\":\"" + id + "\"}");
+        assertEquals(Arrays.asList("failed:" + id + ":rejected"), events);
+    }
+
+    @Test
+    public void closedChannel_requestsReopenAndDisposeDoesNotWaitForIo() throws Exception {
+        CountDownLatch reopenRequested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 재생성 요청이 io 스레드를 붙잡고 있는 상황
+        DataChannelFileTransfer t = new DataChannelFileTransfer(store, null, () -> {
+            reopenRequested.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        FakeChannel ch = new FakeChannel();
+        t.attach(ch);
+        t.awaitIdle();
+
+        ch.state = DataChannel.State.CLOSED;
+        t.onStateChange();
+        assertTrue(reopenRequested.await(DataChannelFileTransfer.REOPEN_DELAY_MS + 2_000,
+                TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        t.dispose();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        release.countDown();
+    }
+}
@@ -0,0 +1,65 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * EglContextManager 참조 계수 / 중복 반납 / 재사용 검증 (실제 EGL 생성 대신 null 루트)
+ */
+public class EglContextManagerTest {
+    private int creates;
+    private final EglContextManager manager = new EglContextManager(() -> {
+        creates++;
+        return null;
+    });
+
+    @Test
+    public void createsRootOnceAndCountsHandles() {
+        EglContextManager.Handle a = manager.acquire("factory");
+        EglContextManager.Handle b = manager.acquire("renderers");
+
+        assertEquals(1, creates);
+        assertEquals(2, manager.getHandleCount());
+        assertEquals(Arrays.asList("factory", "renderers"), manager.getOwners());
+
+        a.release();
+        assertEquals(Collections.singletonList("renderers"), manager.getOwners());
+        b.release();
+        assertEquals(0, manager.getHandleCount());
+
+        // 모두 반납해도 컨텍스트는 유지 → 다음 통화는 생성 비용 없음
+        manager.acquire("next call");
+        assertEquals(1, creates);
+        assertEquals(1, manager.getCreatedCount());
+    }
+
+    @Test
+    public void releaseIsIdempotent() {
+        EglContextManager.Handle a = manager.acquire("a");
+        EglContextManager.Handle b = manager.acquire("b");
+
+        a.release();
+        a.release();
+        // 다른 사용자의 사용권은 그대로
+        assertEquals(1, manager.getHandleCount());
+        assertTrue(a.isReleased());
+        assertFalse(b.isReleased());
+    }
+
+    @Test
+    public void releasedHandleCannotBeUsed() {
+        EglContextManager.Handle a = manager.acquire("a");
+        a.getContext();
+        a.release();
+        try {
+            a.getContext();
+            fail("반납된 Handle 사용");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+    }
+}
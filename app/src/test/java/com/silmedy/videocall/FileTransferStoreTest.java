@@ -0,0 +1,98 @@
+package com.silmedy.videocall;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * FileTransferStore 이어받기 / 위치 지정 기록 / SHA-256 검증
+ */
+public class FileTransferStoreTest {
+    private static final int CHUNK = 1024;
+
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private FileTransferStore store;
+    private byte[] content;
+    private String sha256;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new FileTransferStore(tmp.newFolder("transfers"));
+        content = new byte[CHUNK * 5 + 123];
+        new Random(7).nextBytes(content);
+        File src = tmp.newFile("src.bin");
+        Files.write(src.toPath(), content);
+        try (FileChannel ch = FileChannel.open(src.toPath(), StandardOpenOption.READ)) {
+            sha256 = FileTransferStore.sha256(ch);
+        }
+    }
+
+    private void writeChunks(FileChannel ch, long from, long to) throws IOException {
+        for (long off = from; off < to; off += CHUNK) {
+            int len = (int) Math.min(CHUNK, content.length - off);
+            FileTransferStore.writeChunk(ch, off, ByteBuffer.wrap(content, (int) off, len));
+        }
+    }
+
+    @Test
+    public void resumeOffset_roundsDownToChunkBoundary() {
+        assertEquals(0, FileTransferStore.resumeOffset(0, 10_000, CHUNK));
+        assertEquals(2 * CHUNK, FileTransferStore.resumeOffset(2 * CHUNK + 100, 10_000, CHUNK));
+        assertEquals(3 * CHUNK, FileTransferStore.resumeOffset(3 * CHUNK, 10_000, CHUNK));
+        // 전체보다 긴 .part 는 다른 파일 → 처음부터
+        assertEquals(0, FileTransferStore.resumeOffset(20_000, 10_000, CHUNK));
+    }
+
+    @Test
+    public void resumesFromPartialFileAndVerifies() throws IOException {
+        long[] offset = new long[1];
+        FileChannel ch = store.openPart("t1", content.length, CHUNK, offset);
+        assertEquals(0, offset[0]);
+        writeChunks(ch, 0, 2 * CHUNK);
+        // 마지막 청크 일부만 기록된 상태에서 끊김
+        FileTransferStore.writeChunk(ch, 2 * CHUNK, ByteBuffer.wrap(content, 2 * CHUNK, 100));
+        ch.close();
+
+        ch = store.openPart("t1", content.length, CHUNK, offset);
+        assertEquals(2 * CHUNK, offset[0]);
+        assertEquals(2 * CHUNK, ch.size());
+        writeChunks(ch, offset[0], content.length);
+
+        File done = store.complete("t1", "lab.jpg", ch, sha256);
+        assertNotNull(done);
+        assertEquals("lab.jpg", done.getName());
+        assertArrayEquals(content, Files.readAllBytes(done.toPath()));
+        assertFalse(store.partFile("t1").exists());
+    }
+
+    @Test
+    public void checksumMismatch_deletesPart() throws IOException {
+        long[] offset = new long[1];
+        FileChannel ch = store.openPart("t2", content.length, CHUNK, offset);
+        writeChunks(ch, 0, content.length);
+        FileTransferStore.writeChunk(ch, 10, ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+        assertNull(store.complete("t2", "rx.pdf", ch, sha256));
+        assertFalse(store.partFile("t2").exists());
+        assertFalse(new File(store.getDir(), "rx.pdf").exists());
+    }
+
+    @Test
+    public void safeName_stripsPathSeparators() {
+        assertEquals(".._.._etc_passwd", FileTransferStore.safeName("../../etc/passwd"));
+        assertEquals("file", FileTransferStore.safeName(".."));
+        assertEquals("file", FileTransferStore.safeName(null));
+    }
+}
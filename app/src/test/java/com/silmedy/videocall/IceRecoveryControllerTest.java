@@ -0,0 +1,109 @@
+package com.silmedy.videocall;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.webrtc.PeerConnection.IceConnectionState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * IceRecoveryController 상태 전이 검증 (타이머 만료는 직접 호출)
+ */
+public class IceRecoveryControllerTest {
+    private IceRecoveryController recovery;
+    private final List<Integer> restarts = new ArrayList<>();
+    private final List<Long> recovered = new ArrayList<>();
+    private final List<String> endings = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        recovery = new IceRecoveryController(new IceRecoveryController.Callback() {
+            @Override public void onRestartIce(int attempt) { restarts.add(attempt); }
+            @Override public void onRecovered(long recoveryMs, int count) { recovered.add(recoveryMs); }
+            @Override public void onGiveUp(String reason) { endings.add(reason); }
+        });
+        recovery.onIceConnectionChange(IceConnectionState.CONNECTED, 0);
+    }
+
+    @Test
+    public void transientDisconnect_recoversWithoutRestart() {
+        recovery.onIceConnectionChange(IceConnectionState.DISCONNECTED, 1_000);
+        assertTrue(recovery.isRecovering());
+
+        recovery.onIceConnectionChange(IceConnectionState.CONNECTED, 2_500);
+
+        assertTrue(restarts.isEmpty());
+        assertEquals(1, recovered.size());
+        assertEquals(1_500L, (long) recovered.get(0));
+        assertFalse(recovery.isRecovering());
+    }
+
+    @Test
+    public void graceExpired_restartsIceAndReportsRecoveryTime() {
+        recovery.onIceConnectionChange(IceConnectionState.DISCONNECTED, 1_000);
+        recovery.onGraceExpired();
+        assertEquals(1, restarts.size());
+
+        // 재시작 중 DISCONNECTED 는 무시
+        recovery.onIceConnectionChange(IceConnectionState.DISCONNECTED, 5_000);
+        assertEquals(1, restarts.size());
+
+        recovery.onIceConnectionChange(IceConnectionState.CONNECTED, 7_000);
+        assertEquals(6_000L, (long) recovered.get(0));
+        assertTrue(endings.isEmpty());
+    }
+
+    @Test
+    public void restartTimeout_retriesThenGivesUp() {
+        recovery.onIceConnectionChange(IceConnectionState.DISCONNECTED, 1_000);
+        recovery.onGraceExpired();
+        for (int i = 1; i < IceRecoveryController.MAX_RESTARTS; i++) {
+            recovery.onRestartTimeout();
+        }
+        assertEquals(IceRecoveryController.MAX_RESTARTS, restarts.size());
+        assertTrue(endings.isEmpty());
+
+        recovery.onRestartTimeout();
+        assertEquals(1, endings.size());
+        assertEquals(IceRecoveryController.END_TIMEOUT, endings.get(0));
+    }
+
+    @Test
+    public void networkChange_restartsWithoutGrace() {
+        recovery.onNetworkChanged(1_000);
+        assertEquals(1, restarts.size());
+        assertTrue(recovery.isRecovering());
+
+        // 재시작 중 다시 전환되면 새 네트워크 기준으로 한 번 더
+        recovery.onNetworkChanged(1_500);
+        assertEquals(2, restarts.size());
+
+        recovery.onIceConnectionChange(IceConnectionState.CONNECTED, 2_200);
+        assertEquals(1_200L, (long) recovered.get(0));
+    }
+
+    @Test
+    public void failed_endsImmediatelyOnce() {
+        recovery.onIceConnectionChange(IceConnectionState.FAILED, 1_000);
+        recovery.onIceConnectionChange(IceConnectionState.CLOSED, 1_100);
+
+        assertEquals(1, endings.size());
+        assertEquals(IceRecoveryController.END_FAILED, endings.get(0));
+        assertTrue(restarts.isEmpty());
+    }
+
+    @Test
+    public void peerRequest_skipsGracePeriod() {
+        recovery.onRestartRequested(2_000);
+        assertEquals(1, restarts.size());
+        // 이미 재시작 중이면 중복 요청 무시
+        recovery.onRestartRequested(2_100);
+        assertEquals(1, restarts.size());
+
+        recovery.onIceConnectionChange(IceConnectionState.CONNECTED, 3_000);
+        assertEquals(1_000L, (long) recovered.get(0));
+    }
+}
@@ -0,0 +1,150 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import static com.silmedy.videocall.NegotiationStateMachine.Action;
+import static com.silmedy.videocall.NegotiationStateMachine.State;
+import static org.junit.Assert.*;
+
+/**
+ * NegotiationStateMachine 전이 / 중복·역순 SDP 무시 / glare 처리 검증
+ */
+public class NegotiationStateMachineTest {
+
+    private static String sdp(String sessionId, int version, String body) {
+        return "v=0\r\no=- " + sessionId + " " + version + " IN IP4 127.0.0.1\r\ns=-\r\n" + body + "\r\n";
+    }
+
+    /** 원격 offer 적용 → answer 전송까지 */
+    private static void answer(NegotiationStateMachine m, String offer) {
+        assertEquals(Action.APPLY, m.onRemoteOffer(offer));
+        assertTrue(m.onRemoteOfferSet());
+        assertTrue(m.canCreateAnswer());
+        m.onLocalAnswerSet();
+        assertEquals(State.STABLE, m.getState());
+    }
+
+    @Test
+    public void redeliveredOffer_isNoOp() {
+        NegotiationStateMachine m = new NegotiationStateMachine(true);
+        String offer = sdp("1", 2, "m=audio 9");
+        answer(m, offer);
+
+        // 줄바꿈만 다른 재전달도 같은 SDP
+        assertEquals(Action.IGNORE_DUPLICATE, m.onRemoteOffer(offer));
+        assertEquals(Action.IGNORE_DUPLICATE, m.onRemoteOffer(offer.replace("\r\n", "\n")));
+        assertEquals(State.STABLE, m.getState());
+        assertEquals(1, m.getApplied());
+        assertEquals(2, m.getDuplicates());
+    }
+
+    @Test
+    public void olderOfferVersion_isStale() {
+        NegotiationStateMachine m = new NegotiationStateMachine(true);
+        answer(m, sdp("1", 3, "m=audio 9 restart"));
+
+        assertEquals(Action.IGNORE_STALE, m.onRemoteOffer(sdp("1", 2, "m=audio 9")));
+        // 새 세션 / 높은 버전은 적용
+        answer(m, sdp("1", 4, "m=audio 9 restart2"));
+        assertEquals(2, m.getApplied());
+        assertEquals(1, m.getStale());
+    }
+
+    @Test
+    public void answerWithoutPendingOffer_isIgnored() {
+        NegotiationStateMachine m = new NegotiationStateMachine(false);
+        assertEquals(Action.IGNORE_STALE, m.onRemoteAnswer(sdp("9", 1, "m=audio 9")));
+
+        assertTrue(m.requestOffer(false));
+        assertTrue(m.isCreatingOffer());
+        m.onLocalOfferSet();
+        String answer = sdp("9", 2, "m=audio 9");
+        assertEquals(Action.APPLY, m.onRemoteAnswer(answer));
+        m.onRemoteAnswerSet();
+        assertEquals(State.STABLE, m.getState());
+
+        assertEquals(Action.IGNORE_DUPLICATE, m.onRemoteAnswer(answer));
+    }
+
+    @Test
+    public void createAnswerBeforeOffer_isRefused() {
+        NegotiationStateMachine m = new NegotiationStateMachine(true);
+        assertFalse(m.canCreateAnswer());
+        assertFalse(m.onRemoteOfferSet());
+        assertEquals(State.STABLE, m.getState());
+    }
+
+    @Test
+    public void glare_impoliteKeepsOwnOffer() {
+        NegotiationStateMachine m = new NegotiationStateMachine(false);
+        assertTrue(m.requestOffer(false));
+        m.onLocalOfferSet();
+
+        assertEquals(Action.IGNORE_GLARE, m.onRemoteOffer(sdp("2", 1, "m=video 9")));
+        assertEquals(State.HAVE_LOCAL_OFFER, m.getState());
+    }
+
+    @Test
+    public void glare_politeRollsBackAndRenegotiatesAfter() {
+        NegotiationStateMachine m = new NegotiationStateMachine(true);
+        assertTrue(m.requestOffer(true));
+
+        assertEquals(Action.ROLLBACK_AND_APPLY, m.onRemoteOffer(sdp("2", 1, "m=video 9")));
+        // rollback 된 로컬 offer 결과는 버림
+        assertFalse(m.isCreatingOffer());
+        assertTrue(m.onRemoteOfferSet());
+        m.onLocalAnswerSet();
+
+        assertEquals(NegotiationStateMachine.PENDING_RESTART, m.pollPendingOffer());
+        assertEquals(NegotiationStateMachine.PENDING_NONE, m.pollPendingOffer());
+    }
+
+    @Test
+    public void offerDuringNegotiation_isDeferredUntilStable() {
+        NegotiationStateMachine m = new NegotiationStateMachine(true);
+        assertEquals(Action.APPLY, m.onRemoteOffer(sdp("1", 1, "m=audio 9")));
+        String newer = sdp("1", 2, "m=audio 9 restart");
+        assertEquals(Action.DEFER, m.onRemoteOffer(newer));
+        assertEquals(Action.IGNORE_DUPLICATE, m.onRemoteOffer(newer));
+        assertNull(m.pollDeferredOffer());
+
+        assertTrue(m.onRemoteOfferSet());
+        m.onLocalAnswerSet();
+        assertEquals(newer, m.pollDeferredOffer());
+        answer(m, newer);
+    }
+
+    @Test
+    public void iceRestartWhileAwaitingAnswer_replacesLocalOffer() {
+        NegotiationStateMachine m = new NegotiationStateMachine(false);
+        assertTrue(m.requestOffer(false));
+        m.onLocalOfferSet();
+        assertEquals(State.HAVE_LOCAL_OFFER, m.getState());
+
+        // 일반 재협상은 answer 를 기다림
+        assertFalse(m.requestOffer(false));
+        // answer 가 오지 않아도 ICE restart 는 바로 새 offer
+        assertTrue(m.requestOffer(true));
+        assertTrue(m.isCreatingOffer());
+
+        // 새 offer 적용 전 도착한 이전 offer 의 answer 는 무시
+        assertEquals(Action.IGNORE_STALE, m.onRemoteAnswer(sdp("9", 1, "m=audio 9")));
+        m.onLocalOfferSet();
+        assertEquals(Action.APPLY, m.onRemoteAnswer(sdp("9", 2, "m=audio 9 restart")));
+        m.onRemoteAnswerSet();
+        assertEquals(State.STABLE, m.getState());
+        // 보관됐던 일반 재협상은 대체 offer 에 포함
+        assertEquals(NegotiationStateMachine.PENDING_NONE, m.pollPendingOffer());
+    }
+
+    @Test
+    public void failure_returnsToStableAndAllowsRetry() {
+        NegotiationStateMachine m = new NegotiationStateMachine(true);
+        String offer = sdp("1", 1, "m=audio 9");
+        assertEquals(Action.APPLY, m.onRemoteOffer(offer));
+        m.onFailure("setRemoteOffer");
+
+        assertEquals(State.STABLE, m.getState());
+        answer(m, offer);
+    }
+}
@@ -0,0 +1,94 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * NetworkHandoverMonitor 디바운스 / 재개 측정 검증 (타이머 만료는 직접 호출)
+ */
+public class NetworkHandoverMonitorTest {
+    private final List<String> handovers = new ArrayList<>();
+    private final List<Long> resumed = new ArrayList<>();
+
+    private final NetworkHandoverMonitor monitor = new NetworkHandoverMonitor(
+            (android.net.ConnectivityManager) null, new NetworkHandoverMonitor.Callback() {
+                @Override public void onHandover(String from, String to) { handovers.add(from + "->" + to); }
+                @Override public void onMediaResumed(long handoverMs) { resumed.add(handoverMs); }
+            });
+
+    @Test
+    public void networkChange_triggersOneHandoverAfterDebounce() {
+        monitor.onNetworkChanged("wifi", "wlan0", 0);
+        // 같은 네트워크 재전달은 무시
+        monitor.onNetworkChanged("wifi", "wlan0", 500);
+        monitor.onDebounceExpired();
+        assertTrue(handovers.isEmpty());
+
+        monitor.onNetworkChanged(null, null, 1_000);
+        monitor.onDebounceExpired();
+        // 네트워크가 없는 동안은 대기
+        assertTrue(handovers.isEmpty());
+
+        monitor.onNetworkChanged("lte", "rmnet0", 1_800);
+        monitor.onDebounceExpired();
+        assertEquals(1, handovers.size());
+        assertEquals("wlan0->rmnet0", handovers.get(0));
+    }
+
+    private static Set<String> addrs(String... a) {
+        return new HashSet<>(Arrays.asList(a));
+    }
+
+    @Test
+    public void newAddressOnSameNetwork_isNotHandover() {
+        monitor.onNetworkChanged("100/wlan0", "wlan0", addrs("192.168.0.5", "2001:db8::a1"), 0);
+        // IPv6 임시 주소 추가 (기존 주소는 그대로)
+        monitor.onNetworkChanged("100/wlan0", "wlan0",
+                addrs("192.168.0.5", "2001:db8::a1", "2001:db8::b2"), 500);
+        monitor.onDebounceExpired();
+        assertTrue(handovers.isEmpty());
+
+        // 기준 주소가 사라지면 그 주소의 후보 쌍은 죽음 → 전환
+        monitor.onNetworkChanged("100/wlan0", "wlan0", addrs("192.168.0.5", "2001:db8::b2"), 1_000);
+        monitor.onDebounceExpired();
+        assertEquals(Collections.singletonList("wlan0->wlan0"), handovers);
+    }
+
+    @Test
+    public void flapBackToSameNetwork_isIgnored() {
+        monitor.onNetworkChanged("wifi", "wlan0", 0);
+        monitor.onNetworkChanged("lte", "rmnet0", 1_000);
+        monitor.onNetworkChanged("wifi", "wlan0", 1_300);
+        monitor.onDebounceExpired();
+
+        assertTrue(handovers.isEmpty());
+    }
+
+    @Test
+    public void resumeTime_measuredFromFirstChangeAfterIceReconnects() {
+        monitor.onNetworkChanged("wifi", "wlan0", 0);
+        monitor.onNetworkChanged(null, null, 1_000);
+        monitor.onNetworkChanged("lte", "rmnet0", 1_500);
+        monitor.onDebounceExpired();
+
+        // ICE 재연결 전 수신은 이전 경로 잔여분
+        monitor.onSample(50_000, 2_000);
+        assertTrue(resumed.isEmpty());
+
+        monitor.onIceConnected();
+        monitor.onSample(0, 3_000);
+        monitor.onSample(40_000, 4_000);
+        monitor.onSample(40_000, 5_000);
+
+        assertEquals(1, resumed.size());
+        assertEquals(3_000L, (long) resumed.get(0));
+    }
+}
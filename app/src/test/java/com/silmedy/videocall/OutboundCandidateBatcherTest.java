@@ -0,0 +1,103 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.*;
+
+/**
+ * OutboundCandidateBatcher 묶음 / 집계 검증 (타이머 만료는 flush 직접 호출 또는 예약 작업 실행)
+ */
+public class OutboundCandidateBatcherTest {
+    private final List<List<SignalingData>> writes = new ArrayList<>();
+    /** 예약된 묶음 타이머 (실행은 테스트가 직접) */
+    private final List<FutureTask<?>> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+
+    private OutboundCandidateBatcher batcher(long windowMs) {
+        return new OutboundCandidateBatcher(writes::add, windowMs, (task, delayMs) -> {
+            FutureTask<?> f = new FutureTask<>(task, null);
+            scheduled.add(f);
+            delays.add(delayMs);
+            return f;
+        });
+    }
+
+    private static IceCandidate candidate(int n) {
+        return new IceCandidate("0", 0, "candidate:" + n);
+    }
+
+    @Test
+    public void groupsCandidatesWithinWindowIntoOneWrite() {
+        OutboundCandidateBatcher b = batcher(50);
+        b.add(candidate(1), 1_000);
+        b.add(candidate(2), 1_020);
+        b.add(candidate(3), 1_040);
+        assertTrue(writes.isEmpty());
+
+        b.flush(1_050);
+        assertEquals(1, writes.size());
+        assertEquals(3, writes.get(0).size());
+        assertEquals("candidate:1", writes.get(0).get(0).sdp);
+
+        assertEquals(2, b.getWritesSaved());
+        assertEquals(50, b.getMaxAddedLatencyMs());
+        assertEquals((50 + 30 + 10) / 3, b.getAvgAddedLatencyMs());
+    }
+
+    @Test
+    public void separateWindowsProduceSeparateWrites() {
+        OutboundCandidateBatcher b = batcher(50);
+        b.add(candidate(1), 0);
+        b.flush(50);
+        b.add(candidate(2), 200);
+        b.flush(250);
+        // 빈 묶음은 쓰지 않음
+        b.flush(300);
+
+        assertEquals(2, writes.size());
+        assertEquals(2, b.getWrites());
+        assertEquals(0, b.getWritesSaved());
+    }
+
+    @Test
+    public void zeroWindow_writesEachCandidateImmediately() {
+        OutboundCandidateBatcher b = batcher(0);
+        b.add(candidate(1), 0);
+        b.add(candidate(2), 5);
+
+        assertEquals(2, writes.size());
+        assertEquals(0, b.getMaxAddedLatencyMs());
+    }
+
+    @Test
+    public void scheduledWindowFlushesBatch() {
+        OutboundCandidateBatcher b = batcher(50);
+        b.add(candidate(1), 0);
+        b.add(candidate(2), 10);
+        // 묶음당 타이머 하나
+        assertEquals(1, scheduled.size());
+        assertEquals(50L, (long) delays.get(0));
+
+        scheduled.get(0).run();
+        assertEquals(1, writes.size());
+        assertEquals(2, writes.get(0).size());
+    }
+
+    @Test
+    public void stop_cancelsPendingWindowAndDropsLateFlush() {
+        OutboundCandidateBatcher b = batcher(50);
+        b.add(candidate(1), 0);
+        b.stop(new CallTelemetry());
+        assertTrue(scheduled.get(0).isCancelled());
+
+        // 취소가 늦어 타이머가 돌거나 후보가 더 와도 전송하지 않음
+        b.add(candidate(2), 20);
+        b.flush(50);
+        assertTrue(writes.isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.silmedy.videocall;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * RemoteCandidateQueue 보관 / 일괄 추가 / 집계 검증
+ */
+public class RemoteCandidateQueueTest {
+    private RemoteCandidateQueue queue;
+    private final List<IceCandidate> added = new ArrayList<>();
+    /** 이 sdp 를 가진 후보는 거부 */
+    private String rejectSdp;
+
+    @Before
+    public void setUp() {
+        queue = new RemoteCandidateQueue((candidate, observer) -> {
+            added.add(candidate);
+            if (candidate.sdp.equals(rejectSdp)) observer.onAddFailure("rejected");
+            else observer.onAddSuccess();
+        });
+    }
+
+    private static IceCandidate candidate(int n) {
+        return new IceCandidate("0", 0, "candidate:" + n);
+    }
+
+    @Test
+    public void holdsCandidatesUntilRemoteDescriptionSet() {
+        queue.onRemoteDescriptionPending();
+        queue.add(candidate(1));
+        queue.add(candidate(2));
+        assertTrue(added.isEmpty());
+        assertEquals(2, queue.getPending());
+
+        queue.onRemoteDescriptionSet();
+        assertEquals(2, added.size());
+        assertEquals("candidate:1", added.get(0).sdp);
+        assertEquals(0, queue.getPending());
+
+        // 적용 후 도착한 후보는 바로 추가
+        queue.add(candidate(3));
+        assertEquals(3, added.size());
+        assertEquals(2, queue.getBuffered());
+        assertEquals(3, queue.getAccepted());
+    }
+
+    @Test
+    public void buffersBeforeAnyRemoteDescription() {
+        queue.add(candidate(1));
+        assertTrue(added.isEmpty());
+        queue.onRemoteDescriptionSet();
+        assertEquals(1, added.size());
+    }
+
+    @Test
+    public void iceRestart_buffersAgainUntilNewDescriptionSet() {
+        queue.onRemoteDescriptionSet();
+        queue.add(candidate(1));
+        queue.onRemoteDescriptionPending();
+        queue.add(candidate(2));
+        assertEquals(1, added.size());
+
+        queue.onRemoteDescriptionSet();
+        assertEquals(2, added.size());
+    }
+
+    @Test
+    public void countsRejectedAndLateCandidates() {
+        queue.onRemoteDescriptionSet();
+        rejectSdp = "candidate:1";
+        queue.add(candidate(1));
+        queue.setConnected(true);
+        queue.add(candidate(2));
+
+        assertEquals(2, queue.getReceived());
+        assertEquals(1, queue.getRejected());
+        assertEquals(1, queue.getAccepted());
+        assertEquals(1, queue.getLate());
+    }
+}
@@ -0,0 +1,76 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * SdpCompression 왕복 / 기존 형식 호환 / 손상 데이터 처리 검증
+ */
+public class SdpCompressionTest {
+
+    @Test
+    public void roundTripsCapturedSdpAndShrinksIt() throws Exception {
+        for (String name : new String[]{"chrome_offer.sdp", "android_answer.sdp"}) {
+            String sdp = SdpTest.load(name);
+            Map<String, Object> msg = SdpCompression.encode(sdp);
+
+            assertEquals(SdpCompression.DEFLATE_DICT_V1, msg.get(SdpCompression.FIELD_ENCODING));
+            String wire = (String) msg.get(SdpCompression.FIELD_SDP);
+            // base64 포함 원본의 1/3 이하
+            assertTrue(name + " " + wire.length() + "B", wire.length() * 3 < sdp.length());
+            assertEquals(name, sdp, SdpCompression.decode(msg));
+        }
+    }
+
+    @Test
+    public void roundTripsSdpOutsideDictionary() {
+        String sdp = "v=0\r\no=- 1 1 IN IP6 ::1\r\ns=테스트\r\nm=audio 1 RTP/AVP 0\r\n";
+        assertEquals(sdp, SdpCompression.decode(SdpCompression.encode(sdp)));
+        assertEquals("", SdpCompression.decode(SdpCompression.encode("")));
+    }
+
+    @Test
+    public void readsLegacyPlainFormats() {
+        assertEquals("v=0\r\n", SdpCompression.decode("v=0\r\n"));
+
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("type", "offer");
+        legacy.put("sdp", "v=0\r\n");
+        assertEquals("v=0\r\n", SdpCompression.decode(legacy));
+
+        assertNull(SdpCompression.decode(null));
+        assertNull(SdpCompression.decode(new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void rejectsUnknownEncodingAndCorruptData() {
+        Map<String, Object> future = new HashMap<>();
+        future.put(SdpCompression.FIELD_ENCODING, "deflate-dict-v99");
+        future.put(SdpCompression.FIELD_SDP, "AAAA");
+        assertDecodeFails(future);
+
+        Map<String, Object> msg = SdpCompression.encode("v=0\r\ns=-\r\nt=0 0\r\n");
+        String wire = (String) msg.get(SdpCompression.FIELD_SDP);
+
+        msg.put(SdpCompression.FIELD_SDP, wire.substring(0, wire.length() / 2));
+        assertDecodeFails(msg);
+
+        msg.put(SdpCompression.FIELD_SDP, "!!!not base64");
+        assertDecodeFails(msg);
+
+        assertDecodeFails(42);
+    }
+
+    private static void assertDecodeFails(Object raw) {
+        try {
+            SdpCompression.decode(raw);
+            fail("예외 없음: " + raw);
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * SdpPipeline 변환별 검증 (캡처된 offer/answer 기준)
+ */
+public class SdpPipelineTest {
+
+    private static Sdp.Codec codec(Sdp sdp, String kind, String name) {
+        for (Sdp.Codec c : sdp.media(kind).codecs()) {
+            if (name.equals(c.name())) return c;
+        }
+        fail("코덱 없음: " + name);
+        return null;
+    }
+
+    @Test
+    public void opusParamsMergeIntoExistingFmtp() throws Exception {
+        Sdp sdp = Sdp.parse(SdpTest.load("chrome_offer.sdp"));
+        new SdpPipeline.OpusParams(true, true, 40, 16_000).apply(sdp);
+
+        Sdp.Codec opus = codec(sdp, "audio", "opus");
+        // 기존 minptime 유지, 기존 키는 제자리에서 갱신
+        assertEquals("minptime=10;useinbandfec=1;usedtx=1;stereo=0;sprop-stereo=0;maxaveragebitrate=16000",
+                opus.fmtp());
+        assertEquals("40", sdp.media("audio").attribute("ptime").attributeValue());
+        // 다른 오디오 코덱 / 영상은 그대로
+        assertNull(codec(sdp, "audio", "G722").fmtp());
+        assertNull(sdp.media("video").attribute("ptime"));
+    }
+
+    @Test
+    public void opusParamsCanDisableFecAndDtx() throws Exception {
+        Sdp sdp = Sdp.parse(SdpTest.load("android_answer.sdp"));
+        new SdpPipeline.OpusParams(true, true, 0, 0).apply(sdp);
+        new SdpPipeline.OpusParams(false, false, 0, 0).apply(sdp);
+
+        Sdp.Codec opus = codec(sdp, "audio", "opus");
+        assertEquals("0", opus.fmtpParam("useinbandfec"));
+        assertNull(opus.fmtpParam("usedtx"));
+        assertNull(opus.fmtpParam("maxaveragebitrate"));
+        assertNull(sdp.media("audio").attribute("ptime"));
+    }
+
+    @Test
+    public void opusFmtpIsAddedAfterRtpmapWhenMissing() {
+        String raw = "v=0\r\nm=audio 9 RTP/SAVPF 111\r\na=rtpmap:111 opus/48000/2\r\na=ssrc:1 cname:x\r\n";
+        Sdp sdp = Sdp.parse(raw);
+        new SdpPipeline.OpusParams(true, false, 20, 0).apply(sdp);
+
+        assertEquals("v=0\r\nm=audio 9 RTP/SAVPF 111\r\na=rtpmap:111 opus/48000/2\r\n"
+                + "a=fmtp:111 useinbandfec=1;stereo=0;sprop-stereo=0\r\na=ssrc:1 cname:x\r\n"
+                + "a=ptime:20\r\n", sdp.serialize());
+    }
+
+    @Test
+    public void videoBitrateSkipsAuxiliaryPayloads() throws Exception {
+        Sdp sdp = Sdp.parse(SdpTest.load("chrome_offer.sdp"));
+        new SdpPipeline.VideoBitrate(800).apply(sdp);
+
+        List<Sdp.Codec> codecs = sdp.media("video").codecs();
+        int hinted = 0;
+        for (Sdp.Codec c : codecs) {
+            String start = c.fmtpParam("x-google-start-bitrate");
+            switch (c.name()) {
+                case "rtx": case "red": case "ulpfec":
+                    assertNull(c.name(), start);
+                    break;
+                default:
+                    assertEquals(c.name(), "800", start);
+                    assertNull(c.fmtpParam("x-google-min-bitrate"));
+                    hinted++;
+            }
+        }
+        assertEquals(11, hinted);
+        // 기존 H264 파라미터 유지
+        assertEquals("42001f", codecs.get(2).fmtpParam("profile-level-id"));
+        // 오디오는 그대로
+        assertNull(codec(sdp, "audio", "opus").fmtpParam("x-google-start-bitrate"));
+    }
+
+    @Test
+    public void pipelineByProfileAndFallback() throws Exception {
+        String raw = SdpTest.load("chrome_offer.sdp");
+
+        SdpPipeline low = SdpPipeline.forProfile(RtcConfigProfile.LOW_BANDWIDTH);
+        assertEquals("low_bandwidth@v2", low.id());
+        String out = low.apply(raw);
+        assertNotEquals(raw, out);
+        assertTrue(out.contains("a=ptime:40\r\n"));
+        assertTrue(out.contains("x-google-start-bitrate=300"));
+
+        assertEquals(RtcConfigProfile.BALANCED, SdpPipeline.forProfile("unknown").name);
+        assertEquals(RtcConfigProfile.BALANCED, SdpPipeline.forProfile(null).name);
+
+        // 변환이 실패하면 원본 그대로
+        SdpPipeline broken = new SdpPipeline("broken", 1, sdp -> { throw new IllegalStateException(); });
+        assertSame(raw, broken.apply(raw));
+        // 변환이 없으면 해석하지 않음
+        assertSame(raw, new SdpPipeline("none", 1).apply(raw));
+    }
+
+    @Test
+    public void noProfileSetsMinBitrateAboveLowestAbrLevel() throws Exception {
+        // GCC 최소값이 최하 단계보다 높으면 추정치가 그 아래로 내려가지 않음 (최하 단계 / 음성 전용 전환 불가)
+        long lowestBps = AdaptiveBitrateController.LADDER[AdaptiveBitrateController.LADDER.length - 1].maxBitrateBps;
+        String raw = SdpTest.load("chrome_offer.sdp")
+                .replace("a=fmtp:102 ", "a=fmtp:102 x-google-min-bitrate=500;");
+        for (String profile : new String[] { RtcConfigProfile.BALANCED, RtcConfigProfile.LOW_BANDWIDTH,
+                RtcConfigProfile.LOW_LATENCY, RtcConfigProfile.RELAY_ONLY }) {
+            Sdp sdp = Sdp.parse(SdpPipeline.forProfile(profile).apply(raw));
+            for (Sdp.Codec c : sdp.media("video").codecs()) {
+                String min = c.fmtpParam("x-google-min-bitrate");
+                if (min != null) {
+                    assertTrue(profile + " " + c.name() + " min=" + min, Long.parseLong(min) * 1000 <= lowestBps);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sdp 해석 / 직렬화 검증 (실제 Chrome offer, Android answer 캡처 사용)
+ */
+public class SdpTest {
+
+    static String load(String name) throws IOException {
+        try (InputStream in = SdpTest.class.getResourceAsStream("/sdp/" + name)) {
+            assertNotNull("리소스 없음: " + name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void roundTripsCapturedSdpByteForByte() throws Exception {
+        for (String name : new String[]{"chrome_offer.sdp", "android_answer.sdp"}) {
+            String raw = load(name);
+            assertEquals(name, raw, Sdp.parse(raw).serialize());
+
+            String lf = raw.replace("\r\n", "\n");
+            Sdp parsed = Sdp.parse(lf);
+            assertEquals("\n", parsed.lineEnding());
+            assertEquals(name, lf, parsed.serialize());
+        }
+    }
+
+    @Test
+    public void roundTripsWithoutTrailingNewlineAndUnknownLines() {
+        String raw = "v=0\r\nbogus line\r\nm=audio 9 RTP/AVP 0\r\na=rtpmap:0 PCMU/8000";
+        Sdp sdp = Sdp.parse(raw);
+        assertEquals(raw, sdp.serialize());
+        assertEquals(2, sdp.sessionLines().size());
+        assertEquals(1, sdp.media().size());
+    }
+
+    @Test
+    public void splitsSessionAndMediaSections() throws Exception {
+        Sdp sdp = Sdp.parse(load("chrome_offer.sdp"));
+
+        assertEquals(Sdp.CRLF, sdp.lineEnding());
+        assertEquals(7, sdp.sessionLines().size());
+        assertEquals('v', sdp.sessionLines().get(0).type);
+        assertEquals(3, sdp.media().size());
+
+        Sdp.Media audio = sdp.media().get(0);
+        assertEquals("audio", audio.kind());
+        assertEquals("UDP/TLS/RTP/SAVPF", audio.protocol());
+        assertEquals("0", audio.mid());
+        assertEquals("sendrecv", audio.direction());
+        assertEquals(Arrays.asList("111", "63", "9", "0", "8", "13", "110", "126"), audio.formats());
+
+        Sdp.Media app = sdp.media("application");
+        assertNotNull(app);
+        assertEquals("2", app.mid());
+        assertNull(app.direction());
+        assertEquals("5000", app.attribute("sctp-port").attributeValue());
+        assertEquals(Arrays.asList("webrtc-datachannel"), app.formats());
+    }
+
+    @Test
+    public void parsesCodecsInPreferenceOrder() throws Exception {
+        Sdp sdp = Sdp.parse(load("chrome_offer.sdp"));
+
+        List<Sdp.Codec> audio = sdp.media("audio").codecs();
+        Sdp.Codec opus = audio.get(0);
+        assertEquals(111, opus.payloadType);
+        assertEquals("opus", opus.name());
+        assertEquals(48000, opus.clockRate());
+        assertEquals(2, opus.channels());
+        assertEquals("minptime=10;useinbandfec=1", opus.fmtp());
+        assertEquals("1", opus.fmtpParam("useinbandfec"));
+        assertEquals(Arrays.asList("transport-cc"), opus.feedback());
+        assertEquals(0, audio.get(3).channels());
+
+        List<Sdp.Codec> video = sdp.media("video").codecs();
+        assertEquals(25, video.size());
+        Sdp.Codec vp8 = video.get(0);
+        assertEquals("VP8", vp8.name());
+        assertEquals(90000, vp8.clockRate());
+        assertEquals(Arrays.asList("goog-remb", "transport-cc", "ccm fir", "nack", "nack pli"),
+                vp8.feedback());
+        assertEquals(-1, vp8.associatedPayloadType());
+
+        Sdp.Codec rtx = video.get(1);
+        assertEquals("rtx", rtx.name());
+        assertEquals(96, rtx.associatedPayloadType());
+
+        Sdp.Codec h264 = video.get(2);
+        assertEquals("H264", h264.name());
+        assertEquals("42001f", h264.fmtpParam("profile-level-id"));
+        assertEquals("1", h264.fmtpParam("packetization-mode"));
+        assertNull(h264.fmtpParam("profile"));
+    }
+
+    @Test
+    public void parsesExtmapsAndCandidates() throws Exception {
+        Sdp sdp = Sdp.parse(load("chrome_offer.sdp"));
+
+        List<Sdp.Extmap> ext = sdp.media("video").extmaps();
+        assertEquals(11, ext.size());
+        assertEquals(14, ext.get(0).id);
+        assertEquals("urn:ietf:params:rtp-hdrext:toffset", ext.get(0).uri);
+        assertNull(ext.get(0).direction);
+
+        Sdp.Line withDir = new Sdp.Line('a', "extmap:7/recvonly urn:x:test extra");
+        Sdp.Media m = Sdp.parse("m=video 9 RTP/AVP 96\na=" + withDir.value() + "\n").media().get(0);
+        Sdp.Extmap e = m.extmaps().get(0);
+        assertEquals(7, e.id);
+        assertEquals("recvonly", e.direction);
+        assertEquals("urn:x:test", e.uri);
+        assertEquals("extra", e.attributes);
+
+        List<Sdp.Candidate> cands = sdp.media("audio").candidates();
+        assertEquals(4, cands.size());
+        assertEquals("host", cands.get(0).type);
+        assertEquals("192.168.0.196", cands.get(0).address);
+        assertEquals(46243, cands.get(0).port);
+        assertEquals("srflx", cands.get(1).type);
+        assertEquals("relay", cands.get(2).type);
+        assertEquals(41885439L, cands.get(2).priority);
+        assertEquals("tcp", cands.get(3).transport);
+        assertTrue(sdp.media("video").candidates().isEmpty());
+
+        assertNull(Sdp.Candidate.parse("candidate:1 1 udp"));
+        assertEquals("relay", Sdp.Candidate.parse(
+                "candidate:1 1 udp 5 10.0.0.1 3478 typ relay raddr 1.2.3.4 rport 1").type);
+    }
+
+    @Test
+    public void modificationsAreSerialized() throws Exception {
+        String raw = load("chrome_offer.sdp");
+        Sdp sdp = Sdp.parse(raw);
+        Sdp.Media video = sdp.media("video");
+
+        video.setFormats(Arrays.asList("102", "103"));
+        for (Sdp.Codec c : video.codecs()) {
+            if (c.payloadType != 102) continue;
+            c.fmtpLine().setValue("fmtp:102 packetization-mode=1;profile-level-id=42e01f");
+        }
+        video.removePayloadLines(96);
+
+        String out = sdp.serialize();
+        assertTrue(out.contains("m=video 9 UDP/TLS/RTP/SAVPF 102 103\r\n"));
+        assertTrue(out.contains("a=fmtp:102 packetization-mode=1;profile-level-id=42e01f\r\n"));
+        assertFalse(out.contains("a=rtpmap:96 "));
+        assertFalse(out.contains("a=rtcp-fb:96 "));
+        assertTrue(out.contains("a=rtpmap:97 rtx/90000\r\n"));
+
+        // 재해석해도 같은 구조
+        Sdp again = Sdp.parse(out);
+        assertEquals(out, again.serialize());
+        assertEquals(2, again.media("video").codecs().size());
+    }
+}
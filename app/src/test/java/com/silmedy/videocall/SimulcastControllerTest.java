@@ -0,0 +1,171 @@
+package com.silmedy.videocall;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.webrtc.RtpParameters;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * SimulcastController 대역폭 결정 → rid 레이어 활성화 매핑 검증
+ */
+public class SimulcastControllerTest {
+    private SimulcastController controller;
+
+    @Before
+    public void setUp() {
+        controller = new SimulcastController();
+    }
+
+    private void decide(long availableBps) {
+        controller.onDecision(new AdaptiveBitrateController.Decision(
+                AdaptiveBitrateController.targetLevel(availableBps), false, availableBps, 0, 50, "test"));
+    }
+
+    private static boolean[] active(List<RtpParameters.Encoding> encodings) {
+        boolean[] out = new boolean[encodings.size()];
+        for (int i = 0; i < out.length; i++) out[i] = encodings.get(i).active;
+        return out;
+    }
+
+    @Test
+    public void layersFor_keepsLowestLayerAndFitsBudget() {
+        assertEquals(1, SimulcastController.layersFor(0));
+        assertEquals(1, SimulcastController.layersFor(300_000));
+        // q + h = 650k → 여유 0.85 포함 765k 이상
+        assertEquals(2, SimulcastController.layersFor(800_000));
+        assertEquals(3, SimulcastController.layersFor(3_000_000));
+    }
+
+    @Test
+    public void applyActive_enablesLowestLayersInOrder() {
+        List<RtpParameters.Encoding> encodings = SimulcastController.buildSimulcastEncodings();
+        assertEquals("q", encodings.get(0).rid);
+        assertEquals("f", encodings.get(2).rid);
+
+        SimulcastController.applyActive(encodings, 1, false);
+        assertArrayEquals(new boolean[]{true, false, false}, active(encodings));
+        SimulcastController.applyActive(encodings, 2, false);
+        assertArrayEquals(new boolean[]{true, true, false}, active(encodings));
+        SimulcastController.applyActive(encodings, 3, false);
+        assertArrayEquals(new boolean[]{true, true, true}, active(encodings));
+    }
+
+    @Test
+    public void applyActive_pauseDisablesEveryEncoding() {
+        List<RtpParameters.Encoding> encodings = SimulcastController.buildSimulcastEncodings();
+        SimulcastController.applyActive(encodings, 3, true);
+        assertArrayEquals(new boolean[]{false, false, false}, active(encodings));
+
+        // rid 없는 단일(SVC) 인코딩은 중지 여부만 따름
+        List<RtpParameters.Encoding> svc =
+                Collections.singletonList(new RtpParameters.Encoding(null, true, 1.0));
+        SimulcastController.applyActive(svc, 1, false);
+        assertTrue(svc.get(0).active);
+        SimulcastController.applyActive(svc, 1, true);
+        assertFalse(svc.get(0).active);
+    }
+
+    @Test
+    public void disablesLayers_afterConsecutiveLowDecisions() {
+        assertEquals(3, controller.getActiveLayers());
+        decide(300_000);
+        assertEquals(3, controller.getActiveLayers());
+        decide(300_000);
+        // 하향은 필요한 만큼 한 번에
+        assertEquals(1, controller.getActiveLayers());
+    }
+
+    @Test
+    public void enablesLayers_oneAtATimeAfterSustainedBandwidth() {
+        decide(300_000);
+        decide(300_000);
+        assertEquals(1, controller.getActiveLayers());
+
+        for (int i = 0; i < SimulcastController.ENABLE_SAMPLES - 1; i++) decide(5_000_000);
+        assertEquals(1, controller.getActiveLayers());
+        decide(5_000_000);
+        assertEquals(2, controller.getActiveLayers());
+
+        for (int i = 0; i < SimulcastController.ENABLE_SAMPLES; i++) decide(5_000_000);
+        assertEquals(3, controller.getActiveLayers());
+    }
+
+    @Test
+    public void mixedDecisionsResetCounters() {
+        decide(300_000);
+        decide(5_000_000);
+        decide(300_000);
+        assertEquals(3, controller.getActiveLayers());
+    }
+
+    @Test
+    public void ignoresDecisionsWhilePausedAndKeepsLayerCount() {
+        decide(800_000);
+        decide(800_000);
+        assertEquals(2, controller.getActiveLayers());
+
+        controller.setPaused(true);
+        decide(100_000);
+        decide(100_000);
+        assertEquals(2, controller.getActiveLayers());
+
+        controller.setPaused(false);
+        assertEquals(2, controller.getActiveLayers());
+    }
+
+    @Test
+    public void thermalFloor_capsLayersWithoutTouchingHysteresis() {
+        AdaptiveBitrateController abr = new AdaptiveBitrateController(null);
+        abr.addListener(controller);
+
+        abr.setLevelFloor(3);
+        // 250k 상한 → 최하위 레이어만, 대역폭 기준 레이어 수는 그대로
+        assertEquals(3, controller.getActiveLayers());
+        assertEquals(1, controller.getEffectiveLayers());
+        // 발열 결정은 저대역 샘플로 세지 않음: 실제 샘플 한 번으로는 줄지 않음
+        decide(300_000);
+        assertEquals(3, controller.getActiveLayers());
+
+        abr.setLevelFloor(0);
+        assertEquals(3, controller.getEffectiveLayers());
+    }
+
+    @Test
+    public void applyEncodings_capsSimulcastLayersByFloor() {
+        List<RtpParameters.Encoding> encodings = SimulcastController.buildSimulcastEncodings();
+        SimulcastController.applyEncodings(encodings, 3, false, 0);
+        assertArrayEquals(new boolean[]{true, true, true}, active(encodings));
+        assertEquals(1_500_000, (int) encodings.get(2).maxBitrateBps);
+
+        // 단계 2 (500k/24fps): f 레이어 끔, 나머지는 레이어 비트레이트와 상한 중 작은 값
+        SimulcastController.applyEncodings(encodings, 3, false, 2);
+        assertArrayEquals(new boolean[]{true, true, false}, active(encodings));
+        assertEquals(150_000, (int) encodings.get(0).maxBitrateBps);
+        assertEquals(500_000, (int) encodings.get(1).maxBitrateBps);
+        assertEquals(24, (int) encodings.get(1).maxFramerate);
+
+        SimulcastController.applyEncodings(encodings, 3, false, 4);
+        assertArrayEquals(new boolean[]{true, false, false}, active(encodings));
+        assertEquals(120_000, (int) encodings.get(0).maxBitrateBps);
+    }
+
+    @Test
+    public void applyEncodings_capsSvcEncodingByFloor() {
+        RtpParameters.Encoding svc = new RtpParameters.Encoding(null, true, 1.0);
+        svc.scalabilityMode = SimulcastController.SVC_SCALABILITY_MODE;
+        List<RtpParameters.Encoding> encodings = Collections.singletonList(svc);
+
+        SimulcastController.applyEncodings(encodings, 3, false, 3);
+        assertTrue(svc.active);
+        assertEquals(250_000, (int) svc.maxBitrateBps);
+        assertEquals(15, (int) svc.maxFramerate);
+
+        SimulcastController.applyEncodings(encodings, 3, false, 0);
+        assertEquals(1_500_000, (int) svc.maxBitrateBps);
+        assertEquals(SimulcastController.SVC_SCALABILITY_MODE, svc.scalabilityMode);
+    }
+}
@@ -0,0 +1,125 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * StatsRingBuffer 순환 기록 / 구간 집계(nearest-rank 백분위) 검증
+ */
+public class StatsRingBufferTest {
+    private static final int M = StatsRingBuffer.RTT_MS;
+
+    private static void append(StatsRingBuffer buf, long ts, double value, String candidateType) {
+        double[] v = new double[StatsRingBuffer.METRIC_COUNT];
+        Arrays.fill(v, StatsRingBuffer.MISSING);
+        v[M] = value;
+        String[] c = new String[StatsRingBuffer.CATEGORY_COUNT];
+        c[StatsRingBuffer.CANDIDATE_TYPE] = candidateType;
+        buf.append(ts, v, c);
+    }
+
+    @Test
+    public void emptyBufferReportsMissing() {
+        StatsRingBuffer buf = new StatsRingBuffer(4);
+        assertEquals(0, buf.size());
+        assertTrue(Double.isNaN(buf.latest(M)));
+        assertNull(buf.latestCategory(StatsRingBuffer.CANDIDATE_TYPE));
+        StatsRingBuffer.Aggregate a = buf.aggregate(M, 10_000);
+        assertEquals(0, a.count);
+        assertTrue(Double.isNaN(a.p50));
+    }
+
+    @Test
+    public void wrapsAroundKeepingNewestInOrder() {
+        StatsRingBuffer buf = new StatsRingBuffer(3);
+        for (int i = 1; i <= 5; i++) append(buf, i * 1000L, i, null);
+
+        assertEquals(3, buf.size());
+        assertEquals(5.0, buf.latest(M), 0);
+
+        double[] values = new double[3];
+        long[] ts = new long[3];
+        assertEquals(3, buf.copy(M, values));
+        assertEquals(3, buf.copyTimestamps(ts));
+        assertArrayEquals(new double[]{3, 4, 5}, values, 0);
+        assertArrayEquals(new long[]{3000, 4000, 5000}, ts);
+
+        // 출력 배열이 작으면 오래된 것부터 앞부분만
+        double[] two = new double[2];
+        assertEquals(2, buf.copy(M, two));
+        assertArrayEquals(new double[]{3, 4}, two, 0);
+    }
+
+    @Test
+    public void nearestRankPercentiles() {
+        StatsRingBuffer buf = new StatsRingBuffer(32);
+        // 순서를 섞어 기록: 1..20
+        int[] order = {7, 1, 20, 13, 2, 19, 8, 14, 3, 18, 9, 15, 4, 17, 10, 16, 5, 11, 6, 12};
+        for (int i = 0; i < order.length; i++) append(buf, i * 1000L, order[i], null);
+
+        StatsRingBuffer.Aggregate a = buf.aggregate(M, 60_000);
+        assertEquals(20, a.count);
+        // p50: ceil(0.5*20)=10 번째, p95: ceil(0.95*20)=19 번째
+        assertEquals(10.0, a.p50, 0);
+        assertEquals(19.0, a.p95, 0);
+        assertEquals(20.0, a.max, 0);
+        assertEquals(10.5, a.mean, 1e-9);
+    }
+
+    @Test
+    public void percentilesOfSingleAndTwoValues() {
+        StatsRingBuffer buf = new StatsRingBuffer(4);
+        append(buf, 0, 42, null);
+        StatsRingBuffer.Aggregate one = buf.aggregate(M, 1000);
+        assertEquals(42.0, one.p50, 0);
+        assertEquals(42.0, one.p95, 0);
+
+        append(buf, 1000, 10, null);
+        StatsRingBuffer.Aggregate two = buf.aggregate(M, 1000);
+        assertEquals(10.0, two.p50, 0);
+        assertEquals(42.0, two.p95, 0);
+    }
+
+    @Test
+    public void aggregateWindowAndMissingValues() {
+        StatsRingBuffer buf = new StatsRingBuffer(8);
+        append(buf, 1000, 100, null);
+        append(buf, 2000, StatsRingBuffer.MISSING, null);
+        append(buf, 3000, 5, null);
+        append(buf, 4000, 7, null);
+
+        // 최신(4000) 기준 2000ms → 2000..4000, MISSING 제외
+        StatsRingBuffer.Aggregate a = buf.aggregate(M, 2000);
+        assertEquals(2, a.count);
+        assertEquals(7.0, a.max, 0);
+        assertEquals(6.0, a.mean, 0);
+
+        assertEquals(3, buf.aggregate(M, 10_000).count);
+    }
+
+    @Test
+    public void aggregateAfterWraparoundOnlySeesRetainedSamples() {
+        StatsRingBuffer buf = new StatsRingBuffer(4);
+        for (int i = 0; i < 10; i++) append(buf, i * 1000L, i < 6 ? 1000 : i, null);
+
+        StatsRingBuffer.Aggregate a = buf.aggregate(M, 60_000);
+        assertEquals(4, a.count);
+        assertEquals(9.0, a.max, 0);
+        assertEquals(7.0, a.p50, 0);
+    }
+
+    @Test
+    public void categoriesAreInterned() {
+        StatsRingBuffer buf = new StatsRingBuffer(2);
+        append(buf, 0, 1, "host");
+        append(buf, 1000, 1, "relay");
+        assertEquals("relay", buf.latestCategory(StatsRingBuffer.CANDIDATE_TYPE));
+        append(buf, 2000, 1, "host");
+        assertEquals("host", buf.latestCategory(StatsRingBuffer.CANDIDATE_TYPE));
+        append(buf, 3000, 1, null);
+        assertNull(buf.latestCategory(StatsRingBuffer.CANDIDATE_TYPE));
+    }
+}
@@ -0,0 +1,101 @@
+package com.silmedy.videocall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * TelemetryUploader 디스크 버퍼 / gzip 배치 전송 검증 (MockWebServer)
+ */
+public class TelemetryUploaderTest {
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MockWebServer server;
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        dir = tmp.newFolder("telemetry");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private TelemetryUploader uploader(long maxDiskBytes) {
+        return new TelemetryUploader(dir, new OkHttpClient(),
+                server.url("/api/v1/telemetry/calls").toString(), maxDiskBytes, () -> "jwt");
+    }
+
+    @Test
+    public void uploadsPendingRecordsAsOneGzipBatch() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        TelemetryUploader u = uploader(TelemetryUploader.MAX_DISK_BYTES);
+        u.writeRecord("{\"call_id\":\"a\"}");
+        u.writeRecord("{\"call_id\":\"b\"}");
+        u.writeRecord("{\"call_id\":\"c\"}");
+
+        assertTrue(u.uploadPending());
+
+        RecordedRequest req = server.takeRequest();
+        assertEquals(1, server.getRequestCount());
+        assertEquals("gzip", req.getHeader("Content-Encoding"));
+        assertEquals("Bearer jwt", req.getHeader("Authorization"));
+        assertEquals("[{\"call_id\":\"a\"},{\"call_id\":\"b\"},{\"call_id\":\"c\"}]",
+                gunzip(req.getBody().readByteArray()));
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void keepsRecordsWhenServerFails() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        TelemetryUploader u = uploader(TelemetryUploader.MAX_DISK_BYTES);
+        u.writeRecord("{\"call_id\":\"a\"}");
+
+        assertFalse(u.uploadPending());
+        assertEquals(1, dir.listFiles().length);
+    }
+
+    @Test
+    public void evictsOldestRecordsOverDiskLimit() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+        TelemetryUploader u = uploader(40);
+        u.writeRecord("{\"call_id\":\"old\"}");
+        u.writeRecord("{\"call_id\":\"mid\"}");
+        u.writeRecord("{\"call_id\":\"new\"}");
+
+        assertEquals(2, dir.listFiles().length);
+        assertTrue(u.uploadPending());
+        assertEquals("[{\"call_id\":\"mid\"},{\"call_id\":\"new\"}]",
+                gunzip(server.takeRequest().getBody().readByteArray()));
+    }
+
+    private static String gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[1024];
+            int n;
+            while ((n = in.read(buf)) > 0) out.write(buf, 0, n);
+            return out.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+}
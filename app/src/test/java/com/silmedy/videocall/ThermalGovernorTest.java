@@ -0,0 +1,96 @@
+package com.silmedy.videocall;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * ThermalGovernor 단계 결정 / CPU 측정 파싱 검증 (타이머 대신 onReading 직접 호출)
+ */
+public class ThermalGovernorTest {
+    private final List<String> steps = new ArrayList<>();
+
+    private final ThermalGovernor governor = new ThermalGovernor(
+            (android.os.PowerManager) null,
+            (from, to, step, reason) -> steps.add(from + "->" + to + " " + reason.split(" ")[0]),
+            100, 4);
+
+    @Test
+    public void thermalStatus_stepsDownImmediately() {
+        governor.onReading(0, ThermalGovernor.THERMAL_NONE, 0.2);
+        assertTrue(steps.isEmpty());
+
+        governor.onReading(5_000, ThermalGovernor.THERMAL_MODERATE, 0.2);
+        assertEquals(2, governor.getStep());
+        governor.onReading(10_000, ThermalGovernor.THERMAL_CRITICAL, 0.2);
+        assertEquals(ThermalGovernor.LADDER.length - 1, governor.getStep());
+        assertEquals("0->2 thermal", steps.get(0));
+        assertEquals("2->4 thermal", steps.get(1));
+    }
+
+    @Test
+    public void cpuLoad_stepsDownAfterConsecutiveSamples() {
+        governor.onReading(0, ThermalGovernor.THERMAL_NONE, 0.9);
+        assertEquals(0, governor.getStep());
+        // 중간에 한 번 내려가면 다시 셈
+        governor.onReading(5_000, ThermalGovernor.THERMAL_NONE, 0.5);
+        governor.onReading(10_000, ThermalGovernor.THERMAL_NONE, 0.9);
+        assertEquals(0, governor.getStep());
+        governor.onReading(15_000, ThermalGovernor.THERMAL_NONE, 0.9);
+        assertEquals(1, governor.getStep());
+        assertEquals("0->1 cpu", steps.get(0));
+    }
+
+    @Test
+    public void stepsUpOneAtATimeAfterCooling() {
+        governor.onReading(0, ThermalGovernor.THERMAL_SEVERE, 0.2);
+        assertEquals(3, governor.getStep());
+
+        // 발열 유지 중에는 올리지 않음
+        governor.onReading(60_000, ThermalGovernor.THERMAL_SEVERE, 0.1);
+        assertEquals(3, governor.getStep());
+
+        long t = 65_000;
+        governor.onReading(t, ThermalGovernor.THERMAL_NONE, 0.1);
+        governor.onReading(t + ThermalGovernor.UP_HOLD_MS - 1, ThermalGovernor.THERMAL_NONE, 0.1);
+        assertEquals(3, governor.getStep());
+        governor.onReading(t + ThermalGovernor.UP_HOLD_MS, ThermalGovernor.THERMAL_NONE, 0.1);
+        assertEquals(2, governor.getStep());
+
+        // CPU 가 중간 구간이면 대기 시간 초기화
+        governor.onReading(t + ThermalGovernor.UP_HOLD_MS + 5_000, ThermalGovernor.THERMAL_NONE, 0.5);
+        governor.onReading(t + ThermalGovernor.UP_HOLD_MS * 2, ThermalGovernor.THERMAL_NONE, 0.1);
+        assertEquals(2, governor.getStep());
+        assertEquals("3->2 cooled", steps.get(1));
+    }
+
+    @Test
+    public void parsesProcStatAndCpuFraction() {
+        String stat = "12345 (silmedy) call) S 1 2 3 0 -1 4194560 100 0 0 0 250 75 0 0 20 0 40 0 99\n";
+        assertEquals(325, ThermalGovernor.parseCpuTicks(stat));
+        assertEquals(-1, ThermalGovernor.parseCpuTicks("garbage"));
+        assertEquals(-1, ThermalGovernor.parseCpuTicks("1 (x) S 1 2"));
+
+        // 5초 동안 500 tick(100Hz) = 5초 CPU = 1코어 → 코어 예산(2) 대비 50%
+        assertEquals(0.5, ThermalGovernor.cpuFraction(500, 100, 5_000, 4), 1e-9);
+        // 단일 코어 기기는 그 코어 기준
+        assertEquals(1.0, ThermalGovernor.cpuFraction(500, 100, 5_000, 1), 1e-9);
+        assertTrue(Double.isNaN(ThermalGovernor.cpuFraction(10, 100, 0, 4)));
+    }
+
+    @Test
+    public void octaCoreLoad_stepsDown() {
+        // 8코어 기기에서 통화가 1.5코어를 계속 사용 (5초마다 750 tick)
+        // 전체 코어 기준이면 19% 라 과부하로 보이지 않음
+        double cpu = ThermalGovernor.cpuFraction(750, 100, 5_000, 8);
+        assertTrue(cpu >= ThermalGovernor.CPU_HIGH);
+
+        governor.onReading(0, ThermalGovernor.THERMAL_NONE, cpu);
+        governor.onReading(5_000, ThermalGovernor.THERMAL_NONE, cpu);
+        assertEquals(1, governor.getStep());
+        assertEquals("0->1 cpu", steps.get(0));
+    }
+}
@@ -0,0 +1,140 @@
+package com.silmedy.videocall;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.webrtc.PeerConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * TurnCredentialProvider 발급 / 디스크 캐시 / 만료 판정 검증 (MockWebServer, 가짜 시계)
+ */
+public class TurnCredentialProviderTest {
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final String BODY = "{\"username\":\"1700000600:42\",\"credential\":\"secret\","
+            + "\"ttl\":600,\"uris\":[\"turn:turn.example.com:3478?transport=udp\","
+            + "\"turns:turn.example.com:5349?transport=tcp\"]}";
+
+    private MockWebServer server;
+    private File cache;
+    private long now = 1_000_000;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        cache = new File(tmp.newFolder("turn"), "turn_credentials.json");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private TurnCredentialProvider provider() {
+        return new TurnCredentialProvider(cache, new OkHttpClient(),
+                server.url("/api/v1/turn/credentials").toString(), () -> "jwt", () -> now);
+    }
+
+    @Test
+    public void fetchesCredentialsWithBearerToken() throws Exception {
+        server.enqueue(new MockResponse().setBody(BODY));
+        TurnCredentialProvider p = provider();
+
+        assertTrue(p.refreshNow());
+
+        RecordedRequest req = server.takeRequest();
+        assertEquals("Bearer jwt", req.getHeader("Authorization"));
+        TurnCredentialProvider.Credentials c = p.usableCredentials();
+        assertNotNull(c);
+        assertEquals("1700000600:42", c.username);
+        assertEquals("secret", c.password);
+        assertEquals(2, c.uris.size());
+        assertEquals(now + 600_000, c.expiresAtMs);
+    }
+
+    @Test
+    public void reloadsCachedCredentialsFromDisk() {
+        server.enqueue(new MockResponse().setBody(BODY));
+        assertTrue(provider().refreshNow());
+
+        // 새 인스턴스(앱 재시작)는 네트워크 없이 캐시 사용
+        TurnCredentialProvider restarted = provider();
+        assertNotNull(restarted.usableCredentials());
+        assertEquals("secret", restarted.usableCredentials().password);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void credentialsNearExpiryAreNotUsed() {
+        server.enqueue(new MockResponse().setBody(BODY));
+        TurnCredentialProvider p = provider();
+        assertTrue(p.refreshNow());
+
+        TurnCredentialProvider.Credentials c = p.current();
+        // TTL 600s 의 20% = 120s 전부터 갱신
+        assertEquals(c.expiresAtMs - 120_000, c.refreshAtMs());
+
+        now = c.expiresAtMs - TurnCredentialProvider.MIN_REMAINING_MS + 1;
+        assertNull(p.usableCredentials());
+        assertNotNull(p.current());
+    }
+
+    @Test
+    public void keepsPreviousCredentialsWhenRefreshFails() {
+        server.enqueue(new MockResponse().setBody(BODY));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        TurnCredentialProvider p = provider();
+        assertTrue(p.refreshNow());
+
+        assertFalse(p.refreshNow());
+        assertEquals("secret", p.current().password);
+    }
+
+    @Test
+    public void fallsBackToStaticRelayWithoutCredentials() {
+        // 첫 실행 / 캐시 만료 / 발급 서버 장애: relay_only 에서도 후보가 있도록 고정 relay 유지
+        List<PeerConnection.IceServer> servers = TurnCredentialProvider.iceServers(null);
+        assertEquals(2, servers.size());
+        PeerConnection.IceServer relay = servers.get(1);
+        assertEquals(TurnCredentialProvider.FALLBACK_TURN_URI, relay.urls.get(0));
+        assertEquals(TurnCredentialProvider.FALLBACK_TURN_USERNAME, relay.username);
+    }
+
+    @Test
+    public void awaitCredentialsWaitsForInFlightPrefetch() {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(300, TimeUnit.MILLISECONDS));
+        TurnCredentialProvider p = provider();
+        assertNull(p.usableCredentials());
+
+        p.prefetch();
+        TurnCredentialProvider.Credentials c = p.awaitCredentials(5_000);
+        assertNotNull(c);
+        assertEquals("secret", c.password);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(c.uris, TurnCredentialProvider.iceServers(c).get(1).urls);
+    }
+
+    @Test
+    public void awaitCredentialsGivesUpAfterTimeout() {
+        server.enqueue(new MockResponse().setBody(BODY).setBodyDelay(2, TimeUnit.SECONDS));
+        TurnCredentialProvider p = provider();
+
+        p.prefetch();
+        assertNull(p.awaitCredentials(100));
+    }
+}